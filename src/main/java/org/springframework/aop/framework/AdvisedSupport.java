@@ -42,6 +42,10 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
     /** Cache with Method as key and advisor chain List as value. */
     private transient Map<MethodCacheKey, List<Object>> methodCache;
 
+    /** Identity-keyed advisor chains used by proxies while this configuration is frozen. */
+    @Nullable
+    private transient volatile FrozenAdviceChains frozenAdviceChains;
+
     /**
      * Interfaces to be implemented by the proxy. Held in List to keep the order
      * of registration, to create JDK proxy with specified order of interfaces.
@@ -360,8 +364,22 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
         return cached;
     }
 
+    /**
+     * Return the advisor chain for the given method from the frozen chain table,
+     * which avoids the method cache lookup. Only meant to be used while frozen.
+     */
+    FrozenAdviceChains.Chain getFrozenAdviceChain(Method method, @Nullable Class<?> targetClass) {
+        FrozenAdviceChains chains = this.frozenAdviceChains;
+        if (chains == null) {
+            chains = new FrozenAdviceChains(this);
+            this.frozenAdviceChains = chains;
+        }
+        return chains.getChain(method, targetClass);
+    }
+
     protected void adviceChanged() {
         this.methodCache.clear();
+        this.frozenAdviceChains = null;
     }
 
     protected void copyConfigurationFrom(AdvisedSupport other) {
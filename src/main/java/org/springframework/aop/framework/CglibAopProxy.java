@@ -242,7 +242,8 @@ class CglibAopProxy implements AopProxy, Serializable {
                 Method method = methods[x];
                 List<Object> chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, rootClass);
                 fixedCallbacks[x] = new FixedChainStaticTargetInterceptor(
-                        chain, this.advised.getTargetSource().getTarget(), this.advised.getTargetClass());
+                        chain, this.advised.getTargetSource().getTarget(), this.advised.getTargetClass(),
+                        this.advised.isReuseInvocations());
                 this.fixedInterceptorMap.put(method, x);
             }
 
@@ -475,17 +476,31 @@ class CglibAopProxy implements AopProxy, Serializable {
         @Nullable
         private final Class<?> targetClass;
 
-        public FixedChainStaticTargetInterceptor(
-                List<Object> adviceChain, @Nullable Object target, @Nullable Class<?> targetClass) {
+        @Nullable
+        private final org.aopalliance.intercept.MethodInterceptor[] staticChain;
+
+        public FixedChainStaticTargetInterceptor(List<Object> adviceChain, @Nullable Object target,
+                @Nullable Class<?> targetClass, boolean reuseInvocations) {
 
             this.adviceChain = adviceChain;
             this.target = target;
             this.targetClass = targetClass;
+            this.staticChain = (reuseInvocations ? ReusableMethodInvocation.toStaticInterceptors(adviceChain) : null);
         }
 
         @Override
         @Nullable
         public Object intercept(Object proxy, Method method, Object[] args, MethodProxy methodProxy) throws Throwable {
+            if (this.staticChain != null) {
+                ReusableMethodInvocation invocation = ReusableMethodInvocation.obtain(
+                        proxy, this.target, method, args, this.targetClass, this.staticChain, methodProxy);
+                try {
+                    return processReturnType(proxy, this.target, method, invocation.proceed());
+                }
+                finally {
+                    invocation.release();
+                }
+            }
             MethodInvocation invocation = new CglibMethodInvocation(
                     proxy, this.target, method, args, this.targetClass, this.adviceChain, methodProxy);
             // If we get here, we need to create a MethodInvocation.
@@ -519,7 +534,18 @@ class CglibAopProxy implements AopProxy, Serializable {
                 // Get as late as possible to minimize the time we "own" the target, in case it comes from a pool...
                 target = targetSource.getTarget();
                 Class<?> targetClass = (target != null ? target.getClass() : null);
-                List<Object> chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+                List<Object> chain;
+                org.aopalliance.intercept.MethodInterceptor[] staticChain = null;
+                if (this.advised.isFrozen()) {
+                    FrozenAdviceChains.Chain frozenChain = this.advised.getFrozenAdviceChain(method, targetClass);
+                    chain = frozenChain.interceptors;
+                    if (this.advised.isReuseInvocations()) {
+                        staticChain = frozenChain.staticInterceptors;
+                    }
+                }
+                else {
+                    chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+                }
                 Object retVal;
                 // Check whether we only have one InvokerInterceptor: that is,
                 // no real advice, but just reflective invocation of the target.
@@ -531,6 +557,17 @@ class CglibAopProxy implements AopProxy, Serializable {
                     Object[] argsToUse = AopProxyUtils.adaptArgumentsIfNecessary(method, args);
                     retVal = methodProxy.invoke(target, argsToUse);
                 }
+                else if (staticChain != null) {
+                    // Only plain interceptors: recycle this thread's invocation object.
+                    ReusableMethodInvocation invocation = ReusableMethodInvocation.obtain(
+                            proxy, target, method, args, targetClass, staticChain, methodProxy);
+                    try {
+                        retVal = invocation.proceed();
+                    }
+                    finally {
+                        invocation.release();
+                    }
+                }
                 else {
                     // We need to create a method invocation...
                     retVal = new CglibMethodInvocation(proxy, target, method, args, targetClass, chain, methodProxy).proceed();
@@ -0,0 +1,110 @@
+package org.springframework.aop.framework;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.lang.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Per-method advice chains for a frozen {@link AdvisedSupport} configuration.
+ *
+ * <p>Proxies receive the same {@link Method} instance for every call of a given
+ * proxy method, so chains are kept in an open-addressing table keyed by method
+ * and target class identity: a lookup is a single array probe, without the
+ * cache key allocation and {@code equals} comparisons of the regular method
+ * cache. A non-static target source may return several target classes, which
+ * then get one entry each. The table is copied on write, which only happens
+ * once per method and target class.
+ */
+final class FrozenAdviceChains {
+
+    private final AdvisedSupport advised;
+
+    private volatile Chain[] table = new Chain[16];
+
+    private int size;
+
+
+    FrozenAdviceChains(AdvisedSupport advised) {
+        this.advised = advised;
+    }
+
+
+    /**
+     * Return the advice chain for the given method, resolving it on first access.
+     */
+    public Chain getChain(Method method, @Nullable Class<?> targetClass) {
+        Chain[] table = this.table;
+        int mask = table.length - 1;
+        int index = System.identityHashCode(method) & mask;
+        Chain chain;
+        while ((chain = table[index]) != null) {
+            if (chain.method == method && chain.targetClass == targetClass) {
+                return chain;
+            }
+            index = (index + 1) & mask;
+        }
+        return resolveChain(method, targetClass);
+    }
+
+    private synchronized Chain resolveChain(Method method, @Nullable Class<?> targetClass) {
+        Chain[] table = this.table;
+        for (Chain existing : table) {
+            if (existing != null && existing.method == method && existing.targetClass == targetClass) {
+                return existing;
+            }
+        }
+        Chain chain = new Chain(method, targetClass,
+                this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass));
+        int capacity = table.length;
+        if ((this.size + 1) * 2 > capacity) {
+            capacity *= 2;
+        }
+        Chain[] newTable = new Chain[capacity];
+        for (Chain existing : table) {
+            if (existing != null) {
+                insert(newTable, existing);
+            }
+        }
+        insert(newTable, chain);
+        this.size++;
+        this.table = newTable;
+        return chain;
+    }
+
+    private static void insert(Chain[] table, Chain chain) {
+        int mask = table.length - 1;
+        int index = System.identityHashCode(chain.method) & mask;
+        while (table[index] != null) {
+            index = (index + 1) & mask;
+        }
+        table[index] = chain;
+    }
+
+
+    /**
+     * A resolved advice chain for one method.
+     */
+    static final class Chain {
+
+        final Method method;
+
+        @Nullable
+        final Class<?> targetClass;
+
+        final List<Object> interceptors;
+
+        /** The chain as plain interceptors, or {@code null} if it contains dynamic matchers. */
+        @Nullable
+        final MethodInterceptor[] staticInterceptors;
+
+        Chain(Method method, @Nullable Class<?> targetClass, List<Object> interceptors) {
+            this.method = method;
+            this.targetClass = targetClass;
+            this.interceptors = interceptors;
+            this.staticInterceptors = ReusableMethodInvocation.toStaticInterceptors(interceptors);
+        }
+    }
+
+}
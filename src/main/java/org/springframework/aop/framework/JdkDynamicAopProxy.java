@@ -1,5 +1,6 @@
 package org.springframework.aop.framework;
 
+import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -111,8 +112,20 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
             target = targetSource.getTarget();
             Class<?> targetClass = (target != null ? target.getClass() : null);
 
-            // Get the interception chain for this method.
-            List<Object> chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+            // Get the interception chain for this method: straight from the
+            // per-method table if the configuration is frozen.
+            List<Object> chain;
+            MethodInterceptor[] staticChain = null;
+            if (this.advised.isFrozen()) {
+                FrozenAdviceChains.Chain frozenChain = this.advised.getFrozenAdviceChain(method, targetClass);
+                chain = frozenChain.interceptors;
+                if (this.advised.isReuseInvocations()) {
+                    staticChain = frozenChain.staticInterceptors;
+                }
+            }
+            else {
+                chain = this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, targetClass);
+            }
 
             // Check whether we have any advice. If we don't, we can fallback on direct
             // reflective invocation of the target, and avoid creating a MethodInvocation.
@@ -123,6 +136,17 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
                 Object[] argsToUse = AopProxyUtils.adaptArgumentsIfNecessary(method, args);
                 retVal = AopUtils.invokeJoinpointUsingReflection(target, method, argsToUse);
             }
+            else if (staticChain != null) {
+                // Only plain interceptors: recycle this thread's invocation object.
+                ReusableMethodInvocation invocation =
+                        ReusableMethodInvocation.obtain(proxy, target, method, args, targetClass, staticChain);
+                try {
+                    retVal = invocation.proceed();
+                }
+                finally {
+                    invocation.release();
+                }
+            }
             else {
                 // We need to create a method invocation...
                 MethodInvocation invocation =
@@ -21,6 +21,8 @@ public class ProxyConfig implements Serializable {
 
     private boolean frozen = false;
 
+    private boolean reuseInvocations = false;
+
     public void setProxyTargetClass(boolean proxyTargetClass) {
         this.proxyTargetClass = proxyTargetClass;
     }
@@ -61,12 +63,27 @@ public class ProxyConfig implements Serializable {
         return this.frozen;
     }
 
+    /**
+     * Set whether frozen proxies may recycle a per-thread invocation object for
+     * advice chains without dynamic method matchers. Default is "false".
+     * <p>Only enable this if no interceptor keeps a reference to the invocation
+     * after returning, e.g. to proceed asynchronously on another thread.
+     */
+    public void setReuseInvocations(boolean reuseInvocations) {
+        this.reuseInvocations = reuseInvocations;
+    }
+
+    public boolean isReuseInvocations() {
+        return this.reuseInvocations;
+    }
+
     public void copyFrom(ProxyConfig other) {
         Assert.notNull(other, "Other ProxyConfig object must not be null");
         this.proxyTargetClass = other.proxyTargetClass;
         this.optimize = other.optimize;
         this.exposeProxy = other.exposeProxy;
         this.frozen = other.frozen;
+        this.reuseInvocations = other.reuseInvocations;
         this.opaque = other.opaque;
     }
 
@@ -78,7 +95,8 @@ public class ProxyConfig implements Serializable {
         sb.append("optimize=").append(this.optimize).append("; ");
         sb.append("opaque=").append(this.opaque).append("; ");
         sb.append("exposeProxy=").append(this.exposeProxy).append("; ");
-        sb.append("frozen=").append(this.frozen);
+        sb.append("frozen=").append(this.frozen).append("; ");
+        sb.append("reuseInvocations=").append(this.reuseInvocations);
         return sb.toString();
     }
 
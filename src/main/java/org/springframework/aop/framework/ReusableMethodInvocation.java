@@ -0,0 +1,261 @@
+package org.springframework.aop.framework;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.cglib.proxy.MethodProxy;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ProxyMethodInvocation} for chains made of plain {@link MethodInterceptor
+ * MethodInterceptors} only, recycled per thread so that steady-state proxy calls
+ * do not allocate an invocation object.
+ *
+ * <p>Same semantics as {@link ReflectiveMethodInvocation}, including CGLIB's
+ * {@link MethodProxy} joinpoint and undeclared exception translation. Nested
+ * proxy calls on the same thread get a fresh instance, as do
+ * {@link #invocableClone() clones}. Only safe for interceptors that do not keep
+ * the invocation beyond their own {@code invoke} call.
+ *
+ * @see ProxyConfig#setReuseInvocations
+ */
+final class ReusableMethodInvocation implements ProxyMethodInvocation {
+
+    private static final ThreadLocal<ReusableMethodInvocation> pooledInvocation =
+            ThreadLocal.withInitial(() -> new ReusableMethodInvocation());
+
+    private boolean inUse;
+
+    private Object proxy;
+
+    @Nullable
+    private Object target;
+
+    private Method method;
+
+    private Object[] arguments;
+
+    @Nullable
+    private Class<?> targetClass;
+
+    private MethodInterceptor[] interceptors;
+
+    @Nullable
+    private MethodProxy methodProxy;
+
+    private boolean translateUndeclared;
+
+    @Nullable
+    private Map<String, Object> userAttributes;
+
+    private int currentInterceptorIndex = -1;
+
+
+    /**
+     * Return the given chain as an interceptor array, or {@code null}
+     * if it contains dynamic method matchers.
+     */
+    @Nullable
+    static MethodInterceptor[] toStaticInterceptors(List<Object> chain) {
+        MethodInterceptor[] interceptors = new MethodInterceptor[chain.size()];
+        for (int i = 0; i < interceptors.length; i++) {
+            Object element = chain.get(i);
+            if (!(element instanceof MethodInterceptor)) {
+                return null;
+            }
+            interceptors[i] = (MethodInterceptor) element;
+        }
+        return interceptors;
+    }
+
+    /**
+     * Obtain an invocation for a JDK proxy call. Must be {@link #release() released}.
+     */
+    static ReusableMethodInvocation obtain(Object proxy, @Nullable Object target, Method method,
+            Object[] arguments, @Nullable Class<?> targetClass, MethodInterceptor[] interceptors) {
+
+        ReusableMethodInvocation invocation = pooledInvocation.get();
+        if (invocation.inUse) {
+            invocation = new ReusableMethodInvocation();
+        }
+        invocation.inUse = true;
+        invocation.proxy = proxy;
+        invocation.target = target;
+        invocation.method = method;
+        invocation.arguments = AopProxyUtils.adaptArgumentsIfNecessary(method, arguments);
+        invocation.targetClass = targetClass;
+        invocation.interceptors = interceptors;
+        invocation.methodProxy = null;
+        invocation.translateUndeclared = false;
+        invocation.currentInterceptorIndex = -1;
+        return invocation;
+    }
+
+    /**
+     * Obtain an invocation for a CGLIB proxy call. Must be {@link #release() released}.
+     */
+    static ReusableMethodInvocation obtain(Object proxy, @Nullable Object target, Method method,
+            Object[] arguments, @Nullable Class<?> targetClass, MethodInterceptor[] interceptors,
+            MethodProxy methodProxy) {
+
+        ReusableMethodInvocation invocation = obtain(proxy, target, method, arguments, targetClass, interceptors);
+        // Only use method proxy for public methods not derived from java.lang.Object
+        invocation.methodProxy = (Modifier.isPublic(method.getModifiers()) &&
+                method.getDeclaringClass() != Object.class && !AopUtils.isEqualsMethod(method) &&
+                !AopUtils.isHashCodeMethod(method) && !AopUtils.isToStringMethod(method) ?
+                methodProxy : null);
+        invocation.translateUndeclared = true;
+        return invocation;
+    }
+
+    /**
+     * Drop all references held for the current call and return this instance to its thread.
+     */
+    void release() {
+        this.proxy = null;
+        this.target = null;
+        this.arguments = null;
+        this.targetClass = null;
+        this.interceptors = null;
+        this.methodProxy = null;
+        this.userAttributes = null;
+        this.inUse = false;
+    }
+
+
+    @Override
+    public final Object getProxy() {
+        return this.proxy;
+    }
+
+    @Override
+    @Nullable
+    public final Object getThis() {
+        return this.target;
+    }
+
+    @Override
+    public final AccessibleObject getStaticPart() {
+        return this.method;
+    }
+
+    @Override
+    public final Method getMethod() {
+        return this.method;
+    }
+
+    @Override
+    public final Object[] getArguments() {
+        return this.arguments;
+    }
+
+    @Override
+    public void setArguments(Object... arguments) {
+        this.arguments = arguments;
+    }
+
+    @Override
+    @Nullable
+    public Object proceed() throws Throwable {
+        try {
+            if (this.currentInterceptorIndex == this.interceptors.length - 1) {
+                return invokeJoinpoint();
+            }
+            return this.interceptors[++this.currentInterceptorIndex].invoke(this);
+        }
+        catch (RuntimeException ex) {
+            throw ex;
+        }
+        catch (Exception ex) {
+            if (!this.translateUndeclared || ReflectionUtils.declaresException(getMethod(), ex.getClass())) {
+                throw ex;
+            }
+            throw new UndeclaredThrowableException(ex);
+        }
+    }
+
+    @Nullable
+    private Object invokeJoinpoint() throws Throwable {
+        if (this.methodProxy != null) {
+            return this.methodProxy.invoke(this.target, this.arguments);
+        }
+        return AopUtils.invokeJoinpointUsingReflection(this.target, this.method, this.arguments);
+    }
+
+    @Override
+    public MethodInvocation invocableClone() {
+        Object[] cloneArguments = this.arguments;
+        if (this.arguments.length > 0) {
+            // Build an independent copy of the arguments array.
+            cloneArguments = this.arguments.clone();
+        }
+        return invocableClone(cloneArguments);
+    }
+
+    @Override
+    public MethodInvocation invocableClone(Object... arguments) {
+        // Clones may outlive the current call: never hand out the pooled instance.
+        ReusableMethodInvocation clone = new ReusableMethodInvocation();
+        clone.inUse = true;
+        clone.proxy = this.proxy;
+        clone.target = this.target;
+        clone.method = this.method;
+        clone.arguments = arguments;
+        clone.targetClass = this.targetClass;
+        clone.interceptors = this.interceptors;
+        clone.methodProxy = this.methodProxy;
+        clone.translateUndeclared = this.translateUndeclared;
+        clone.currentInterceptorIndex = this.currentInterceptorIndex;
+        if (this.userAttributes != null) {
+            clone.userAttributes = new HashMap<>(this.userAttributes);
+        }
+        return clone;
+    }
+
+    @Override
+    public void setUserAttribute(String key, @Nullable Object value) {
+        if (value != null) {
+            getUserAttributes().put(key, value);
+        }
+        else if (this.userAttributes != null) {
+            this.userAttributes.remove(key);
+        }
+    }
+
+    @Override
+    @Nullable
+    public Object getUserAttribute(String key) {
+        return (this.userAttributes != null ? this.userAttributes.get(key) : null);
+    }
+
+    public Map<String, Object> getUserAttributes() {
+        if (this.userAttributes == null) {
+            this.userAttributes = new HashMap<>();
+        }
+        return this.userAttributes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ReusableMethodInvocation: ");
+        sb.append(this.method).append("; ");
+        if (this.target == null) {
+            sb.append("target is null");
+        }
+        else {
+            sb.append("target is of class [").append(this.target.getClass().getName()).append(']');
+        }
+        return sb.toString();
+    }
+
+}
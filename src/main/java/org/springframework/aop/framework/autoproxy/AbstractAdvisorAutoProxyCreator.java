@@ -2,7 +2,6 @@ package org.springframework.aop.framework.autoproxy;
 
 import org.springframework.aop.Advisor;
 import org.springframework.aop.TargetSource;
-import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
@@ -16,6 +15,8 @@ public abstract class AbstractAdvisorAutoProxyCreator extends AbstractAutoProxyC
     @Nullable
     private BeanFactoryAdvisorRetrievalHelper advisorRetrievalHelper;
 
+    private final AdvisorApplicabilityIndex applicabilityIndex = new AdvisorApplicabilityIndex();
+
     @Override
     public void setBeanFactory(BeanFactory beanFactory) {
         super.setBeanFactory(beanFactory);
@@ -62,7 +63,7 @@ public abstract class AbstractAdvisorAutoProxyCreator extends AbstractAutoProxyC
 
         ProxyCreationContext.setCurrentProxiedBeanName(beanName);
         try {
-            return AopUtils.findAdvisorsThatCanApply(candidateAdvisors, beanClass);
+            return this.applicabilityIndex.findAdvisorsThatCanApply(candidateAdvisors, beanClass);
         }
         finally {
             ProxyCreationContext.setCurrentProxiedBeanName(null);
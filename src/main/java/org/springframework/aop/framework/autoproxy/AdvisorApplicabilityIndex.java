@@ -0,0 +1,173 @@
+package org.springframework.aop.framework.autoproxy;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.IntroductionAdvisor;
+import org.springframework.aop.MethodMatcher;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.PointcutAdvisor;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.JdkRegexpMethodPointcut;
+import org.springframework.aop.support.NameMatchMethodPointcut;
+import org.springframework.aop.support.annotation.AnnotationClassFilter;
+import org.springframework.aop.support.annotation.AnnotationMethodMatcher;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * Narrows down the candidate advisors for a bean class before the full
+ * per-method check of {@link AopUtils#canApply(Advisor, Class, boolean)}.
+ *
+ * <p>Each bean class is summarized once: its methods (as walked by
+ * {@code canApply}), one representative method per declaring class and
+ * method name, and the annotation types present on its methods. Advisors
+ * with well-known pointcuts, of exactly these classes since subclasses may
+ * override how they match, are then checked against that summary:
+ * <ul>
+ * <li>{@link AnnotationMethodMatcher}: rejected without a method walk if no
+ * method carries the annotation;
+ * <li>{@link NameMatchMethodPointcut} and {@link JdkRegexpMethodPointcut}:
+ * matched against the representative methods only, since they only look at
+ * method and class names.
+ * </ul>
+ * For such advisors, whose applicability depends on the class only, the
+ * outcome is also cached per class. All other advisors go through the full check.
+ */
+final class AdvisorApplicabilityIndex {
+
+    private final Map<Class<?>, ClassFeatures> classFeatures = new ConcurrentReferenceHashMap<>(256);
+
+    private final Map<Advisor, AdvisorFeatures> advisorFeatures = new ConcurrentReferenceHashMap<>(64);
+
+
+    public List<Advisor> findAdvisorsThatCanApply(List<Advisor> candidateAdvisors, Class<?> beanClass) {
+        if (candidateAdvisors.isEmpty()) {
+            return candidateAdvisors;
+        }
+        List<Advisor> eligibleAdvisors = new ArrayList<>();
+        for (Advisor candidate : candidateAdvisors) {
+            if (candidate instanceof IntroductionAdvisor && AopUtils.canApply(candidate, beanClass)) {
+                eligibleAdvisors.add(candidate);
+            }
+        }
+        boolean hasIntroductions = !eligibleAdvisors.isEmpty();
+        for (Advisor candidate : candidateAdvisors) {
+            if (candidate instanceof IntroductionAdvisor) {
+                continue;
+            }
+            if (canApply(candidate, beanClass, hasIntroductions)) {
+                eligibleAdvisors.add(candidate);
+            }
+        }
+        return eligibleAdvisors;
+    }
+
+    private boolean canApply(Advisor advisor, Class<?> beanClass, boolean hasIntroductions) {
+        if (!(advisor instanceof PointcutAdvisor)) {
+            return true;
+        }
+        AdvisorFeatures features = this.advisorFeatures.computeIfAbsent(advisor, AdvisorFeatures::new);
+        if (!features.classOnly) {
+            return AopUtils.canApply(advisor, beanClass, hasIntroductions);
+        }
+        return features.results.computeIfAbsent(beanClass, clazz -> features.canApply(getClassFeatures(clazz)));
+    }
+
+    private ClassFeatures getClassFeatures(Class<?> beanClass) {
+        return this.classFeatures.computeIfAbsent(beanClass, ClassFeatures::new);
+    }
+
+
+    /**
+     * Summary of a bean class, shared by all advisors checked against it.
+     */
+    private static final class ClassFeatures {
+
+        final Class<?> targetClass;
+
+        final List<Method> methods = new ArrayList<>();
+
+        final Collection<Method> methodsByQualifiedName;
+
+        final Set<Class<? extends Annotation>> methodAnnotationTypes = new HashSet<>();
+
+        ClassFeatures(Class<?> targetClass) {
+            this.targetClass = targetClass;
+            Set<Class<?>> classes = new LinkedHashSet<>(ClassUtils.getAllInterfacesAsSet(targetClass));
+            classes.add(targetClass);
+            Map<String, Method> representatives = new LinkedHashMap<>();
+            for (Class<?> clazz : classes) {
+                for (Method method : ReflectionUtils.getAllDeclaredMethods(clazz)) {
+                    this.methods.add(method);
+                    representatives.putIfAbsent(method.getDeclaringClass().getName() + '.' + method.getName(), method);
+                    for (Annotation annotation : method.getDeclaredAnnotations()) {
+                        this.methodAnnotationTypes.add(annotation.annotationType());
+                    }
+                }
+            }
+            this.methodsByQualifiedName = representatives.values();
+        }
+    }
+
+
+    /**
+     * What can be known about an advisor's pointcut without a target class.
+     */
+    private static final class AdvisorFeatures {
+
+        final Pointcut pointcut;
+
+        /** Whether applicability depends on the target class only (and can be cached). */
+        final boolean classOnly;
+
+        /** Whether the method matcher only looks at class and method names. */
+        final boolean nameBased;
+
+        @Nullable
+        final Class<? extends Annotation> methodAnnotationType;
+
+        final Map<Class<?>, Boolean> results = new ConcurrentReferenceHashMap<>(64);
+
+        AdvisorFeatures(Advisor advisor) {
+            this.pointcut = ((PointcutAdvisor) advisor).getPointcut();
+            ClassFilter classFilter = this.pointcut.getClassFilter();
+            MethodMatcher methodMatcher = this.pointcut.getMethodMatcher();
+            // Exact classes only: subclasses may override what a match depends on.
+            this.nameBased = (methodMatcher.getClass() == NameMatchMethodPointcut.class ||
+                    methodMatcher.getClass() == JdkRegexpMethodPointcut.class);
+            this.methodAnnotationType = (methodMatcher.getClass() == AnnotationMethodMatcher.class ?
+                    ((AnnotationMethodMatcher) methodMatcher).getAnnotationType() : null);
+            this.classOnly = ((classFilter == ClassFilter.TRUE || classFilter instanceof AnnotationClassFilter) &&
+                    (methodMatcher == MethodMatcher.TRUE || this.nameBased || this.methodAnnotationType != null));
+        }
+
+        boolean canApply(ClassFeatures classFeatures) {
+            Class<?> targetClass = classFeatures.targetClass;
+            if (!this.pointcut.getClassFilter().matches(targetClass)) {
+                return false;
+            }
+            MethodMatcher methodMatcher = this.pointcut.getMethodMatcher();
+            if (methodMatcher == MethodMatcher.TRUE) {
+                return true;
+            }
+            if (this.methodAnnotationType != null &&
+                    !classFeatures.methodAnnotationTypes.contains(this.methodAnnotationType)) {
+                return false;
+            }
+            Collection<Method> methods = (this.nameBased ? classFeatures.methodsByQualifiedName : classFeatures.methods);
+            for (Method method : methods) {
+                if (methodMatcher.matchers(method, targetClass)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+}
@@ -5,6 +5,7 @@ import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
+import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 
@@ -12,9 +13,11 @@ public abstract class AbstractRegexpMethodPointcut extends StaticMethodMatcherPo
 
     private String[] patterns=new String[0];
 
-    public void setPatterns(String pattern)
+    private String[] excludedPatterns=new String[0];
+
+    public void setPattern(String pattern)
     {
-        setPatterns(pattern);
+        setPatterns(new String[] {pattern});
     }
 
     public void setPatterns(String... patterns) {
@@ -32,9 +35,9 @@ public abstract class AbstractRegexpMethodPointcut extends StaticMethodMatcherPo
         return this.patterns;
     }
 
-    public void setExcludedPattern(String excludeedPattern)
+    public void setExcludedPattern(String excludedPattern)
     {
-        setExcludedPattern(excludeedPattern);
+        setExcludedPatterns(excludedPattern);
     }
 
     public void setExcludedPatterns(String... excludedPatterns)
@@ -46,16 +49,21 @@ public abstract class AbstractRegexpMethodPointcut extends StaticMethodMatcherPo
             this.excludedPatterns[i]=StringUtils.trimWhitespace(excludedPatterns[i]);
 
         }
-        initExcludedPatternRepresentation(this.excludePatterns);
+        initExcludedPatternRepresentation(this.excludedPatterns);
 
     }
 
+    public String[] getExcludedPatterns()
+    {
+        return this.excludedPatterns;
+    }
+
     @Override
     public boolean matchers(Method method,Class<?> targetClass)
     {
-        return (matchersPattern(ClassUtils.getQualifiedMethodName(method,targetClass))||
+        return (matchesPattern(ClassUtils.getQualifiedMethodName(method,targetClass))||
                 (targetClass!=method.getDeclaringClass()&&
-                        matchersPattern(ClassUtils.getQualifiedMethodName(method,method.getDeclaringClass()))))
+                        matchesPattern(ClassUtils.getQualifiedMethodName(method,method.getDeclaringClass()))));
 
     }
 
@@ -86,6 +94,8 @@ public abstract class AbstractRegexpMethodPointcut extends StaticMethodMatcherPo
 
     protected abstract boolean matches(String pattern,int patternIndex);
 
+    protected abstract boolean matchesExclusion(String pattern,int patternIndex);
+
     @Override
     public boolean equals(Object other)
     {
@@ -93,7 +103,7 @@ public abstract class AbstractRegexpMethodPointcut extends StaticMethodMatcherPo
         {
             return true;
         }
-        if(!(other instanceof AbstractRegexMethodPointcut))
+        if(!(other instanceof AbstractRegexpMethodPointcut))
         {
             return false;
         }
@@ -122,6 +132,6 @@ public abstract class AbstractRegexpMethodPointcut extends StaticMethodMatcherPo
     public String toString()
     {
         return getClass().getName()+":patterns"+ ObjectUtils.nullSafeToString(this.patterns)+
-        ",excluded patterns "+ObjectUtils.nullSafeToString(this.excludedPatterns)
+        ",excluded patterns "+ObjectUtils.nullSafeToString(this.excludedPatterns);
     }
 }
@@ -0,0 +1,88 @@
+package org.springframework.aop.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compiles regular expressions for method pointcuts into as few
+ * {@link Pattern Patterns} as possible: one alternation of all patterns that
+ * keep their meaning inside it, plus one Pattern per remaining expression.
+ *
+ * <p>An expression stays separate if it contains a numbered back reference,
+ * since its groups would be renumbered in the alternation, or a named group,
+ * since group names must be unique across the alternation.
+ */
+final class CombinedPatterns {
+
+    private static final Pattern[] NO_PATTERNS = new Pattern[0];
+
+
+    private CombinedPatterns() {
+    }
+
+
+    /**
+     * Compile the given expressions.
+     * @return the Patterns to try, any of which matching means a match
+     */
+    static Pattern[] compile(Collection<String> sources) throws PatternSyntaxException {
+        if (sources.isEmpty()) {
+            return NO_PATTERNS;
+        }
+        List<Pattern> patterns = new ArrayList<>();
+        StringJoiner alternation = new StringJoiner("|");
+        int combined = 0;
+        for (String source : sources) {
+            if (isCombinable(source)) {
+                alternation.add("(?:" + source + ")");
+                combined++;
+            }
+            else {
+                patterns.add(Pattern.compile(source));
+            }
+        }
+        if (combined > 0) {
+            patterns.add(0, Pattern.compile(alternation.toString()));
+        }
+        return patterns.toArray(NO_PATTERNS);
+    }
+
+    /**
+     * Whether any of the given Patterns matches the entire input.
+     */
+    static boolean matches(Pattern[] patterns, CharSequence input) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(input).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the given expression means the same inside an alternation.
+     */
+    static boolean isCombinable(String source) {
+        for (int i = 0; i < source.length() - 1; i++) {
+            char c = source.charAt(i);
+            if (c == '\\') {
+                char next = source.charAt(i + 1);
+                if (next >= '1' && next <= '9') {
+                    return false;
+                }
+                // Skip the escaped character, e.g. a literal backslash.
+                i++;
+            }
+            else if (c == '(' && source.startsWith("?<", i + 1) && i + 3 < source.length() &&
+                    source.charAt(i + 3) != '=' && source.charAt(i + 3) != '!') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
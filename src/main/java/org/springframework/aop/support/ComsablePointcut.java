@@ -17,6 +17,9 @@ public class ComsablePointcut implements Pointcut,Serializable {
 
     private MethodMatcher methodMatcher;
 
+    /** Compiled form of the method matcher, built lazily after the last modification. */
+    private transient volatile MethodMatcher compiledMethodMatcher;
+
     public ComposablePointcut()
     {
         this.classFilter=ClassFilter.TRUE;
@@ -60,12 +63,14 @@ public class ComsablePointcut implements Pointcut,Serializable {
     public ComposablePointcut union(MethodMatcher other)
     {
         this.methodMatcher=MethodMatchers.union(this.methodMatcher,other);
+        this.compiledMethodMatcher=null;
         return this;
     }
 
     public ComposablePointcut intersection(MethodMatcher other)
     {
         this.methodMatcher=MethodMatchers.intersection(this.methodMatcher,other);
+        this.compiledMethodMatcher=null;
         return this;
     }
 
@@ -74,6 +79,7 @@ public class ComsablePointcut implements Pointcut,Serializable {
         this.methodMatcher=MethodMatcher.union(
                 this.methodMatcher,this.classFilter,other.getMethodMatcher(),other.getClassFilter());
         this.classFilter=ClassFilters.union(this.classFilter,other.getClassFilter());
+        this.compiledMethodMatcher=null;
         return this;
     }
 
@@ -81,6 +87,7 @@ public class ComsablePointcut implements Pointcut,Serializable {
     {
         this.classFilter=ClassFilters.intersection(this.classFilter,other.getClassFilter());
         this.methodMatcher=MethodMatchers.intersection(this.methodMatcher,other.getMethodMatcher());
+        this.compiledMethodMatcher=null;
         return this;
     }
 
@@ -93,7 +100,13 @@ public class ComsablePointcut implements Pointcut,Serializable {
     @Override
     public MethodMatcher getMethodMatcher()
     {
-        return this.methodMatcher;
+        MethodMatcher compiled=this.compiledMethodMatcher;
+        if(compiled==null)
+        {
+            compiled=MethodMatchers.compile(this.methodMatcher);
+            this.compiledMethodMatcher=compiled;
+        }
+        return compiled;
     }
 
     @Override
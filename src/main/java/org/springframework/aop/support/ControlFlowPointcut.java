@@ -1,32 +1,140 @@
 package org.springframework.aop.support;
 
-import jdk.nashorn.api.scripting.ClassFilter;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ClassFilter;
 import org.springframework.aop.MethodMatcher;
 import org.springframework.aop.Pointcut;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
+/**
+ * Pointcut and method matcher for use in simple <b>cflow</b>-style pointcut.
+ *
+ * <p>The call stack is inspected through {@code java.lang.StackWalker} where
+ * available, stopping at the first matching frame; on Java 8 it falls back to
+ * a full stack trace. Alternatively, with {@link #setUseEntryMarkers entry markers},
+ * matching is a thread-local counter check maintained by the
+ * {@link #getEntryMarkingInterceptor() entry marking interceptor}.
+ */
 public class ControlFlowPointcut implements Pointcut,ClassFilter,MethodMatcher,Serializable {
 
+    @Nullable
+    private static final Object stackWalker;
+
+    @Nullable
+    private static final MethodHandle stackWalkerWalk;
+
+    @Nullable
+    private static final MethodHandle frameClassName;
+
+    @Nullable
+    private static final MethodHandle frameMethodName;
+
+    static {
+        Object walker=null;
+        MethodHandle walk=null;
+        MethodHandle className=null;
+        MethodHandle methodName=null;
+        try{
+            ClassLoader classLoader=ControlFlowPointcut.class.getClassLoader();
+            Class<?> walkerClass=ClassUtils.forName("java.lang.StackWalker",classLoader);
+            Class<?> frameClass=ClassUtils.forName("java.lang.StackWalker$StackFrame",classLoader);
+            MethodHandles.Lookup lookup=MethodHandles.publicLookup();
+            walker=walkerClass.getMethod("getInstance").invoke(null);
+            walk=lookup.unreflect(walkerClass.getMethod("walk",Function.class))
+                    .asType(MethodType.methodType(Object.class,Object.class,Function.class));
+            className=lookup.unreflect(frameClass.getMethod("getClassName"))
+                    .asType(MethodType.methodType(String.class,Object.class));
+            methodName=lookup.unreflect(frameClass.getMethod("getMethodName"))
+                    .asType(MethodType.methodType(String.class,Object.class));
+        }catch (Throwable ex)
+        {
+            // Java 8: fall back to Throwable stack traces.
+            walker=null;
+        }
+        stackWalker=walker;
+        stackWalkerWalk=(walker!=null?walk:null);
+        frameClassName=(walker!=null?className:null);
+        frameMethodName=(walker!=null?methodName:null);
+    }
+
     private Class<?> clazz;
 
+    private String className;
+
+    @Nullable
     private String methodName;
 
-    private volatile int evaluations;
+    private boolean useEntryMarkers=false;
+
+    private final LongAdder evaluations=new LongAdder();
+
+    private transient ThreadLocal<int[]> entryDepth;
+
+    private transient Function<Stream<?>,Object> frameMatcher;
 
     public ControlFlowPointcut(Class<?> clazz)
     {
         this(clazz,null);
     }
 
-    public ControlFlowPointcut(Class<?> clazz,String methodName)
+    public ControlFlowPointcut(Class<?> clazz,@Nullable String methodName)
     {
         Assert.notNull(clazz,"Class must not be null");
         this.clazz=clazz;
+        this.className=clazz.getName();
         this.methodName=methodName;
+        initTransientState();
+    }
+
+    private void initTransientState()
+    {
+        this.entryDepth=ThreadLocal.withInitial(()->new int[1]);
+        Predicate<Object> framePredicate=this::matchesFrame;
+        this.frameMatcher=frames->frames.anyMatch(framePredicate);
+    }
+
+    /**
+     * Set whether to match against the entry markers maintained by the
+     * {@link #getEntryMarkingInterceptor() entry marking interceptor} instead of
+     * inspecting the call stack. Default is "false".
+     * <p>The interceptor needs to be applied to the control flow class for this
+     * pointcut to match at all; calls into that class that do not go through
+     * the proxy are not seen.
+     */
+    public void setUseEntryMarkers(boolean useEntryMarkers)
+    {
+        this.useEntryMarkers=useEntryMarkers;
+    }
+
+    public boolean isUseEntryMarkers()
+    {
+        return this.useEntryMarkers;
+    }
+
+    /**
+     * Return an interceptor that marks the current thread as being within the
+     * control flow of this pointcut's class (and method, if specified) while
+     * an invocation on an instance of that class proceeds.
+     */
+    public MethodInterceptor getEntryMarkingInterceptor()
+    {
+        return new EntryMarkingInterceptor();
     }
 
     @Override
@@ -36,7 +144,7 @@ public class ControlFlowPointcut implements Pointcut,ClassFilter,MethodMatcher,S
     }
 
     @Override
-    public boolean matches(Method method, Class<?> targetClass)
+    public boolean matchers(Method method, Class<?> targetClass)
     {
         return true;
 
@@ -49,11 +157,27 @@ public class ControlFlowPointcut implements Pointcut,ClassFilter,MethodMatcher,S
     }
 
     @Override
-    public boolean matches(Method method,Class<?> targetClass,Object... args)
+    public boolean matcher(Method method,Class<?> targetClass,Object... args)
     {
-        this.evaluations++;
+        this.evaluations.increment();
+        if(this.useEntryMarkers)
+        {
+            return (this.entryDepth.get()[0]>0);
+        }
+        if(stackWalker!=null)
+        {
+            try{
+                return (Boolean)(Object)stackWalkerWalk.invokeExact(stackWalker,(Function)this.frameMatcher);
+            }catch (RuntimeException|Error ex)
+            {
+                throw ex;
+            }catch (Throwable ex)
+            {
+                throw new IllegalStateException("Failed to walk the call stack",ex);
+            }
+        }
         for (StackTraceElement element : new Throwable().getStackTrace()) {
-            if(element.getClassName().equals(this.clazz.getName())&&
+            if(element.getClassName().equals(this.className)&&
                     (this.methodName==null||element.getMethodName().equals(this.methodName)))
             {
                 return true;
@@ -62,9 +186,26 @@ public class ControlFlowPointcut implements Pointcut,ClassFilter,MethodMatcher,S
         return false;
     }
 
-    public int getEvaluations()
+    private boolean matchesFrame(Object frame)
+    {
+        try{
+            return (((String)frameClassName.invokeExact(frame)).equals(this.className)&&
+                    (this.methodName==null||((String)frameMethodName.invokeExact(frame)).equals(this.methodName)));
+        }catch (RuntimeException|Error ex)
+        {
+            throw ex;
+        }catch (Throwable ex)
+        {
+            throw new IllegalStateException("Failed to inspect stack frame",ex);
+        }
+    }
+
+    /**
+     * Return the number of runtime evaluations of this pointcut so far.
+     */
+    public long getEvaluations()
     {
-        return this.evaluations;
+        return this.evaluations.sum();
     }
 
     @Override
@@ -103,4 +244,48 @@ public class ControlFlowPointcut implements Pointcut,ClassFilter,MethodMatcher,S
         }
         return code;
     }
+
+    private void readObject(ObjectInputStream ois)throws IOException,ClassNotFoundException
+    {
+        ois.defaultReadObject();
+        initTransientState();
+    }
+
+
+    /**
+     * Counts nested entries into the control flow class on the current thread.
+     * <p>Like a stack frame, an entry counts if the method body that runs is
+     * declared in exactly that class: not one that a subclass overrides it with.
+     */
+    private class EntryMarkingInterceptor implements MethodInterceptor,Serializable
+    {
+        @Override
+        @Nullable
+        public Object invoke(MethodInvocation invocation)throws Throwable
+        {
+            if(!isControlFlowEntry(invocation))
+            {
+                return invocation.proceed();
+            }
+            int[] depth=entryDepth.get();
+            depth[0]++;
+            try{
+                return invocation.proceed();
+            }finally
+            {
+                depth[0]--;
+            }
+        }
+
+        private boolean isControlFlowEntry(MethodInvocation invocation)
+        {
+            Object target=invocation.getThis();
+            if(target==null)
+            {
+                return false;
+            }
+            Method method=ClassUtils.getMostSpecificMethod(invocation.getMethod(),AopUtils.getTargetClass(target));
+            return (method.getDeclaringClass()==clazz&&(methodName==null||methodName.equals(method.getName())));
+        }
+    }
 }
@@ -1,25 +1,101 @@
 package org.springframework.aop.support;
 
+import org.springframework.core.MethodClassKey;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 public class JdkRegexpMethodPointcut extends AbstractRegexpMethodPointcut {
 
-    private Pattern[] compilePatterns=new Pattern[0];
+    private Pattern[] compiledPatterns=new Pattern[0];
 
     private Pattern[] compiledExclusionPatterns=new Pattern[0];
 
+    private boolean combinedMatching=false;
+
+    /** Include patterns combined by {@link CombinedPatterns}. */
+    private transient Pattern[] combinedPatterns=new Pattern[0];
+
+    /** Exclusion patterns combined by {@link CombinedPatterns}. */
+    private transient Pattern[] combinedExclusionPatterns=new Pattern[0];
+
+    private final transient Map<MethodClassKey,Boolean> verdictCache=new ConcurrentReferenceHashMap<>(256);
+
+    /**
+     * Set whether to match against a single alternation of all include patterns
+     * and one of all exclusion patterns (patterns with back references are kept
+     * apart, see {@link CombinedPatterns}), applied to the qualified method name
+     * without building it as a String, and to cache the verdict per method and
+     * target class. Default is "false": each pattern is tried in turn.
+     * <p>Verdicts are the same in both modes; this only pays off for pointcuts
+     * with many patterns.
+     */
+    public void setCombinedMatching(boolean combinedMatching)
+    {
+        this.combinedMatching=combinedMatching;
+    }
+
+    public boolean isCombinedMatching()
+    {
+        return this.combinedMatching;
+    }
+
     @Override
     protected void initPatternRepresentation(String[] patterns) throws PatternSyntaxException
     {
-        this.compiledPatterns=compiledPatterns(patterns);
+        this.compiledPatterns=compilePatterns(patterns);
+        this.combinedPatterns=CombinedPatterns.compile(Arrays.asList(patterns));
+        if(this.verdictCache!=null)
+        {
+            this.verdictCache.clear();
+        }
+    }
+
+    @Override
+    protected void initExcludedPatternRepresentation(String[] excludedPatterns) throws PatternSyntaxException
+    {
+        this.compiledExclusionPatterns=compilePatterns(excludedPatterns);
+        this.combinedExclusionPatterns=CombinedPatterns.compile(Arrays.asList(excludedPatterns));
+        if(this.verdictCache!=null)
+        {
+            this.verdictCache.clear();
+        }
+    }
+
+    @Override
+    public boolean matchers(Method method,Class<?> targetClass)
+    {
+        if(!this.combinedMatching||this.verdictCache==null)
+        {
+            return super.matchers(method,targetClass);
+        }
+        MethodClassKey key=new MethodClassKey(method,targetClass);
+        Boolean verdict=this.verdictCache.get(key);
+        if(verdict==null)
+        {
+            verdict=(matchesCombined(targetClass,method.getName())||
+                    (targetClass!=method.getDeclaringClass()&&matchesCombined(method.getDeclaringClass(),method.getName())));
+            this.verdictCache.put(key,verdict);
+        }
+        return verdict;
+    }
+
+    private boolean matchesCombined(Class<?> clazz,String methodName)
+    {
+        CharSequence qualifiedName=new QualifiedMethodName(clazz.getName(),methodName);
+        return (CombinedPatterns.matches(this.combinedPatterns,qualifiedName)&&
+                !CombinedPatterns.matches(this.combinedExclusionPatterns,qualifiedName));
     }
 
     @Override
     protected boolean matches(String pattern,int patternIndex)
     {
-        Matcher matcher=this.compilePatterns[patternIndex].matcher(pattern);
+        Matcher matcher=this.compiledPatterns[patternIndex].matcher(pattern);
         return matcher.matches();
     }
 
@@ -39,4 +115,57 @@ public class JdkRegexpMethodPointcut extends AbstractRegexpMethodPointcut {
         return destination;
     }
 
+    private void readObject(java.io.ObjectInputStream ois)throws java.io.IOException,ClassNotFoundException
+    {
+        ois.defaultReadObject();
+        this.combinedPatterns=CombinedPatterns.compile(Arrays.asList(getPatterns()));
+        this.combinedExclusionPatterns=CombinedPatterns.compile(Arrays.asList(getExcludedPatterns()));
+    }
+
+
+    /**
+     * "className.methodName" as a CharSequence view, without concatenation.
+     */
+    private static final class QualifiedMethodName implements CharSequence
+    {
+        private final String className;
+
+        private final String methodName;
+
+        QualifiedMethodName(String className,String methodName)
+        {
+            this.className=className;
+            this.methodName=methodName;
+        }
+
+        @Override
+        public int length()
+        {
+            return this.className.length()+1+this.methodName.length();
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            int classLength=this.className.length();
+            if(index<classLength)
+            {
+                return this.className.charAt(index);
+            }
+            return (index==classLength?'.':this.methodName.charAt(index-classLength-1));
+        }
+
+        @Override
+        public CharSequence subSequence(int start,int end)
+        {
+            return toString().substring(start,end);
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.className+'.'+this.methodName;
+        }
+    }
+
 }
@@ -3,10 +3,19 @@ package org.springframework.aop.support;
 import org.springframework.aop.ClassFilter;
 import org.springframework.aop.IntroductionAwareMethodMatcher;
 import org.springframework.aop.MethodMatcher;
+import org.springframework.aop.support.annotation.AnnotationMethodMatcher;
+import org.springframework.core.MethodClassKey;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.PatternMatchUtils;
 
 import java.io.Serializable;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 public abstract class MethodMatchers {
 
@@ -22,6 +31,25 @@ public abstract class MethodMatchers {
         return new MethodMatchers.IntersectionMethodMatcher(mm1, mm2);
     }
 
+    /**
+     * Compile the given (typically composed) method matcher into a flat matching
+     * program with memoized static results.
+     * <p>Union and intersection trees are flattened; within a union, plain
+     * {@link NameMatchMethodPointcut} names are merged into one set,
+     * {@link JdkRegexpMethodPointcut} patterns without exclusions into one
+     * alternation (except those with back references), and {@link AnnotationMethodMatcher} types into one set.
+     * Runtime matching still goes through the original matcher.
+     * <p>Name and regex pointcuts may still be modified after compilation: the
+     * program is then compiled again, and its memoized results dropped.
+     */
+    public static MethodMatcher compile(MethodMatcher mm) {
+        Assert.notNull(mm, "MethodMatcher must not be null");
+        if (mm == MethodMatcher.TRUE || mm instanceof CompiledMethodMatcher) {
+            return mm;
+        }
+        return new CompiledMethodMatcher(mm);
+    }
+
     public static boolean matches(MethodMatcher mm, Method method, Class<?> targetClass, boolean hasIntroductions) {
         Assert.notNull(mm, "MethodMatcher must not be null");
         return ((mm instanceof IntroductionAwareMethodMatcher &&
@@ -197,4 +225,487 @@ public abstract class MethodMatchers {
 
     }
 
+
+    private static MatchNode compileNode(MethodMatcher mm, List<LeafState> leaves) {
+        if (mm == MethodMatcher.TRUE) {
+            return TrueNode.INSTANCE;
+        }
+        if (mm instanceof NameMatchMethodPointcut || mm instanceof AbstractRegexpMethodPointcut) {
+            leaves.add(new LeafState((StaticMethodMatcherPointcut) mm));
+        }
+        if (mm instanceof ClassFilterAwareUnionMethodMatcher) {
+            ClassFilterAwareUnionMethodMatcher union = (ClassFilterAwareUnionMethodMatcher) mm;
+            UnionMethodMatcher operands = union;
+            return or(Arrays.asList(guard(union.cf1, compileNode(operands.mm1, leaves)),
+                    guard(union.cf2, compileNode(operands.mm2, leaves))));
+        }
+        if (mm instanceof UnionMethodMatcher) {
+            UnionMethodMatcher union = (UnionMethodMatcher) mm;
+            return or(Arrays.asList(compileNode(union.mm1, leaves), compileNode(union.mm2, leaves)));
+        }
+        if (mm instanceof IntersectionMethodMatcher) {
+            IntersectionMethodMatcher intersection = (IntersectionMethodMatcher) mm;
+            return and(Arrays.asList(compileNode(intersection.mm1, leaves), compileNode(intersection.mm2, leaves)));
+        }
+        if (mm.getClass() == NameMatchMethodPointcut.class &&
+                ((NameMatchMethodPointcut) mm).getClassFilter() == ClassFilter.TRUE) {
+            NameSetNode node = new NameSetNode();
+            node.addNames(((NameMatchMethodPointcut) mm).getMappedNames());
+            return node;
+        }
+        if (mm.getClass() == JdkRegexpMethodPointcut.class &&
+                ((JdkRegexpMethodPointcut) mm).getClassFilter() == ClassFilter.TRUE &&
+                ((JdkRegexpMethodPointcut) mm).getExcludedPatterns().length == 0) {
+            RegexNode node = new RegexNode();
+            node.addPatterns(((JdkRegexpMethodPointcut) mm).getPatterns());
+            return node;
+        }
+        if (mm.getClass() == AnnotationMethodMatcher.class) {
+            AnnotationSetNode node = new AnnotationSetNode();
+            node.annotationTypes.add(((AnnotationMethodMatcher) mm).getAnnotationType());
+            return node;
+        }
+        return new LeafNode(mm);
+    }
+
+    private static MatchNode guard(ClassFilter classFilter, MatchNode node) {
+        return (classFilter == ClassFilter.TRUE ? node : new GuardNode(classFilter, node));
+    }
+
+    private static MatchNode or(List<MatchNode> operands) {
+        List<MatchNode> flattened = new ArrayList<>();
+        NameSetNode names = null;
+        RegexNode regex = null;
+        AnnotationSetNode annotations = null;
+        Deque<MatchNode> queue = new ArrayDeque<>(operands);
+        while (!queue.isEmpty()) {
+            MatchNode node = queue.poll();
+            if (node instanceof TrueNode) {
+                return node;
+            }
+            else if (node instanceof OrNode) {
+                queue.addAll(Arrays.asList(((OrNode) node).operands));
+            }
+            else if (node instanceof NameSetNode) {
+                if (names == null) {
+                    names = new NameSetNode();
+                    flattened.add(names);
+                }
+                names.merge((NameSetNode) node);
+            }
+            else if (node instanceof RegexNode) {
+                if (regex == null) {
+                    regex = new RegexNode();
+                    flattened.add(regex);
+                }
+                regex.merge((RegexNode) node);
+            }
+            else if (node instanceof AnnotationSetNode) {
+                if (annotations == null) {
+                    annotations = new AnnotationSetNode();
+                    flattened.add(annotations);
+                }
+                annotations.annotationTypes.addAll(((AnnotationSetNode) node).annotationTypes);
+            }
+            else {
+                flattened.add(node);
+            }
+        }
+        return (flattened.size() == 1 ? flattened.get(0) : new OrNode(flattened.toArray(new MatchNode[0])));
+    }
+
+    private static MatchNode and(List<MatchNode> operands) {
+        List<MatchNode> flattened = new ArrayList<>();
+        Deque<MatchNode> queue = new ArrayDeque<>(operands);
+        while (!queue.isEmpty()) {
+            MatchNode node = queue.poll();
+            if (node instanceof AndNode) {
+                queue.addAll(Arrays.asList(((AndNode) node).operands));
+            }
+            else if (!(node instanceof TrueNode)) {
+                flattened.add(node);
+            }
+        }
+        if (flattened.isEmpty()) {
+            return TrueNode.INSTANCE;
+        }
+        return (flattened.size() == 1 ? flattened.get(0) : new AndNode(flattened.toArray(new MatchNode[0])));
+    }
+
+
+    /**
+     * Result of {@link #compile}: evaluates the flattened program and memoizes
+     * static results per method and target class, up to a fixed number of entries.
+     */
+    private static class CompiledMethodMatcher implements IntroductionAwareMethodMatcher, Serializable {
+
+        private static final int CACHE_LIMIT = 4096;
+
+        private final MethodMatcher original;
+
+        private volatile Program program;
+
+        public CompiledMethodMatcher(MethodMatcher original) {
+            this.original = original;
+            this.program = new Program(original);
+        }
+
+        /**
+         * Return the program, compiled again if a leaf pointcut was modified since.
+         */
+        private Program getProgram() {
+            Program program = this.program;
+            if (!program.isCurrent()) {
+                program = new Program(this.original);
+                this.program = program;
+            }
+            return program;
+        }
+
+        @Override
+        public boolean matchers(Method method, Class<?> targetClass) {
+            Program program = getProgram();
+            return memoize(program, program.matchCache, method, targetClass, false, false);
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass, boolean hasIntroductions) {
+            Program program = getProgram();
+            if (!hasIntroductions) {
+                return memoize(program, program.introductionMatchCache, method, targetClass, true, false);
+            }
+            // Rare: introductions present, don't bother caching.
+            return program.root.matches(method, targetClass, true, true);
+        }
+
+        private boolean memoize(Program program, Map<MethodClassKey, Boolean> cache, Method method,
+                Class<?> targetClass, boolean introductionAware, boolean hasIntroductions) {
+
+            if (cache == null) {
+                // Deserialized instance: transient caches not restored.
+                return program.root.matches(method, targetClass, introductionAware, hasIntroductions);
+            }
+            MethodClassKey key = new MethodClassKey(method, targetClass);
+            Boolean result = cache.get(key);
+            if (result == null) {
+                result = program.root.matches(method, targetClass, introductionAware, hasIntroductions);
+                if (cache.size() >= CACHE_LIMIT) {
+                    Iterator<MethodClassKey> it = cache.keySet().iterator();
+                    if (it.hasNext()) {
+                        it.next();
+                        it.remove();
+                    }
+                }
+                cache.put(key, result);
+            }
+            return result;
+        }
+
+        @Override
+        public boolean isRuntime() {
+            return this.original.isRuntime();
+        }
+
+        @Override
+        public boolean matcher(Method method, Class<?> targetClass, Object... args) {
+            return this.original.matcher(method, targetClass, args);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return (this == other || (other instanceof CompiledMethodMatcher &&
+                    this.original.equals(((CompiledMethodMatcher) other).original)));
+        }
+
+        @Override
+        public int hashCode() {
+            return this.original.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "Compiled " + this.original;
+        }
+    }
+
+
+    /**
+     * A compiled matching program, with the state of the leaf pointcuts it was
+     * compiled from and the static results memoized for it.
+     */
+    private static final class Program implements Serializable {
+
+        final MatchNode root;
+
+        private final LeafState[] leaves;
+
+        final transient Map<MethodClassKey, Boolean> matchCache = new ConcurrentHashMap<>(64);
+
+        final transient Map<MethodClassKey, Boolean> introductionMatchCache = new ConcurrentHashMap<>(64);
+
+        Program(MethodMatcher mm) {
+            List<LeafState> leaves = new ArrayList<>();
+            this.root = compileNode(mm, leaves);
+            this.leaves = leaves.toArray(new LeafState[0]);
+        }
+
+        boolean isCurrent() {
+            for (LeafState leaf : this.leaves) {
+                if (!leaf.isCurrent()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * The state of a modifiable name or regex pointcut at compile time. Its
+     * setters replace the class filter, name list or pattern arrays, and
+     * {@link NameMatchMethodPointcut#addMethodName} appends to the name list,
+     * so comparing references and the name count tells whether it changed.
+     */
+    private static final class LeafState implements Serializable {
+
+        private final StaticMethodMatcherPointcut pointcut;
+
+        private final ClassFilter classFilter;
+
+        /** The name list or pattern array. */
+        private final Object contents;
+
+        /** The name count or excluded pattern array. */
+        private final Object extent;
+
+        LeafState(StaticMethodMatcherPointcut pointcut) {
+            this.pointcut = pointcut;
+            this.classFilter = pointcut.getClassFilter();
+            if (pointcut instanceof NameMatchMethodPointcut) {
+                List<String> mappedNames = ((NameMatchMethodPointcut) pointcut).getMappedNames();
+                this.contents = mappedNames;
+                this.extent = mappedNames.size();
+            }
+            else {
+                this.contents = ((AbstractRegexpMethodPointcut) pointcut).getPatterns();
+                this.extent = ((AbstractRegexpMethodPointcut) pointcut).getExcludedPatterns();
+            }
+        }
+
+        boolean isCurrent() {
+            if (this.pointcut.getClassFilter() != this.classFilter) {
+                return false;
+            }
+            if (this.pointcut instanceof NameMatchMethodPointcut) {
+                List<String> mappedNames = ((NameMatchMethodPointcut) this.pointcut).getMappedNames();
+                return (mappedNames == this.contents && this.extent.equals(mappedNames.size()));
+            }
+            AbstractRegexpMethodPointcut regexp = (AbstractRegexpMethodPointcut) this.pointcut;
+            return (regexp.getPatterns() == this.contents && regexp.getExcludedPatterns() == this.extent);
+        }
+    }
+
+
+    /**
+     * One instruction of a compiled matching program.
+     */
+    private interface MatchNode extends Serializable {
+
+        boolean matches(Method method, Class<?> targetClass, boolean introductionAware, boolean hasIntroductions);
+    }
+
+
+    private static final class TrueNode implements MatchNode {
+
+        static final TrueNode INSTANCE = new TrueNode();
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass, boolean introductionAware, boolean hasIntroductions) {
+            return true;
+        }
+    }
+
+
+    private static final class LeafNode implements MatchNode {
+
+        private final MethodMatcher mm;
+
+        LeafNode(MethodMatcher mm) {
+            this.mm = mm;
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass, boolean introductionAware, boolean hasIntroductions) {
+            if (introductionAware && this.mm instanceof IntroductionAwareMethodMatcher &&
+                    ((IntroductionAwareMethodMatcher) this.mm).matches(method, targetClass, hasIntroductions)) {
+                return true;
+            }
+            return this.mm.matchers(method, targetClass);
+        }
+    }
+
+
+    private static final class GuardNode implements MatchNode {
+
+        private final ClassFilter classFilter;
+
+        private final MatchNode node;
+
+        GuardNode(ClassFilter classFilter, MatchNode node) {
+            this.classFilter = classFilter;
+            this.node = node;
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass, boolean introductionAware, boolean hasIntroductions) {
+            return (this.classFilter.matches(targetClass) &&
+                    this.node.matches(method, targetClass, introductionAware, hasIntroductions));
+        }
+    }
+
+
+    private static final class OrNode implements MatchNode {
+
+        private final MatchNode[] operands;
+
+        OrNode(MatchNode[] operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass, boolean introductionAware, boolean hasIntroductions) {
+            for (MatchNode operand : this.operands) {
+                if (operand.matches(method, targetClass, introductionAware, hasIntroductions)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+
+    private static final class AndNode implements MatchNode {
+
+        private final MatchNode[] operands;
+
+        AndNode(MatchNode[] operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass, boolean introductionAware, boolean hasIntroductions) {
+            for (MatchNode operand : this.operands) {
+                if (!operand.matches(method, targetClass, introductionAware, hasIntroductions)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * Merged {@link NameMatchMethodPointcut} names: exact names in a hash set,
+     * "xxx*", "*xxx" and "*xxx*" names as simple patterns.
+     */
+    private static final class NameSetNode implements MatchNode {
+
+        private final Set<String> names = new HashSet<>();
+
+        private final List<String> patterns = new ArrayList<>();
+
+        void addNames(Collection<String> mappedNames) {
+            for (String mappedName : mappedNames) {
+                if (mappedName.indexOf('*') != -1) {
+                    this.patterns.add(mappedName);
+                }
+                else {
+                    this.names.add(mappedName);
+                }
+            }
+        }
+
+        void merge(NameSetNode other) {
+            this.names.addAll(other.names);
+            this.patterns.addAll(other.patterns);
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass, boolean introductionAware, boolean hasIntroductions) {
+            String methodName = method.getName();
+            if (this.names.contains(methodName)) {
+                return true;
+            }
+            for (String pattern : this.patterns) {
+                if (PatternMatchUtils.simpleMatch(pattern, methodName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+
+    /**
+     * Merged {@link JdkRegexpMethodPointcut} patterns, combined through
+     * {@link CombinedPatterns} and matched against the same qualified method
+     * names as the pointcut itself.
+     */
+    private static final class RegexNode implements MatchNode {
+
+        private final List<String> sources = new ArrayList<>();
+
+        @Nullable
+        private volatile Pattern[] patterns;
+
+        void addPatterns(String[] patterns) {
+            this.sources.addAll(Arrays.asList(patterns));
+        }
+
+        void merge(RegexNode other) {
+            this.sources.addAll(other.sources);
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass, boolean introductionAware, boolean hasIntroductions) {
+            Pattern[] patterns = this.patterns;
+            if (patterns == null) {
+                // Compiled on first use, once all pointcuts of the union are merged.
+                patterns = CombinedPatterns.compile(this.sources);
+                this.patterns = patterns;
+            }
+            return (CombinedPatterns.matches(patterns, ClassUtils.getQualifiedMethodName(method, targetClass)) ||
+                    (targetClass != method.getDeclaringClass() &&
+                            CombinedPatterns.matches(patterns,
+                                    ClassUtils.getQualifiedMethodName(method, method.getDeclaringClass()))));
+        }
+    }
+
+
+    /**
+     * Merged {@link AnnotationMethodMatcher} annotation types.
+     */
+    private static final class AnnotationSetNode implements MatchNode {
+
+        private final Set<Class<? extends Annotation>> annotationTypes = new HashSet<>();
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass, boolean introductionAware, boolean hasIntroductions) {
+            if (hasAnyAnnotation(method)) {
+                return true;
+            }
+            Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+            return (specificMethod != method && hasAnyAnnotation(specificMethod));
+        }
+
+        private boolean hasAnyAnnotation(Method method) {
+            for (Annotation annotation : method.getAnnotations()) {
+                if (this.annotationTypes.contains(annotation.annotationType())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
 }
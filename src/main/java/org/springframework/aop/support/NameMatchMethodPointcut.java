@@ -28,6 +28,11 @@ public class NameMatchMethodPointcut extends StaticMethodMatcherPointcut impleme
         return this;
     }
 
+    List<String> getMappedNames()
+    {
+        return this.mappedNames;
+    }
+
     @Override
     public boolean matches(Method method, Class<?> targetClass)
     {
@@ -21,6 +21,11 @@ public class AnnotationMethodMatcher extends StaticMethodMatcher {
         this.annotationType=annotationType;
     }
 
+    public Class<? extends Annotation> getAnnotationType()
+    {
+        return this.annotationType;
+    }
+
     public boolean matches(Method method,Class<?> targetClass)
     {
         if(method.isAnnotationPresent(this.annotationType))
@@ -20,6 +20,7 @@ import java.security.PrivilegedExceptionAction;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 import java.util.function.Supplier;
 
 public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFactory implements AutowireCapableBeanFactory {
@@ -714,7 +715,13 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 
     @Nullable
     private FactoryBean<?> getSingletonFactoryBeanForTypeCheck(String beanName, RootBeanDefinition mbd) {
-        synchronized (getSingletonMutex()) {
+        // Partially creating the FactoryBean may obtain other beans, so take its creation
+        // lock instead of the singleton mutex, and give up if another thread creates it.
+        Lock creationLock = tryLockSingletonCreation(beanName);
+        if (creationLock == null) {
+            return null;
+        }
+        try {
             BeanWrapper bw = this.factoryBeanInstanceCache.get(beanName);
             if (bw != null) {
                 return (FactoryBean<?>) bw.getWrappedInstance();
@@ -762,6 +769,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
             }
             return fb;
         }
+        finally {
+            creationLock.unlock();
+        }
     }
 
 
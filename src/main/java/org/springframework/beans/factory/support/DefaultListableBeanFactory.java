@@ -2,24 +2,42 @@ package org.springframework.beans.factory.support;
 
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.CannotLoadBeanClassException;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartFactoryBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.BeanReference;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 @SuppressWarnings("serial")
 //todo 没有完善的类
@@ -39,10 +57,94 @@ implements ConfigurableListableBeanFactory,BeanDefinitionRegistry, Serializable
             javaxInjectProviderClass = null;
         }
     }
+
+    private boolean allowBeanDefinitionOverriding = true;
+
+    /** Whether non-lazy singletons get pre-instantiated on the pre-instantiation executor. */
+    private boolean parallelPreInstantiation = false;
+
+    @Nullable
+    private Executor preInstantiationExecutor;
+
+    private final Map<String, BeanDefinition> beanDefinitionMap = new ConcurrentHashMap<>(256);
+
+    private volatile List<String> beanDefinitionNames = new ArrayList<>(256);
+
+    private volatile boolean configurationFrozen = false;
+
+    @Nullable
+    private volatile String[] frozenBeanDefinitionNames;
+
+    /** Map of singleton and non-singleton bean names, keyed by dependency type, for eager lookups. */
+    private final Map<Class<?>, String[]> allBeanNamesByType = new ConcurrentHashMap<>(64);
+
+    /** Map of singleton-only bean names, keyed by dependency type, for eager lookups. */
+    private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
+
+    /** Map of singleton and non-singleton bean names, keyed by dependency type, without eager init. */
+    private final Map<Class<?>, String[]> allBeanNamesByTypeNoEager = new ConcurrentHashMap<>(64);
+
+    /** Map of singleton-only bean names, keyed by dependency type, without eager init. */
+    private final Map<Class<?>, String[]> singletonBeanNamesByTypeNoEager = new ConcurrentHashMap<>(64);
+
+    /** Creation time in nanoseconds per pre-instantiated singleton, in completion order. */
+    private final Map<String, Long> singletonCreationTimes = Collections.synchronizedMap(new LinkedHashMap<>(256));
+
+
+    public DefaultListableBeanFactory() {
+        super();
+    }
+
     public DefaultListableBeanFactory(@Nullable BeanFactory parentBeanFactory) {
         super(parentBeanFactory);
     }
 
+
+    public void setAllowBeanDefinitionOverriding(boolean allowBeanDefinitionOverriding) {
+        this.allowBeanDefinitionOverriding = allowBeanDefinitionOverriding;
+    }
+
+    public boolean isAllowBeanDefinitionOverriding() {
+        return this.allowBeanDefinitionOverriding;
+    }
+
+    /**
+     * Set whether {@link #preInstantiateSingletons()} should create independent
+     * non-lazy singletons concurrently, on the
+     * {@link #setPreInstantiationExecutor pre-instantiation executor}, which
+     * then must be set. Creation order follows the references declared in the
+     * merged bean definitions (constructor arguments, property values,
+     * factory bean and {@code depends-on}); beans taking part in a circular
+     * reference are created on the calling thread.
+     * <p>Default is "false".
+     */
+    public void setParallelPreInstantiation(boolean parallelPreInstantiation) {
+        this.parallelPreInstantiation = parallelPreInstantiation;
+    }
+
+    public boolean isParallelPreInstantiation() {
+        return this.parallelPreInstantiation;
+    }
+
+    /**
+     * Specify the executor for parallel pre-instantiation. Bean creation blocks
+     * on I/O and on other beans, so this should be a dedicated executor rather
+     * than a shared pool such as the common ForkJoinPool.
+     */
+    public void setPreInstantiationExecutor(@Nullable Executor preInstantiationExecutor) {
+        this.preInstantiationExecutor = preInstantiationExecutor;
+    }
+
+    /**
+     * Return the creation time in nanoseconds of each singleton created by
+     * {@link #preInstantiateSingletons()}, keyed by bean name.
+     */
+    public Map<String, Long> getSingletonCreationTimes() {
+        synchronized (this.singletonCreationTimes) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(this.singletonCreationTimes));
+        }
+    }
+
     @Override
     public void registerResolvableDependency(Class<?> dependencyType, Object autowiredValue) {
 
@@ -55,97 +157,667 @@ implements ConfigurableListableBeanFactory,BeanDefinitionRegistry, Serializable
 
     @Override
     public void registerBeanDefinition(String beanName, BeanDefinition beanDefinition) throws BeanDefinitionStoreException {
+        Assert.hasText(beanName, "Bean name must not be empty");
+        Assert.notNull(beanDefinition, "BeanDefinition must not be null");
+
+        if (beanDefinition instanceof AbstractBeanDefinition) {
+            try {
+                ((AbstractBeanDefinition) beanDefinition).validate();
+            }
+            catch (BeanDefinitionValidationException ex) {
+                throw new BeanDefinitionStoreException(beanDefinition.getResourceDescription(), beanName,
+                        "Validation of bean definition failed", ex);
+            }
+        }
+
+        BeanDefinition existingDefinition = this.beanDefinitionMap.get(beanName);
+        if (existingDefinition != null) {
+            if (!isAllowBeanDefinitionOverriding()) {
+                throw new BeanDefinitionOverrideException(beanName, beanDefinition, existingDefinition);
+            }
+            this.beanDefinitionMap.put(beanName, beanDefinition);
+        }
+        else {
+            if (hasBeanCreationStarted()) {
+                // Cannot modify startup-time collection elements anymore (for stable iteration)
+                synchronized (this.beanDefinitionMap) {
+                    this.beanDefinitionMap.put(beanName, beanDefinition);
+                    List<String> updatedDefinitions = new ArrayList<>(this.beanDefinitionNames.size() + 1);
+                    updatedDefinitions.addAll(this.beanDefinitionNames);
+                    updatedDefinitions.add(beanName);
+                    this.beanDefinitionNames = updatedDefinitions;
+                }
+            }
+            else {
+                // Still in startup registration phase
+                this.beanDefinitionMap.put(beanName, beanDefinition);
+                this.beanDefinitionNames.add(beanName);
+            }
+            this.frozenBeanDefinitionNames = null;
+        }
 
+        if (existingDefinition != null || containsSingleton(beanName)) {
+            resetBeanDefinition(beanName);
+        }
+        clearByTypeCache(beanName, predictRegisteredType(beanName, beanDefinition));
     }
 
     @Override
     public void removeBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
+        Assert.hasText(beanName, "'beanName' must not be empty");
+
+        BeanDefinition bd = this.beanDefinitionMap.remove(beanName);
+        if (bd == null) {
+            throw new NoSuchBeanDefinitionException(beanName);
+        }
 
+        if (hasBeanCreationStarted()) {
+            // Cannot modify startup-time collection elements anymore (for stable iteration)
+            synchronized (this.beanDefinitionMap) {
+                List<String> updatedDefinitions = new ArrayList<>(this.beanDefinitionNames);
+                updatedDefinitions.remove(beanName);
+                this.beanDefinitionNames = updatedDefinitions;
+            }
+        }
+        else {
+            // Still in startup registration phase
+            this.beanDefinitionNames.remove(beanName);
+        }
+        this.frozenBeanDefinitionNames = null;
+
+        resetBeanDefinition(beanName);
+        clearByTypeCache(beanName, null);
+    }
+
+    protected void resetBeanDefinition(String beanName) {
+        // Remove the merged bean definition for the given bean, if already created.
+        clearMergedBeanDefinition(beanName);
+
+        // Remove corresponding bean from singleton cache, if any.
+        destroySingleton(beanName);
+
+        // Reset all bean definitions that have the given bean as parent (recursively).
+        for (String bdName : this.beanDefinitionNames) {
+            if (!beanName.equals(bdName)) {
+                BeanDefinition bd = this.beanDefinitionMap.get(bdName);
+                if (bd != null && beanName.equals(bd.getParentName())) {
+                    resetBeanDefinition(bdName);
+                }
+            }
+        }
     }
 
     @Override
     public BeanDefinition getBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
-        return null;
+        BeanDefinition bd = this.beanDefinitionMap.get(beanName);
+        if (bd == null) {
+            if (logger.isTraceEnabled()) {
+                logger.trace("No bean named '" + beanName + "' found in " + this);
+            }
+            throw new NoSuchBeanDefinitionException(beanName);
+        }
+        return bd;
     }
 
     @Override
     public Iterator<String> getBeanNamesIterator() {
-        return null;
+        Set<String> names = new LinkedHashSet<>(this.beanDefinitionNames);
+        names.addAll(Arrays.asList(getSingletonNames()));
+        return names.iterator();
     }
 
     @Override
     public void freezeConfiguration() {
-
+        this.configurationFrozen = true;
+        this.frozenBeanDefinitionNames = StringUtils.toStringArray(this.beanDefinitionNames);
+        clearAllByTypeCaches();
     }
 
     @Override
     public boolean isConfigurationFrozen() {
-        return false;
+        return this.configurationFrozen;
     }
 
     @Override
     public void preInstantiateSingletons() throws BeansException {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Pre-instantiating singletons in " + this);
+        }
+
+        // Iterate over a copy to allow for init methods which in turn register new bean definitions.
+        List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
+        List<String> eagerBeanNames = new ArrayList<>(beanNames.size());
+        for (String beanName : beanNames) {
+            RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+            if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+                eagerBeanNames.add(beanName);
+            }
+        }
+
+        // Trigger initialization of all non-lazy singleton beans...
+        if (this.parallelPreInstantiation && eagerBeanNames.size() > 1) {
+            Assert.state(this.preInstantiationExecutor != null,
+                    "Parallel pre-instantiation requires a pre-instantiation executor");
+            preInstantiateSingletonsInParallel(eagerBeanNames, this.preInstantiationExecutor);
+        }
+        else {
+            for (String beanName : eagerBeanNames) {
+                preInstantiateSingleton(beanName);
+            }
+        }
+
+        // Trigger post-initialization callback for all applicable beans...
+        for (String beanName : beanNames) {
+            Object singletonInstance = getSingleton(beanName);
+            if (singletonInstance instanceof SmartInitializingSingleton) {
+                ((SmartInitializingSingleton) singletonInstance).afterSingletonsInstantiated();
+            }
+        }
+    }
+
+    private void preInstantiateSingleton(String beanName) {
+        long startTime = System.nanoTime();
+        if (isFactoryBean(beanName)) {
+            Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+            if (bean instanceof FactoryBean) {
+                FactoryBean<?> factory = (FactoryBean<?>) bean;
+                if (factory instanceof SmartFactoryBean && ((SmartFactoryBean<?>) factory).isEagerInit()) {
+                    getBean(beanName);
+                }
+            }
+        }
+        else {
+            getBean(beanName);
+        }
+        long creationTime = System.nanoTime() - startTime;
+        this.singletonCreationTimes.put(beanName, creationTime);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Pre-instantiated singleton '" + beanName + "' in " + (creationTime / 1_000_000) + " ms");
+        }
+    }
+
+    /**
+     * Create the given singletons along their dependency graph: each bean is
+     * scheduled on the given executor once all beans it depends on are done.
+     * Beans on a dependency cycle, and beans that ran into a cross-thread circular
+     * reference, are created afterwards on the calling thread where the regular
+     * early-reference resolution applies.
+     */
+    private void preInstantiateSingletonsInParallel(List<String> beanNames, Executor executor) {
+        Map<String, Set<String>> dependencies = buildPreInstantiationGraph(beanNames);
+        List<String> deferredBeanNames = new ArrayList<>();
+        List<String> sortedBeanNames = sortByDependencies(dependencies, deferredBeanNames);
+
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        Queue<String> retryBeanNames = new ConcurrentLinkedQueue<>();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Map<String, CompletableFuture<Void>> creations = new HashMap<>(sortedBeanNames.size());
+
+        for (String beanName : sortedBeanNames) {
+            CompletableFuture<?>[] prerequisites = dependencies.get(beanName).stream()
+                    .map(creations::get).toArray(CompletableFuture[]::new);
+            creations.put(beanName, CompletableFuture.allOf(prerequisites).thenRunAsync(() -> {
+                if (failure.get() != null) {
+                    return;
+                }
+                Thread currentThread = Thread.currentThread();
+                ClassLoader originalClassLoader = currentThread.getContextClassLoader();
+                currentThread.setContextClassLoader(classLoader);
+                try {
+                    preInstantiateSingleton(beanName);
+                }
+                catch (BeanCreationException ex) {
+                    if (ex.contains(BeanCurrentlyInCreationException.class)) {
+                        // Circular reference across pool threads: retry on the calling thread.
+                        retryBeanNames.add(beanName);
+                    }
+                    else {
+                        failure.compareAndSet(null, ex);
+                    }
+                }
+                catch (RuntimeException ex) {
+                    failure.compareAndSet(null, ex);
+                }
+                finally {
+                    currentThread.setContextClassLoader(originalClassLoader);
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(creations.values().toArray(new CompletableFuture[0])).join();
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        deferredBeanNames.addAll(retryBeanNames);
+        for (String beanName : deferredBeanNames) {
+            preInstantiateSingleton(beanName);
+        }
+    }
+
+    private Map<String, Set<String>> buildPreInstantiationGraph(List<String> beanNames) {
+        Set<String> candidates = new HashSet<>(beanNames);
+        Map<String, Set<String>> dependencies = new LinkedHashMap<>(beanNames.size());
+        for (String beanName : beanNames) {
+            dependencies.put(beanName, new LinkedHashSet<>());
+        }
+        for (String beanName : beanNames) {
+            Set<String> beanDependencies = dependencies.get(beanName);
+            collectDeclaredReferences(getMergedLocalBeanDefinition(beanName), beanDependencies);
+            beanDependencies.remove(beanName);
+            beanDependencies.retainAll(candidates);
+        }
+        return dependencies;
+    }
+
+    /**
+     * Collect the canonical names of the beans that the given definition refers
+     * to: {@code depends-on}, factory bean, and bean references in constructor
+     * arguments and property values, including those of inner beans and
+     * collections. Annotation-driven injection is not visible here; such
+     * dependencies just wait for the bean on another thread during creation.
+     */
+    private void collectDeclaredReferences(BeanDefinition bd, Set<String> references) {
+        String[] dependsOn = bd.getDependsOn();
+        if (dependsOn != null) {
+            for (String dep : dependsOn) {
+                references.add(canonicalName(dep));
+            }
+        }
+        if (bd.getFactoryBeanName() != null) {
+            references.add(canonicalName(bd.getFactoryBeanName()));
+        }
+        if (bd.hasConstructorArgumentValues()) {
+            ConstructorArgumentValues args = bd.getConstructorArgumentValues();
+            for (ConstructorArgumentValues.ValueHolder valueHolder : args.getIndexedArgumentValues().values()) {
+                collectValueReferences(valueHolder.getValue(), references);
+            }
+            for (ConstructorArgumentValues.ValueHolder valueHolder : args.getGenericArgumentValues()) {
+                collectValueReferences(valueHolder.getValue(), references);
+            }
+        }
+        if (bd.hasPropertyValues()) {
+            for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+                collectValueReferences(pv.getValue(), references);
+            }
+        }
+    }
+
+    private void collectValueReferences(@Nullable Object value, Set<String> references) {
+        if (value instanceof BeanReference) {
+            references.add(canonicalName(((BeanReference) value).getBeanName()));
+        }
+        else if (value instanceof BeanDefinitionHolder) {
+            collectDeclaredReferences(((BeanDefinitionHolder) value).getBeanDefinition(), references);
+        }
+        else if (value instanceof BeanDefinition) {
+            collectDeclaredReferences((BeanDefinition) value, references);
+        }
+        else if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                collectValueReferences(element, references);
+            }
+        }
+        else if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                collectValueReferences(entry.getKey(), references);
+                collectValueReferences(entry.getValue(), references);
+            }
+        }
+        else if (value instanceof Object[]) {
+            for (Object element : (Object[]) value) {
+                collectValueReferences(element, references);
+            }
+        }
+    }
 
+    private List<String> sortByDependencies(Map<String, Set<String>> dependencies, List<String> cyclicBeanNames) {
+        Map<String, Integer> pending = new HashMap<>(dependencies.size());
+        Map<String, List<String>> dependents = new HashMap<>(dependencies.size());
+        Deque<String> ready = new ArrayDeque<>();
+        dependencies.forEach((beanName, beanDependencies) -> {
+            pending.put(beanName, beanDependencies.size());
+            for (String dep : beanDependencies) {
+                dependents.computeIfAbsent(dep, k -> new ArrayList<>()).add(beanName);
+            }
+            if (beanDependencies.isEmpty()) {
+                ready.add(beanName);
+            }
+        });
+
+        List<String> sorted = new ArrayList<>(dependencies.size());
+        while (!ready.isEmpty()) {
+            String beanName = ready.poll();
+            sorted.add(beanName);
+            for (String dependent : dependents.getOrDefault(beanName, Collections.emptyList())) {
+                if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        // Whatever is left takes part in a dependency cycle.
+        for (String beanName : dependencies.keySet()) {
+            if (pending.get(beanName) > 0) {
+                cyclicBeanNames.add(beanName);
+            }
+        }
+        return sorted;
     }
 
     @Override
     public boolean containsBeanDefinition(String beanName) {
-        return false;
+        Assert.notNull(beanName, "Bean name must not be null");
+        return this.beanDefinitionMap.containsKey(beanName);
     }
 
     @Override
     public int getBeanDefinitionCount() {
-        return 0;
+        return this.beanDefinitionMap.size();
     }
 
     @Override
     public String[] getBeanDefinitionNames() {
-        return new String[0];
+        String[] frozenNames = this.frozenBeanDefinitionNames;
+        if (frozenNames != null) {
+            return frozenNames.clone();
+        }
+        else {
+            return StringUtils.toStringArray(this.beanDefinitionNames);
+        }
     }
 
     @Override
     public String[] getBeanNamesForType(ResolvableType type) {
-        return new String[0];
+        return getBeanNamesForType(type, true, true);
     }
 
     @Override
     public String[] getBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
-        return new String[0];
+        Class<?> resolved = type.resolve();
+        if (resolved != null && !type.hasGenerics()) {
+            return getBeanNamesForType(resolved, includeNonSingletons, allowEagerInit);
+        }
+        else {
+            return doGetBeanNamesForType(type, includeNonSingletons, allowEagerInit);
+        }
     }
 
     @Override
-    public String[] getBeanNamesForType(Class<?> type) {
-        return new String[0];
+    public String[] getBeanNamesForType(@Nullable Class<?> type) {
+        return getBeanNamesForType(type, true, true);
     }
 
     @Override
-    public String[] getBeanNamesForType(Class<?> type, boolean includeNonSingletons, boolean allowEagerInit) {
-        return new String[0];
+    public String[] getBeanNamesForType(@Nullable Class<?> type, boolean includeNonSingletons, boolean allowEagerInit) {
+        if (!isConfigurationFrozen() || type == null) {
+            return doGetBeanNamesForType(ResolvableType.forRawClass(type), includeNonSingletons, allowEagerInit);
+        }
+        // Bean types are stable once the configuration is frozen: serve from the type index.
+        Map<Class<?>, String[]> cache = getBeanNamesByTypeCache(includeNonSingletons, allowEagerInit);
+        String[] resolvedBeanNames = cache.get(type);
+        if (resolvedBeanNames != null) {
+            return resolvedBeanNames;
+        }
+        resolvedBeanNames = doGetBeanNamesForType(ResolvableType.forRawClass(type), includeNonSingletons, allowEagerInit);
+        if (ClassUtils.isCacheSafe(type, getBeanClassLoader())) {
+            cache.put(type, resolvedBeanNames);
+        }
+        return resolvedBeanNames;
     }
 
-    @Override
-    public <T> Map<String, T> getBeansOfType(Class<T> type) throws BeansException {
+    private Map<Class<?>, String[]> getBeanNamesByTypeCache(boolean includeNonSingletons, boolean allowEagerInit) {
+        if (allowEagerInit) {
+            return (includeNonSingletons ? this.allBeanNamesByType : this.singletonBeanNamesByType);
+        }
+        else {
+            return (includeNonSingletons ? this.allBeanNamesByTypeNoEager : this.singletonBeanNamesByTypeNoEager);
+        }
+    }
+
+    private String[] doGetBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
+        List<String> result = new ArrayList<>();
+
+        // Check all bean definitions.
+        for (String beanName : this.beanDefinitionNames) {
+            // Only consider bean as eligible if the bean name is not defined as alias for some other bean.
+            if (isAlias(beanName)) {
+                continue;
+            }
+            try {
+                RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+                // Only check bean definition if it is complete.
+                if (mbd.isAbstract() || (!allowEagerInit && mbd.isLazyInit() && !mbd.hasBeanClass())) {
+                    continue;
+                }
+                boolean isFactoryBean = isFactoryBean(beanName, mbd);
+                boolean allowFactoryBeanInit = allowEagerInit || containsSingleton(beanName);
+                boolean matchFound = false;
+                if (!isFactoryBean) {
+                    if (includeNonSingletons || mbd.isSingleton()) {
+                        matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
+                    }
+                }
+                else {
+                    // In case of FactoryBean, match object created by FactoryBean.
+                    if (includeNonSingletons || (allowFactoryBeanInit && mbd.isSingleton())) {
+                        matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
+                    }
+                    if (!matchFound) {
+                        // In case of FactoryBean, try to match FactoryBean instance itself next.
+                        beanName = FACTORY_BEAN_PREFIX + beanName;
+                        matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
+                    }
+                }
+                if (matchFound) {
+                    result.add(beanName);
+                }
+            }
+            catch (CannotLoadBeanClassException | BeanDefinitionStoreException ex) {
+                if (allowEagerInit) {
+                    throw ex;
+                }
+                // Probably a placeholder: let's ignore it for type matching purposes.
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Ignoring bean definition '" + beanName + "' for type matching", ex);
+                }
+                onSuppressedException(ex);
+            }
+        }
+
+        // Check manually registered singletons too.
+        for (String beanName : getSingletonNames()) {
+            if (containsBeanDefinition(beanName) || isAlias(beanName)) {
+                continue;
+            }
+            try {
+                // In case of FactoryBean, match object created by FactoryBean.
+                if (isFactoryBean(beanName)) {
+                    if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
+                        result.add(beanName);
+                        // Match found for this bean: do not match FactoryBean itself anymore.
+                        continue;
+                    }
+                    // In case of FactoryBean, try to match FactoryBean itself next.
+                    beanName = FACTORY_BEAN_PREFIX + beanName;
+                }
+                // Match raw bean instance (might be raw FactoryBean).
+                if (isTypeMatch(beanName, type)) {
+                    result.add(beanName);
+                }
+            }
+            catch (NoSuchBeanDefinitionException ex) {
+                // Shouldn't happen - probably a result of circular reference resolution...
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Failed to check manually registered singleton with name '" + beanName + "'", ex);
+                }
+            }
+        }
+
+        return StringUtils.toStringArray(result);
+    }
+
+    /**
+     * Drop the by-type index entries affected by a change to the given bean:
+     * every entry listing the bean, plus every entry whose key type is assignable
+     * from the bean's new type. Falls back to clearing the whole index if the new
+     * type cannot be determined upfront.
+     */
+    private void clearByTypeCache(String beanName, @Nullable Class<?> beanType) {
+        if (this.allBeanNamesByType.isEmpty() && this.singletonBeanNamesByType.isEmpty() &&
+                this.allBeanNamesByTypeNoEager.isEmpty() && this.singletonBeanNamesByTypeNoEager.isEmpty()) {
+            return;
+        }
+        if (beanType == null || FactoryBean.class.isAssignableFrom(beanType)) {
+            clearAllByTypeCaches();
+            return;
+        }
+        String factoryBeanName = FACTORY_BEAN_PREFIX + beanName;
+        for (Map<Class<?>, String[]> cache : Arrays.asList(this.allBeanNamesByType, this.singletonBeanNamesByType,
+                this.allBeanNamesByTypeNoEager, this.singletonBeanNamesByTypeNoEager)) {
+            cache.entrySet().removeIf(entry -> entry.getKey().isAssignableFrom(beanType) ||
+                    ObjectUtils.containsElement(entry.getValue(), beanName) ||
+                    ObjectUtils.containsElement(entry.getValue(), factoryBeanName));
+        }
+    }
+
+    private void clearAllByTypeCaches() {
+        this.allBeanNamesByType.clear();
+        this.singletonBeanNamesByType.clear();
+        this.allBeanNamesByTypeNoEager.clear();
+        this.singletonBeanNamesByTypeNoEager.clear();
+    }
+
+    /**
+     * Determine the type of a newly registered bean definition upfront, if it
+     * only affects entries for that type: a root definition with a known bean
+     * class that no other definition inherits from, since a changed parent
+     * changes the merged type of its children as well.
+     */
+    @Nullable
+    private Class<?> predictRegisteredType(String beanName, BeanDefinition beanDefinition) {
+        if (beanDefinition.getParentName() != null || hasChildDefinitions(beanName)) {
+            return null;
+        }
+        if (beanDefinition instanceof AbstractBeanDefinition) {
+            AbstractBeanDefinition abd = (AbstractBeanDefinition) beanDefinition;
+            if (abd.hasBeanClass() && abd.getFactoryMethodName() == null) {
+                return abd.getBeanClass();
+            }
+        }
         return null;
     }
 
+    private boolean hasChildDefinitions(String beanName) {
+        for (BeanDefinition bd : this.beanDefinitionMap.values()) {
+            String parentName = bd.getParentName();
+            if (parentName != null && canonicalName(parentName).equals(beanName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
-    public <T> Map<String, T> getBeansOfType(Class<T> type, boolean includeNonSingletons, boolean allowEagerInit) throws BeansException {
-        return null;
+    public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
+        super.registerSingleton(beanName, singletonObject);
+        clearByTypeCache(beanName, singletonObject.getClass());
+    }
+
+    @Override
+    public void destroySingleton(String beanName) {
+        super.destroySingleton(beanName);
+        if (!containsBeanDefinition(beanName)) {
+            // A manually registered singleton went away.
+            clearByTypeCache(beanName, null);
+        }
+    }
+
+    @Override
+    public <T> Map<String, T> getBeansOfType(@Nullable Class<T> type) throws BeansException {
+        return getBeansOfType(type, true, true);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Map<String, T> getBeansOfType(@Nullable Class<T> type, boolean includeNonSingletons, boolean allowEagerInit)
+            throws BeansException {
+
+        String[] beanNames = getBeanNamesForType(type, includeNonSingletons, allowEagerInit);
+        Map<String, T> result = new LinkedHashMap<>(beanNames.length);
+        for (String beanName : beanNames) {
+            try {
+                Object beanInstance = getBean(beanName);
+                if (!(beanInstance instanceof NullBean)) {
+                    result.put(beanName, (T) beanInstance);
+                }
+            }
+            catch (BeanCreationException ex) {
+                if (ex.contains(BeanCurrentlyInCreationException.class)) {
+                    // Ignore: indicates a circular reference when autowiring constructors.
+                    // We want to find matches other than the currently created bean itself.
+                    if (logger.isTraceEnabled()) {
+                        logger.trace("Ignoring match to currently created bean '" + beanName + "'", ex);
+                    }
+                    onSuppressedException(ex);
+                    continue;
+                }
+                throw ex;
+            }
+        }
+        return result;
     }
 
     @Override
     public String[] getBeanNamesForAnnotation(Class<? extends Annotation> annotationType) {
-        return new String[0];
+        List<String> result = new ArrayList<>();
+        for (String beanName : this.beanDefinitionNames) {
+            BeanDefinition beanDefinition = getBeanDefinition(beanName);
+            if (!beanDefinition.isAbstract() && findAnnotationOnBean(beanName, annotationType) != null) {
+                result.add(beanName);
+            }
+        }
+        for (String beanName : getSingletonNames()) {
+            if (!containsBeanDefinition(beanName) && !result.contains(beanName) &&
+                    findAnnotationOnBean(beanName, annotationType) != null) {
+                result.add(beanName);
+            }
+        }
+        return StringUtils.toStringArray(result);
     }
 
     @Override
     public Map<String, Object> getBeansWithAnnotation(Class<? extends Annotation> annotationType) throws BeansException {
-        return null;
+        String[] beanNames = getBeanNamesForAnnotation(annotationType);
+        Map<String, Object> result = new LinkedHashMap<>(beanNames.length);
+        for (String beanName : beanNames) {
+            Object beanInstance = getBean(beanName);
+            if (!(beanInstance instanceof NullBean)) {
+                result.put(beanName, beanInstance);
+            }
+        }
+        return result;
     }
 
     @Override
-    public <A extends Annotation> A findAnnotationOnBean(String beanName, Class<A> annotationType) throws NoSuchBeanDefinitionException {
-        return null;
+    @Nullable
+    public <A extends Annotation> A findAnnotationOnBean(String beanName, Class<A> annotationType)
+            throws NoSuchBeanDefinitionException {
+
+        A ann = null;
+        Class<?> beanType = getType(beanName);
+        if (beanType != null) {
+            ann = AnnotationUtils.findAnnotation(beanType, annotationType);
+        }
+        if (ann == null && containsBeanDefinition(beanName)) {
+            // Check raw bean class, e.g. in case of a proxy.
+            RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+            if (bd.hasBeanClass()) {
+                Class<?> beanClass = bd.getBeanClass();
+                if (beanClass != beanType) {
+                    ann = AnnotationUtils.findAnnotation(beanClass, annotationType);
+                }
+            }
+        }
+        return ann;
     }
 
     @Override
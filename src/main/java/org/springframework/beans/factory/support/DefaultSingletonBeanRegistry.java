@@ -9,14 +9,44 @@ import org.springframework.util.StringUtils;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock order: a thread may hold per-bean creation locks (in any number, taken
+ * with cycle detection) and then take the {@link #getSingletonMutex() singleton
+ * mutex}, but never the other way round. The mutex only guards the registry
+ * maps and is never held while calling out to factories, post-processors or
+ * {@code getBean}. Early singleton references are only created and handed out
+ * on the thread that holds the bean's creation lock; other threads wait for the
+ * fully initialized singleton instead.
+ *
+ * <p>If two threads reach a circular reference in opposite order, each waits
+ * for a bean that the other one creates. The thread that closes the cycle then
+ * joins the creation of the other thread, which is blocked on it anyway: it
+ * gets the early reference as that thread would, just like one thread creating
+ * all of them under a registry-wide lock.
+ */
 public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements SingletonBeanRegistry {
     private final Map<String, Object> singletonObjects = new ConcurrentHashMap<>(256);
 
-    private final Map<String, ObjectFactory<?>> singletonFactories = new HashMap<>(16);
+    private final Map<String, ObjectFactory<?>> singletonFactories = new ConcurrentHashMap<>(16);
+
+
+    private final Map<String, Object> earlySingletonObjects = new ConcurrentHashMap<>(16);
+
+    /** Per-bean creation guards, replacing the registry-wide mutex during singleton creation. */
+    private final Map<String, SingletonCreationLock> singletonCreationLocks = new ConcurrentHashMap<>(64);
+
+    /** Bean name each thread is currently waiting to create, used for cross-thread cycle detection. */
+    private final Map<Thread, String> singletonCreationWaiters = new ConcurrentHashMap<>(16);
 
+    /** Guards waiting for creation locks, together with {@link #singletonCreationReleased}. */
+    private final Lock singletonCreationWaitLock = new ReentrantLock();
 
-    private final Map<String, Object> earlySingletonObjects = new HashMap<>(16);
+    /** Signalled whenever a creation lock is released while threads are waiting. */
+    private final Condition singletonCreationReleased = this.singletonCreationWaitLock.newCondition();
 
 
 
@@ -32,10 +62,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
 
 
-    @Nullable
-    private Set<Exception> suppressedExceptions;
+    /** Suppressed exceptions are collected per creating thread, since creation no longer holds a global lock. */
+    private final ThreadLocal<Set<Exception>> suppressedExceptions = new ThreadLocal<>();
 
-    private boolean singletonsCurrentlyInDestruction = false;
+    private volatile boolean singletonsCurrentlyInDestruction = false;
 
     private final Map<String, Object> disposableBeans = new LinkedHashMap<>();
 
@@ -73,10 +103,11 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
     protected void addSingletonFactory(String beanName, ObjectFactory<?> singletonFactory) {
         Assert.notNull(singletonFactory, "Singleton factory must not be null");
-        synchronized (this.singletonObjects) {
-            if (!this.singletonObjects.containsKey(beanName)) {
-                this.singletonFactories.put(beanName, singletonFactory);
-                this.earlySingletonObjects.remove(beanName);
+        // Called by the thread holding the bean's creation guard, so no registry-wide lock is needed.
+        if (!this.singletonObjects.containsKey(beanName)) {
+            this.singletonFactories.put(beanName, singletonFactory);
+            this.earlySingletonObjects.remove(beanName);
+            synchronized (this.singletonObjects) {
                 this.registeredSingletons.add(beanName);
             }
         }
@@ -91,16 +122,41 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
     @Nullable
     protected Object getSingleton(String beanName, boolean allowEarlyReference) {
+        // Quick check for existing instance: all three cache levels are concurrent maps, so no lock here.
         Object singletonObject = this.singletonObjects.get(beanName);
         if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
-            synchronized (this.singletonObjects) {
-                singletonObject = this.earlySingletonObjects.get(beanName);
-                if (singletonObject == null && allowEarlyReference) {
-                    ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-                    if (singletonFactory != null) {
-                        singletonObject = singletonFactory.getObject();
-                        this.earlySingletonObjects.put(beanName, singletonObject);
-                        this.singletonFactories.remove(beanName);
+            // Early references are only for the creating thread: any other thread
+            // gets null here and then blocks on the creation lock in getSingleton.
+            if (!isSingletonCreationLockHeld(beanName)) {
+                return null;
+            }
+            singletonObject = getEarlySingleton(beanName, allowEarlyReference);
+        }
+        return singletonObject;
+    }
+
+    /**
+     * Return the early reference to the given singleton in creation, to be called
+     * only by the thread that creates it or one that {@link #acquireSingletonCreationLock
+     * joined} its creation.
+     */
+    @Nullable
+    private Object getEarlySingleton(String beanName, boolean allowEarlyReference) {
+        Object singletonObject = this.earlySingletonObjects.get(beanName);
+        if (singletonObject == null && allowEarlyReference) {
+            ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+            if (singletonFactory != null) {
+                // Only this thread can promote, so the factory runs outside of the
+                // singleton mutex; the promotion itself is guarded like addSingleton.
+                Object earlyReference = singletonFactory.getObject();
+                synchronized (this.singletonObjects) {
+                    singletonObject = this.singletonObjects.get(beanName);
+                    if (singletonObject == null) {
+                        singletonObject = this.earlySingletonObjects.get(beanName);
+                        if (singletonObject == null && this.singletonFactories.remove(beanName) != null) {
+                            this.earlySingletonObjects.put(beanName, earlyReference);
+                            singletonObject = earlyReference;
+                        }
                     }
                 }
             }
@@ -108,10 +164,31 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
         return singletonObject;
     }
 
+    private boolean isSingletonCreationLockHeld(String beanName) {
+        SingletonCreationLock creationLock = this.singletonCreationLocks.get(beanName);
+        return (creationLock != null && creationLock.isHeldByCurrentThread());
+    }
+
     public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
         Assert.notNull(beanName, "Bean name must not be null");
-        synchronized (this.singletonObjects) {
-            Object singletonObject = this.singletonObjects.get(beanName);
+        Object singletonObject = this.singletonObjects.get(beanName);
+        if (singletonObject != null) {
+            return singletonObject;
+        }
+        SingletonCreationLock creationLock = acquireSingletonCreationLock(beanName);
+        if (creationLock == null) {
+            // Joined the creation on another thread: a circular reference, as on one thread.
+            singletonObject = this.singletonObjects.get(beanName);
+            if (singletonObject == null) {
+                singletonObject = getEarlySingleton(beanName, true);
+            }
+            if (singletonObject == null) {
+                throw new BeanCurrentlyInCreationException(beanName);
+            }
+            return singletonObject;
+        }
+        try {
+            singletonObject = this.singletonObjects.get(beanName);
             if (singletonObject == null) {
                 if (this.singletonsCurrentlyInDestruction) {
                     throw new BeanCreationNotAllowedException(beanName,
@@ -123,9 +200,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
                 }
                 beforeSingletonCreation(beanName);
                 boolean newSingleton = false;
-                boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
+                boolean recordSuppressedExceptions = (this.suppressedExceptions.get() == null);
                 if (recordSuppressedExceptions) {
-                    this.suppressedExceptions = new LinkedHashSet<>();
+                    this.suppressedExceptions.set(new LinkedHashSet<>());
                 }
                 try {
                     singletonObject = singletonFactory.getObject();
@@ -141,7 +218,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
                 }
                 catch (BeanCreationException ex) {
                     if (recordSuppressedExceptions) {
-                        for (Exception suppressedException : this.suppressedExceptions) {
+                        for (Exception suppressedException : this.suppressedExceptions.get()) {
                             ex.addRelatedCause(suppressedException);
                         }
                     }
@@ -149,7 +226,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
                 }
                 finally {
                     if (recordSuppressedExceptions) {
-                        this.suppressedExceptions = null;
+                        this.suppressedExceptions.remove();
                     }
                     afterSingletonCreation(beanName);
                 }
@@ -159,13 +236,112 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
             }
             return singletonObject;
         }
+        finally {
+            creationLock.unlock();
+        }
     }
 
-    protected void onSuppressedException(Exception ex) {
-        synchronized (this.singletonObjects) {
-            if (this.suppressedExceptions != null) {
-                this.suppressedExceptions.add(ex);
+    /**
+     * Acquire the creation lock of the given bean, e.g. for creating the object
+     * of a singleton FactoryBean once, with the same cycle detection as for
+     * singleton creation. Callers must not hold the singleton mutex.
+     * @return the lock to {@link Lock#unlock() unlock} when done, or {@code null}
+     * if this thread joined the creation on another thread, which waits for it:
+     * then go on as if the lock was held reentrantly
+     */
+    @Nullable
+    protected final Lock lockSingletonCreation(String beanName) {
+        return acquireSingletonCreationLock(beanName);
+    }
+
+    /**
+     * Acquire the creation lock of the given bean if no other thread holds it.
+     * @return the lock to {@link Lock#unlock() unlock} when done, or {@code null}
+     * if the bean is being created on another thread
+     */
+    @Nullable
+    protected final Lock tryLockSingletonCreation(String beanName) {
+        SingletonCreationLock creationLock =
+                this.singletonCreationLocks.computeIfAbsent(beanName, k -> new SingletonCreationLock());
+        return (creationLock.tryLock() ? creationLock : null);
+    }
+
+    /**
+     * Acquire the creation guard for the given bean, so that concurrent creation
+     * of different beans never serializes. Waiting threads are tracked, so that
+     * a cross-thread circular reference is joined instead of deadlocking.
+     * @return the lock, or {@code null} if the bean is in creation on another
+     * thread that in turn waits for this one, which thereby joined the creation
+     */
+    @Nullable
+    private SingletonCreationLock acquireSingletonCreationLock(String beanName) {
+        SingletonCreationLock creationLock =
+                this.singletonCreationLocks.computeIfAbsent(beanName, k -> new SingletonCreationLock());
+        if (creationLock.tryLock()) {
+            return creationLock;
+        }
+        Thread currentThread = Thread.currentThread();
+        this.singletonCreationWaitLock.lock();
+        try {
+            // Registered before the next tryLock, so that a release in between signals us.
+            this.singletonCreationWaiters.put(currentThread, beanName);
+            while (!creationLock.tryLock()) {
+                if (isCreationCycle(beanName, currentThread)) {
+                    return null;
+                }
+                this.singletonCreationReleased.await();
+            }
+            return creationLock;
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BeanCreationNotAllowedException(beanName,
+                    "Interrupted while waiting for singleton creation on another thread");
+        }
+        finally {
+            this.singletonCreationWaiters.remove(currentThread);
+            this.singletonCreationWaitLock.unlock();
+        }
+    }
+
+    private void signalSingletonCreationReleased() {
+        if (!this.singletonCreationWaiters.isEmpty()) {
+            this.singletonCreationWaitLock.lock();
+            try {
+                this.singletonCreationReleased.signalAll();
+            }
+            finally {
+                this.singletonCreationWaitLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Whether the owner of the given bean's creation lock waits, possibly through
+     * other threads, for a lock held by the current thread. To be called with the
+     * wait lock held, so that no waiting thread can go on meanwhile.
+     */
+    private boolean isCreationCycle(String beanName, Thread currentThread) {
+        Set<Thread> seen = new HashSet<>();
+        String waitedFor = beanName;
+        while (waitedFor != null) {
+            SingletonCreationLock creationLock = this.singletonCreationLocks.get(waitedFor);
+            Thread owner = (creationLock != null ? creationLock.getOwnerThread() : null);
+            if (owner == null || !seen.add(owner)) {
+                return false;
             }
+            if (owner == currentThread) {
+                return true;
+            }
+            waitedFor = this.singletonCreationWaiters.get(owner);
+        }
+        return false;
+    }
+
+    protected void onSuppressedException(Exception ex) {
+        Set<Exception> suppressed = this.suppressedExceptions.get();
+        if (suppressed != null) {
+            suppressed.add(ex);
         }
     }
 
@@ -363,6 +539,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
             this.singletonFactories.clear();
             this.earlySingletonObjects.clear();
             this.registeredSingletons.clear();
+            this.singletonCreationLocks.clear();
             this.singletonsCurrentlyInDestruction = false;
         }
     }
@@ -440,12 +617,37 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 
 
 
+    /**
+     * Exposes the mutex guarding structural changes to the singleton registry.
+     * <p>Lookups and creation no longer synchronize on it, but registration and
+     * removal of singletons still do, so callers performing compound operations
+     * against the registry may keep synchronizing on this object. It must not
+     * be held while obtaining beans: see the lock order in the class comment.
+     */
     @Override
     public final Object getSingletonMutex() {
         return this.singletonObjects;
     }
 
 
+    @SuppressWarnings("serial")
+    private final class SingletonCreationLock extends ReentrantLock {
+
+        @Override
+        public void unlock() {
+            super.unlock();
+            if (!isHeldByCurrentThread()) {
+                signalSingletonCreationReleased();
+            }
+        }
+
+        @Nullable
+        Thread getOwnerThread() {
+            return getOwner();
+        }
+    }
+
+
 
 
 
@@ -10,6 +10,7 @@ import org.springframework.lang.Nullable;
 import java.security.*;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
 
 public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanRegistry {
     private final Map<String, Object> factoryBeanObjectCache = new ConcurrentHashMap<>(16);
@@ -43,8 +44,16 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
 
     protected Object getObjectFromFactoryBean(FactoryBean<?> factory, String beanName, boolean shouldPostProcess) {
         if (factory.isSingleton() && containsSingleton(beanName)) {
-            synchronized (getSingletonMutex()) {
-                Object object = this.factoryBeanObjectCache.get(beanName);
+            Object object = this.factoryBeanObjectCache.get(beanName);
+            if (object != null) {
+                return object;
+            }
+            // Guard by the FactoryBean's creation lock rather than the singleton mutex,
+            // since getObject() may in turn obtain beans. No lock if this thread joined
+            // the creation on another thread for a circular reference.
+            Lock creationLock = lockSingletonCreation(beanName);
+            try {
+                object = this.factoryBeanObjectCache.get(beanName);
                 if (object == null) {
                     object = doGetObjectFromFactoryBean(factory, beanName);
                     // Only post-process and store if not put there already during getObject() call above
@@ -78,6 +87,11 @@ public abstract class FactoryBeanRegistrySupport extends DefaultSingletonBeanReg
                 }
                 return object;
             }
+            finally {
+                if (creationLock != null) {
+                    creationLock.unlock();
+                }
+            }
         }
         else {
             Object object = doGetObjectFromFactoryBean(factory, beanName);
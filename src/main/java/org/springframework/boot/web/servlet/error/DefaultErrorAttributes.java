@@ -3,6 +3,7 @@ package org.springframework.boot.web.servlet.error;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
+import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -14,10 +15,7 @@ import org.springframework.web.servlet.ModelAndView;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.PrintWriter;
-import java.io.StringWriter;
 import java.util.Date;
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 
@@ -26,6 +24,8 @@ public class DefaultErrorAttributes implements ErrorAttributes, HandlerException
     private static final String ERROR_ATTRIBUTE = DefaultErrorAttributes.class.getName() + ".ERROR";
     private final boolean includeException;
 
+    private StackTraceRenderer stackTraceRenderer = new StackTraceRenderer();
+
     public DefaultErrorAttributes() {
         this(false);
     }
@@ -34,6 +34,20 @@ public class DefaultErrorAttributes implements ErrorAttributes, HandlerException
     public DefaultErrorAttributes(boolean includeException) {
         this.includeException = includeException;
     }
+
+    /**
+     * Set the renderer for the "trace" attribute, e.g. one with a
+     * {@link StackTraceRenderer#setMaxFrames frame budget}.
+     */
+    public void setStackTraceRenderer(StackTraceRenderer stackTraceRenderer) {
+        Assert.notNull(stackTraceRenderer, "StackTraceRenderer must not be null");
+        this.stackTraceRenderer = stackTraceRenderer;
+    }
+
+    public StackTraceRenderer getStackTraceRenderer() {
+        return this.stackTraceRenderer;
+    }
+
     @Override
     public int getOrder() {
         return Ordered.HIGHEST_PRECEDENCE;
@@ -51,9 +65,13 @@ public class DefaultErrorAttributes implements ErrorAttributes, HandlerException
     }
 
 
+    /**
+     * The stack trace is only rendered once read, or once the returned map is
+     * iterated (e.g. for rendering the error response).
+     */
     @Override
     public Map<String, Object> getErrorAttributes(WebRequest webRequest, boolean includeStackTrace) {
-        Map<String, Object> errorAttributes = new LinkedHashMap<>();
+        LazyAttributeMap errorAttributes = new LazyAttributeMap();
         errorAttributes.put("timestamp", new Date());
         addStatus(errorAttributes, webRequest);
         addErrorDetails(errorAttributes, webRequest, includeStackTrace);
@@ -78,7 +96,7 @@ public class DefaultErrorAttributes implements ErrorAttributes, HandlerException
         }
     }
 
-    private void addErrorDetails(Map<String, Object> errorAttributes, WebRequest webRequest,
+    private void addErrorDetails(LazyAttributeMap errorAttributes, WebRequest webRequest,
                                  boolean includeStackTrace) {
         Throwable error = getError(webRequest);
         if (error != null) {
@@ -125,11 +143,9 @@ public class DefaultErrorAttributes implements ErrorAttributes, HandlerException
         }
         return null;
     }
-    private void addStackTrace(Map<String, Object> errorAttributes, Throwable error) {
-        StringWriter stackTrace = new StringWriter();
-        error.printStackTrace(new PrintWriter(stackTrace));
-        stackTrace.flush();
-        errorAttributes.put("trace", stackTrace.toString());
+    private void addStackTrace(LazyAttributeMap errorAttributes, Throwable error) {
+        StackTraceRenderer renderer = this.stackTraceRenderer;
+        errorAttributes.putLazily("trace", () -> renderer.render(error));
     }
 
 
@@ -0,0 +1,97 @@
+package org.springframework.boot.web.servlet.error;
+
+import org.springframework.lang.Nullable;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Insertion-ordered attribute map whose values may be supplied lazily: a lazy
+ * value is computed on first access to it, or once the entries are iterated.
+ * Replacing or removing a value that has not been computed yet does not compute
+ * it: {@code null} is returned as the previous value then.
+ */
+class LazyAttributeMap extends AbstractMap<String, Object> {
+
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+
+    private int lazyCount;
+
+
+    public void putLazily(String key, Supplier<?> supplier) {
+        if (this.attributes.put(key, new LazyValue(supplier)) instanceof LazyValue) {
+            this.lazyCount--;
+        }
+        this.lazyCount++;
+    }
+
+    @Override
+    @Nullable
+    public Object get(Object key) {
+        Object value = this.attributes.get(key);
+        if (value instanceof LazyValue) {
+            value = ((LazyValue) value).supplier.get();
+            this.attributes.put((String) key, value);
+            this.lazyCount--;
+        }
+        return value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.attributes.containsKey(key);
+    }
+
+    @Override
+    @Nullable
+    public Object put(String key, Object value) {
+        return resolvedOrNull(this.attributes.put(key, value));
+    }
+
+    @Override
+    @Nullable
+    public Object remove(Object key) {
+        return resolvedOrNull(this.attributes.remove(key));
+    }
+
+    @Nullable
+    private Object resolvedOrNull(@Nullable Object previous) {
+        if (previous instanceof LazyValue) {
+            this.lazyCount--;
+            return null;
+        }
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return this.attributes.size();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (this.lazyCount > 0) {
+            for (Entry<String, Object> entry : this.attributes.entrySet()) {
+                if (entry.getValue() instanceof LazyValue) {
+                    entry.setValue(((LazyValue) entry.getValue()).supplier.get());
+                }
+            }
+            this.lazyCount = 0;
+        }
+        return this.attributes.entrySet();
+    }
+
+
+    private static final class LazyValue {
+
+        final Supplier<?> supplier;
+
+        LazyValue(Supplier<?> supplier) {
+            this.supplier = supplier;
+        }
+    }
+
+}
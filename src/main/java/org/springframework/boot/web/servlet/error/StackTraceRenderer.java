@@ -0,0 +1,159 @@
+package org.springframework.boot.web.servlet.error;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+import java.util.*;
+
+/**
+ * Renders stack traces in the format of {@link Throwable#printStackTrace()},
+ * with an optional per-throwable frame budget, and caches the result.
+ *
+ * <p>As with {@code printStackTrace}, frames a cause or suppressed exception has
+ * in common with its enclosing trace are elided as "... n more". Rendered traces
+ * are cached by throwable identity and by fingerprint (types, messages and
+ * frames of the whole chain), so that a burst of equivalent errors is rendered once.
+ */
+public class StackTraceRenderer {
+
+    private static final String CAUSE_CAPTION = "Caused by: ";
+
+    private static final String SUPPRESSED_CAPTION = "Suppressed: ";
+
+    private int maxFrames = Integer.MAX_VALUE;
+
+    private int cacheLimit = 256;
+
+    private final Map<Throwable, String> renderedByThrowable =
+            new ConcurrentReferenceHashMap<>(64, ConcurrentReferenceHashMap.ReferenceType.WEAK);
+
+    private final Map<List<Object>, String> renderedByFingerprint = new ConcurrentReferenceHashMap<>(64);
+
+
+    /**
+     * Set the maximum number of frames to render per throwable in the chain.
+     * Further frames are summarized in a single line. Default is unlimited.
+     */
+    public void setMaxFrames(int maxFrames) {
+        Assert.isTrue(maxFrames > 0, "'maxFrames' must be greater than 0");
+        this.maxFrames = maxFrames;
+    }
+
+    public int getMaxFrames() {
+        return this.maxFrames;
+    }
+
+    /**
+     * Set the maximum number of rendered traces to keep by fingerprint.
+     * Default is 256; 0 turns caching off.
+     */
+    public void setCacheLimit(int cacheLimit) {
+        this.cacheLimit = cacheLimit;
+    }
+
+    public int getCacheLimit() {
+        return this.cacheLimit;
+    }
+
+    public String render(Throwable throwable) {
+        if (this.cacheLimit <= 0) {
+            return doRender(throwable);
+        }
+        String trace = this.renderedByThrowable.get(throwable);
+        if (trace != null) {
+            return trace;
+        }
+        List<Object> fingerprint = new ArrayList<>();
+        collectFingerprint(throwable, fingerprint, Collections.newSetFromMap(new IdentityHashMap<>()));
+        trace = this.renderedByFingerprint.get(fingerprint);
+        if (trace == null) {
+            trace = doRender(throwable);
+            if (this.renderedByFingerprint.size() >= this.cacheLimit) {
+                Iterator<List<Object>> it = this.renderedByFingerprint.keySet().iterator();
+                if (it.hasNext()) {
+                    it.next();
+                    it.remove();
+                }
+            }
+            this.renderedByFingerprint.put(fingerprint, trace);
+        }
+        this.renderedByThrowable.put(throwable, trace);
+        return trace;
+    }
+
+    private void collectFingerprint(Throwable throwable, List<Object> fingerprint, Set<Throwable> seen) {
+        if (!seen.add(throwable)) {
+            fingerprint.add(System.identityHashCode(throwable));
+            return;
+        }
+        fingerprint.add(throwable.toString());
+        fingerprint.add(Arrays.asList(throwable.getStackTrace()));
+        for (Throwable suppressed : throwable.getSuppressed()) {
+            collectFingerprint(suppressed, fingerprint, seen);
+        }
+        fingerprint.add(null);
+        Throwable cause = throwable.getCause();
+        if (cause != null) {
+            collectFingerprint(cause, fingerprint, seen);
+        }
+    }
+
+    private String doRender(Throwable throwable) {
+        StringBuilder sb = new StringBuilder(1024);
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        seen.add(throwable);
+        sb.append(throwable).append(System.lineSeparator());
+        StackTraceElement[] trace = throwable.getStackTrace();
+        appendFrames(sb, trace, trace.length, "");
+        for (Throwable suppressed : throwable.getSuppressed()) {
+            appendEnclosed(sb, suppressed, trace, SUPPRESSED_CAPTION, "\t", seen);
+        }
+        Throwable cause = throwable.getCause();
+        if (cause != null) {
+            appendEnclosed(sb, cause, trace, CAUSE_CAPTION, "", seen);
+        }
+        return sb.toString();
+    }
+
+    private void appendEnclosed(StringBuilder sb, Throwable throwable, StackTraceElement[] enclosingTrace,
+            String caption, String prefix, Set<Throwable> seen) {
+
+        if (!seen.add(throwable)) {
+            sb.append("\t[CIRCULAR REFERENCE:").append(throwable).append(']').append(System.lineSeparator());
+            return;
+        }
+        StackTraceElement[] trace = throwable.getStackTrace();
+        int m = trace.length - 1;
+        int n = enclosingTrace.length - 1;
+        while (m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+            m--;
+            n--;
+        }
+        int framesInCommon = trace.length - 1 - m;
+
+        sb.append(prefix).append(caption).append(throwable).append(System.lineSeparator());
+        appendFrames(sb, trace, m + 1, prefix);
+        if (framesInCommon != 0) {
+            sb.append(prefix).append("\t... ").append(framesInCommon).append(" more").append(System.lineSeparator());
+        }
+        for (Throwable suppressed : throwable.getSuppressed()) {
+            appendEnclosed(sb, suppressed, trace, SUPPRESSED_CAPTION, prefix + "\t", seen);
+        }
+        Throwable cause = throwable.getCause();
+        if (cause != null) {
+            appendEnclosed(sb, cause, trace, CAUSE_CAPTION, prefix, seen);
+        }
+    }
+
+    private void appendFrames(StringBuilder sb, StackTraceElement[] trace, int count, String prefix) {
+        int rendered = Math.min(count, this.maxFrames);
+        for (int i = 0; i < rendered; i++) {
+            sb.append(prefix).append("\tat ").append(trace[i]).append(System.lineSeparator());
+        }
+        if (rendered < count) {
+            sb.append(prefix).append("\t... ").append(count - rendered).append(" frames omitted")
+                    .append(System.lineSeparator());
+        }
+    }
+
+}
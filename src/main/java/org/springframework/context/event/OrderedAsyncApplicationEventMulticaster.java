@@ -0,0 +1,312 @@
+package org.springframework.context.event;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.ResolvableType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link SimpleApplicationEventMulticaster} that delivers events asynchronously
+ * on a given executor while preserving publication order per listener.
+ *
+ * <p>Each listener has its own queue, drained by at most one executor task at a
+ * time in batches of up to {@link #setBatchSize batchSize} events. The number of
+ * queued deliveries is bounded by {@link #setMaxPendingEvents maxPendingEvents}:
+ * publishers block once the bound is reached, except on delivery threads, which
+ * must never wait on their own queues. Listeners are still retrieved through the
+ * listener retriever cache keyed by event type and source type. The queue of a
+ * removed listener is kept until it has drained, and reused if the listener is
+ * added again before that.
+ *
+ * <p>{@link ApplicationContextEvent ApplicationContextEvents} are delivered
+ * synchronously, since the context relies on their completion.
+ */
+public class OrderedAsyncApplicationEventMulticaster extends SimpleApplicationEventMulticaster {
+
+    private static final Log logger = LogFactory.getLog(OrderedAsyncApplicationEventMulticaster.class);
+
+    private static final ThreadLocal<Boolean> delivering = new ThreadLocal<>();
+
+    private final Executor executor;
+
+    private int batchSize = 64;
+
+    private int maxPendingEvents = 10000;
+
+    private volatile Semaphore pendingPermits = new Semaphore(this.maxPendingEvents);
+
+    private final Map<ApplicationListener<?>, ListenerQueue> listenerQueues =
+            new ConcurrentReferenceHashMap<>(64, ConcurrentReferenceHashMap.ReferenceType.WEAK);
+
+    private final AtomicInteger pendingEvents = new AtomicInteger();
+
+    private final LongAdder blockedPublications = new LongAdder();
+
+    private final LongAdder deliveredEvents = new LongAdder();
+
+    private final LongAdder failedDeliveries = new LongAdder();
+
+
+    public OrderedAsyncApplicationEventMulticaster(Executor executor) {
+        Assert.notNull(executor, "Executor must not be null");
+        this.executor = executor;
+    }
+
+    public OrderedAsyncApplicationEventMulticaster(BeanFactory beanFactory, Executor executor) {
+        this(executor);
+        setBeanFactory(beanFactory);
+    }
+
+
+    /**
+     * Set the maximum number of events delivered to one listener per executor task,
+     * before the task yields to other listeners. Default is 64.
+     */
+    public void setBatchSize(int batchSize) {
+        Assert.isTrue(batchSize > 0, "Batch size must be greater than 0");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Set the maximum number of queued deliveries across all listeners before
+     * publishers are blocked. Default is 10000. Only to be changed before use.
+     */
+    public void setMaxPendingEvents(int maxPendingEvents) {
+        Assert.isTrue(maxPendingEvents > 0, "Max pending events must be greater than 0");
+        this.maxPendingEvents = maxPendingEvents;
+        this.pendingPermits = new Semaphore(maxPendingEvents);
+    }
+
+    public int getMaxPendingEvents() {
+        return this.maxPendingEvents;
+    }
+
+    /**
+     * Return the number of deliveries currently queued or in progress.
+     */
+    public int getPendingEventCount() {
+        return this.pendingEvents.get();
+    }
+
+    /**
+     * Return how many deliveries had to wait for queue capacity.
+     */
+    public long getBlockedPublicationCount() {
+        return this.blockedPublications.sum();
+    }
+
+    public long getDeliveredEventCount() {
+        return this.deliveredEvents.sum();
+    }
+
+    public long getFailedDeliveryCount() {
+        return this.failedDeliveries.sum();
+    }
+
+
+    @Override
+    public void multicastEvent(ApplicationEvent event, @Nullable ResolvableType eventType) {
+        if (event instanceof ApplicationContextEvent) {
+            super.multicastEvent(event, eventType);
+            return;
+        }
+        ResolvableType type = (eventType != null ? eventType : ResolvableType.forInstance(event));
+        for (ApplicationListener<?> listener : getApplicationListeners(event, type)) {
+            boolean permit = acquirePermit();
+            this.pendingEvents.incrementAndGet();
+            PendingEvent pendingEvent = new PendingEvent(listener, event, permit);
+            while (!this.listenerQueues.computeIfAbsent(listener, ListenerQueue::new).enqueue(pendingEvent)) {
+                // Closed after draining for a removed listener: about to leave the map.
+            }
+        }
+    }
+
+    private boolean acquirePermit() {
+        Semaphore permits = this.pendingPermits;
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (delivering.get() != null) {
+            // Publishing from a listener: blocking could wait on this very queue.
+            return false;
+        }
+        this.blockedPublications.increment();
+        permits.acquireUninterruptibly();
+        return true;
+    }
+
+    @Override
+    public void addApplicationListener(ApplicationListener<?> listener) {
+        super.addApplicationListener(listener);
+        ListenerQueue listenerQueue = this.listenerQueues.get(listener);
+        if (listenerQueue != null) {
+            listenerQueue.setRemoved(false);
+        }
+    }
+
+    @Override
+    public void removeApplicationListener(ApplicationListener<?> listener) {
+        super.removeApplicationListener(listener);
+        ListenerQueue listenerQueue = this.listenerQueues.get(listener);
+        if (listenerQueue != null) {
+            listenerQueue.setRemoved(true);
+        }
+    }
+
+    @Override
+    public void removeAllListeners() {
+        super.removeAllListeners();
+        for (ListenerQueue listenerQueue : this.listenerQueues.values()) {
+            listenerQueue.setRemoved(true);
+        }
+    }
+
+
+    private static final class PendingEvent {
+
+        final ApplicationListener<?> listener;
+
+        final ApplicationEvent event;
+
+        final boolean permit;
+
+        PendingEvent(ApplicationListener<?> listener, ApplicationEvent event, boolean permit) {
+            this.listener = listener;
+            this.event = event;
+            this.permit = permit;
+        }
+    }
+
+
+    /**
+     * Serial queue for one listener: drained by at most one task at a time.
+     * <p>Once its listener is removed and it has drained, the queue closes and
+     * leaves the map, so that a queue created later never overlaps with it.
+     */
+    private final class ListenerQueue implements Runnable {
+
+        // Weak: the map holds its listener keys weakly.
+        private final WeakReference<ApplicationListener<?>> listener;
+
+        private final Queue<PendingEvent> queue = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private boolean removed;
+
+        private boolean closed;
+
+        ListenerQueue(ApplicationListener<?> listener) {
+            this.listener = new WeakReference<>(listener);
+        }
+
+        /**
+         * Queue the given delivery, unless this queue is closed.
+         */
+        boolean enqueue(PendingEvent pendingEvent) {
+            synchronized (this) {
+                if (this.closed) {
+                    return false;
+                }
+                this.queue.add(pendingEvent);
+            }
+            schedule();
+            return true;
+        }
+
+        void setRemoved(boolean removed) {
+            synchronized (this) {
+                this.removed = removed;
+            }
+            if (removed) {
+                closeIfDrained();
+            }
+        }
+
+        private void closeIfDrained() {
+            synchronized (this) {
+                if (!this.removed || this.closed || this.scheduled.get() || !this.queue.isEmpty()) {
+                    return;
+                }
+                this.closed = true;
+            }
+            ApplicationListener<?> listener = this.listener.get();
+            if (listener != null) {
+                listenerQueues.remove(listener, this);
+            }
+        }
+
+        private void schedule() {
+            if (this.scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                }
+                catch (RejectedExecutionException ex) {
+                    // Still serial: this thread now owns the queue.
+                    run();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            Boolean previous = delivering.get();
+            delivering.set(Boolean.TRUE);
+            try {
+                PendingEvent pendingEvent;
+                int count = 0;
+                while (count < batchSize && (pendingEvent = this.queue.poll()) != null) {
+                    deliver(pendingEvent);
+                    count++;
+                }
+            }
+            finally {
+                if (previous == null) {
+                    delivering.remove();
+                }
+                this.scheduled.set(false);
+            }
+            if (!this.queue.isEmpty()) {
+                schedule();
+            }
+            else {
+                closeIfDrained();
+            }
+        }
+
+        private void deliver(PendingEvent pendingEvent) {
+            try {
+                invokeListener(pendingEvent.listener, pendingEvent.event);
+                deliveredEvents.increment();
+            }
+            catch (Throwable ex) {
+                failedDeliveries.increment();
+                logger.warn("Failed to deliver event " + pendingEvent.event + " to listener " +
+                        pendingEvent.listener, ex);
+            }
+            finally {
+                pendingEvents.decrementAndGet();
+                if (pendingEvent.permit) {
+                    pendingPermits.release();
+                }
+            }
+        }
+    }
+
+}
@@ -35,6 +35,7 @@ import org.springframework.util.ReflectionUtils;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public abstract class AbstractApplicationContext extends DefaultResourceLoader implements ConfigurableApplicationContext {
@@ -99,6 +100,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
     @Nullable
     private ApplicationEventMulticaster applicationEventMulticaster;
 
+    @Nullable
+    private Executor eventDeliveryExecutor;
+
     private final Set<ApplicationListener<?>> applicationListeners = new LinkedHashSet<>();
 
     @Nullable
@@ -225,6 +229,17 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
         }
     }
 
+    /**
+     * Set an executor for asynchronous event delivery. If no
+     * "applicationEventMulticaster" bean is defined, events are then delivered
+     * through an {@link OrderedAsyncApplicationEventMulticaster}: ordered per
+     * listener and with a bounded backlog. Context events stay synchronous.
+     * <p>Needs to be set before the context is refreshed.
+     */
+    public void setEventDeliveryExecutor(@Nullable Executor eventDeliveryExecutor) {
+        this.eventDeliveryExecutor = eventDeliveryExecutor;
+    }
+
     ApplicationEventMulticaster getApplicationEventMulticaster() throws IllegalStateException {
         if (this.applicationEventMulticaster == null) {
             throw new IllegalStateException("ApplicationEventMulticaster not initialized - " +
@@ -499,7 +514,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
             }
         }
         else {
-            this.applicationEventMulticaster = new SimpleApplicationEventMulticaster(beanFactory);
+            this.applicationEventMulticaster = (this.eventDeliveryExecutor != null ?
+                    new OrderedAsyncApplicationEventMulticaster(beanFactory, this.eventDeliveryExecutor) :
+                    new SimpleApplicationEventMulticaster(beanFactory));
             beanFactory.registerSingleton(APPLICATION_EVENT_MULTICASTER_BEAN_NAME, this.applicationEventMulticaster);
             if (logger.isTraceEnabled()) {
                 logger.trace("No '" + APPLICATION_EVENT_MULTICASTER_BEAN_NAME + "' bean, using " +
@@ -12,6 +12,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 import java.lang.annotation.Annotation;
@@ -20,6 +22,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.StringJoiner;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class HandlerMethod {
     protected final Log logger= LogFactory.getLog(getClass());
@@ -200,6 +204,50 @@ public class HandlerMethod {
     public MethodParameter getReturnType(){
         return new HandlerMethodParameter(-1);
     }
+    @Nullable
+    protected static Object findProvidedArgument(MethodParameter parameter,@Nullable Object... providedArgs)
+    {
+        if(!ObjectUtils.isEmpty(providedArgs))
+        {
+            for (Object providedArg : providedArgs) {
+                if(parameter.getParameterType().isInstance(providedArg))
+                {
+                    return providedArg;
+                }
+            }
+        }
+        return null;
+    }
+    protected static String formatArgumentError(MethodParameter param,String message)
+    {
+        return "Could not resolve parameter ["+param.getParameterIndex()+"] in "+
+                param.getExecutable().toGenericString()+(StringUtils.hasText(message)?": "+message:"");
+    }
+    protected void assertTargetBean(Method method,Object targetBean,Object[] args)
+    {
+        Class<?> methodDeclaringClass=method.getDeclaringClass();
+        Class<?> targetBeanClass=targetBean.getClass();
+        if(!methodDeclaringClass.isAssignableFrom(targetBeanClass))
+        {
+            String text="The mapped handler method class '"+methodDeclaringClass.getName()+
+                    "' is not an instance of the actual controller bean class '"+
+                    targetBeanClass.getName()+"'. If the controller requires proxying "+
+                    "(e.g. due to @Transactional), please use class-based proxying.";
+            throw new IllegalStateException(formatInvokeError(text,args));
+        }
+    }
+    protected String formatInvokeError(String text,Object[] args)
+    {
+        String formattedArgs=IntStream.range(0,args.length)
+                .mapToObj(i->(args[i]!=null?
+                        "["+i+"] [type="+args[i].getClass().getName()+"] [value="+args[i]+"]":
+                        "["+i+"] [null]"))
+                .collect(Collectors.joining(",\n"," "," "));
+        return text+"\n"+
+                "Controller ["+getBeanType().getName()+"]\n"+
+                "Method ["+getBridgedMethod().toGenericString()+"] "+
+                "with argument values:\n"+formattedArgs;
+    }
 
     private boolean isOverrideFor(Method candidate)
     {
@@ -0,0 +1,333 @@
+package org.springframework.web.servlet;
+
+import org.springframework.lang.Nullable;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms, and optionally allocated bytes, per phase of request
+ * dispatching in the {@link DispatcherServlet}.
+ *
+ * <p>Each phase has fixed-size histograms with power-of-two buckets, updated
+ * without locks, so that recording costs a few atomic increments. Allocated
+ * bytes are measured per thread through {@code com.sun.management.ThreadMXBean},
+ * where the JVM supports it. Readable over JMX as a {@link DispatchMetricsMXBean}.
+ */
+public class DispatchMetrics implements DispatchMetricsMXBean {
+
+    /**
+     * The phases of dispatching a request.
+     */
+    public enum Phase {
+
+        /** Finding the handler through the handler mappings. */
+        HANDLER_LOOKUP,
+
+        /** Interceptor {@code preHandle} callbacks. */
+        PRE_HANDLE,
+
+        /** Handler invocation by the handler adapter, including argument resolution. */
+        HANDLE,
+
+        /** Interceptor {@code postHandle} callbacks. */
+        POST_HANDLE,
+
+        /** Exception resolution through the handler exception resolvers. */
+        EXCEPTION_HANDLING,
+
+        /** Resolving the view name to a view. */
+        VIEW_RESOLUTION,
+
+        /** Rendering the view. */
+        RENDER,
+
+        /** The whole dispatch. */
+        TOTAL
+    }
+
+
+    @Nullable
+    private static final com.sun.management.ThreadMXBean threadMXBean = findThreadMXBean();
+
+    private final boolean trackAllocations;
+
+    private final Histogram[] latencies = new Histogram[Phase.values().length];
+
+    private final Histogram[] allocations = new Histogram[Phase.values().length];
+
+
+    /**
+     * Create a new instance.
+     * @param trackAllocations whether to record allocated bytes per phase,
+     * ignored if the JVM cannot measure them
+     */
+    public DispatchMetrics(boolean trackAllocations) {
+        this.trackAllocations = (trackAllocations && threadMXBean != null);
+        for (int i = 0; i < this.latencies.length; i++) {
+            this.latencies[i] = new Histogram();
+            this.allocations[i] = new Histogram();
+        }
+    }
+
+    @Nullable
+    private static com.sun.management.ThreadMXBean findThreadMXBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+                if (sunBean.isThreadAllocatedMemorySupported()) {
+                    sunBean.setThreadAllocatedMemoryEnabled(true);
+                    return sunBean;
+                }
+            }
+        }
+        catch (Throwable ex) {
+            // No com.sun.management API (or not permitted): no allocation tracking
+        }
+        return null;
+    }
+
+
+    public boolean isTrackAllocations() {
+        return this.trackAllocations;
+    }
+
+    /**
+     * Start recording the phases of a request on the current thread.
+     */
+    public Recorder startRecording() {
+        return new Recorder();
+    }
+
+    /**
+     * Return the latency histogram of the given phase, in nanoseconds.
+     */
+    public Histogram getLatencies(Phase phase) {
+        return this.latencies[phase.ordinal()];
+    }
+
+    /**
+     * Return the histogram of bytes allocated during the given phase.
+     */
+    public Histogram getAllocations(Phase phase) {
+        return this.allocations[phase.ordinal()];
+    }
+
+    @Override
+    public Map<String, PhaseStatistics> getPhaseStatistics() {
+        Map<String, PhaseStatistics> statistics = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            statistics.put(phase.name(), new PhaseStatistics(getLatencies(phase), getAllocations(phase)));
+        }
+        return statistics;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < this.latencies.length; i++) {
+            this.latencies[i].reset();
+            this.allocations[i].reset();
+        }
+    }
+
+    private long allocatedBytes() {
+        return (this.trackAllocations ? threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0);
+    }
+
+
+    /**
+     * Records the phases of one request, on the thread that dispatches it.
+     */
+    public final class Recorder {
+
+        private final long startTime = System.nanoTime();
+
+        private final long startBytes = allocatedBytes();
+
+        private long phaseStartTime;
+
+        private long phaseStartBytes;
+
+        /**
+         * Mark the start of a phase.
+         */
+        public void begin() {
+            this.phaseStartTime = System.nanoTime();
+            this.phaseStartBytes = allocatedBytes();
+        }
+
+        /**
+         * Record the given phase as lasting since the last {@link #begin()}.
+         */
+        public void end(Phase phase) {
+            record(phase, this.phaseStartTime, this.phaseStartBytes);
+        }
+
+        /**
+         * Record the whole dispatch, since this recorder was started.
+         */
+        public void finish() {
+            record(Phase.TOTAL, this.startTime, this.startBytes);
+        }
+
+        private void record(Phase phase, long fromTime, long fromBytes) {
+            latencies[phase.ordinal()].record(System.nanoTime() - fromTime);
+            if (trackAllocations) {
+                allocations[phase.ordinal()].record(allocatedBytes() - fromBytes);
+            }
+        }
+    }
+
+
+    /**
+     * Lock-free histogram over 64 power-of-two buckets: bucket {@code i}
+     * counts values from 2<sup>i-1</sup> up to 2<sup>i</sup> - 1.
+     */
+    public static final class Histogram {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder sum = new LongAdder();
+
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long value) {
+            long v = Math.max(value, 0);
+            this.buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(v));
+            this.count.increment();
+            this.sum.add(v);
+            if (v > this.max.get()) {
+                this.max.accumulateAndGet(v, Math::max);
+            }
+        }
+
+        void reset() {
+            for (int i = 0; i < this.buckets.length(); i++) {
+                this.buckets.set(i, 0);
+            }
+            this.count.reset();
+            this.sum.reset();
+            this.max.set(0);
+        }
+
+        public long getCount() {
+            return this.count.sum();
+        }
+
+        public long getSum() {
+            return this.sum.sum();
+        }
+
+        public long getMax() {
+            return this.max.get();
+        }
+
+        public double getMean() {
+            long count = getCount();
+            return (count > 0 ? (double) getSum() / count : 0);
+        }
+
+        /**
+         * Return an upper bound for the given percentile: the upper end of the
+         * bucket it falls into, at most the maximum recorded value.
+         * @param percentile between 0 and 1
+         */
+        public long getPercentile(double percentile) {
+            long[] counts = new long[this.buckets.length()];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = this.buckets.get(i);
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(percentile * total);
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= target && counts[i] > 0) {
+                    long upperBound = (i == 0 ? 0 : (i == 63 ? Long.MAX_VALUE : (1L << i) - 1));
+                    return Math.min(upperBound, getMax());
+                }
+            }
+            return getMax();
+        }
+    }
+
+
+    /**
+     * Summary of one phase, as exposed over JMX.
+     */
+    public static class PhaseStatistics {
+
+        private final long count;
+
+        private final double meanMicros;
+
+        private final long p50Micros;
+
+        private final long p90Micros;
+
+        private final long p99Micros;
+
+        private final long maxMicros;
+
+        private final double meanAllocatedBytes;
+
+        private final long maxAllocatedBytes;
+
+        PhaseStatistics(Histogram latencies, Histogram allocations) {
+            this.count = latencies.getCount();
+            this.meanMicros = latencies.getMean() / 1000;
+            this.p50Micros = TimeUnit.NANOSECONDS.toMicros(latencies.getPercentile(0.5));
+            this.p90Micros = TimeUnit.NANOSECONDS.toMicros(latencies.getPercentile(0.9));
+            this.p99Micros = TimeUnit.NANOSECONDS.toMicros(latencies.getPercentile(0.99));
+            this.maxMicros = TimeUnit.NANOSECONDS.toMicros(latencies.getMax());
+            this.meanAllocatedBytes = allocations.getMean();
+            this.maxAllocatedBytes = allocations.getMax();
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public double getMeanMicros() {
+            return this.meanMicros;
+        }
+
+        public long getP50Micros() {
+            return this.p50Micros;
+        }
+
+        public long getP90Micros() {
+            return this.p90Micros;
+        }
+
+        public long getP99Micros() {
+            return this.p99Micros;
+        }
+
+        public long getMaxMicros() {
+            return this.maxMicros;
+        }
+
+        public double getMeanAllocatedBytes() {
+            return this.meanAllocatedBytes;
+        }
+
+        public long getMaxAllocatedBytes() {
+            return this.maxAllocatedBytes;
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package org.springframework.web.servlet;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link DispatchMetrics}.
+ */
+public interface DispatchMetricsMXBean {
+
+    /**
+     * Return latency and allocation statistics by dispatch phase name.
+     */
+    Map<String, DispatchMetrics.PhaseStatistics> getPhaseStatistics();
+
+    /**
+     * Clear all recorded values.
+     */
+    void reset();
+
+}
@@ -17,6 +17,9 @@ import org.springframework.ui.context.ThemeSource;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.async.WebAsyncManager;
 import org.springframework.web.context.request.async.WebAsyncUtils;
@@ -26,12 +29,16 @@ import org.springframework.web.multipart.MultipartResolver;
 import org.springframework.web.util.NestedServletException;
 import org.springframework.web.util.WebUtils;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
 import javax.servlet.DispatcherType;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @SuppressWarnings("serial")
@@ -108,6 +115,13 @@ public class DispatcherServlet extends FrameworkServlet {
      */
     public static final String THEME_SOURCE_ATTRIBUTE = DispatcherServlet.class.getName() + ".THEME_SOURCE";
 
+    /**
+     * Request attribute to hold the {@link DispatcherStrategies}, if exposed
+     * as a holder instead of individual attributes.
+     * @see #setExposeStrategiesAsHolder
+     */
+    public static final String STRATEGIES_ATTRIBUTE = DispatcherServlet.class.getName() + ".STRATEGIES";
+
     /**
      * Name of request attribute that holds a read-only {@code Map<String,?>}
      * with "input" flash attributes saved by a previous request, if any.
@@ -135,6 +149,12 @@ public class DispatcherServlet extends FrameworkServlet {
      */
     public static final String EXCEPTION_ATTRIBUTE = DispatcherServlet.class.getName() + ".EXCEPTION";
 
+    /**
+     * Name of request attribute that holds the {@link DispatchMetrics.Recorder}
+     * of the current dispatch, if dispatch metrics are enabled.
+     */
+    public static final String DISPATCH_RECORDER_ATTRIBUTE = DispatcherServlet.class.getName() + ".DISPATCH_RECORDER";
+
     /** Log category to use when no mapped handler is found for a request. */
     public static final String PAGE_NOT_FOUND_LOG_CATEGORY = "org.springframework.web.servlet.PageNotFound";
 
@@ -184,6 +204,12 @@ public class DispatcherServlet extends FrameworkServlet {
     /** Perform cleanup of request attributes after include request?. */
     private boolean cleanupAfterInclude = true;
 
+    /** Journal attribute changes during an include instead of taking a snapshot up front?. */
+    private boolean layeredIncludeAttributes = false;
+
+    /** Expose the framework objects as a single DispatcherStrategies attribute?. */
+    private boolean exposeStrategiesAsHolder = false;
+
     /** MultipartResolver used by this servlet. */
     @Nullable
     private MultipartResolver multipartResolver;
@@ -220,6 +246,24 @@ public class DispatcherServlet extends FrameworkServlet {
     @Nullable
     private List<ViewResolver> viewResolvers;
 
+    /** Holder of the framework objects exposed to handlers and views. */
+    @Nullable
+    private DispatcherStrategies dispatcherStrategies;
+
+    /** Record latencies per dispatch phase?. */
+    private boolean dispatchMetricsEnabled = false;
+
+    /** Record allocated bytes per dispatch phase, in addition to latencies?. */
+    private boolean allocationTrackingEnabled = false;
+
+    /** DispatchMetrics used by this servlet, if enabled. */
+    @Nullable
+    private DispatchMetrics dispatchMetrics;
+
+    /** Name of the DispatchMetrics MBean, if registered. */
+    @Nullable
+    private ObjectName dispatchMetricsObjectName;
+
 
 
     public DispatcherServlet() {
@@ -260,9 +304,98 @@ public class DispatcherServlet extends FrameworkServlet {
         this.cleanupAfterInclude = cleanupAfterInclude;
     }
 
+    /**
+     * Set whether to roll back request attributes after an include by recording
+     * the prior value of each attribute changed during the include, rather
+     * than by copying all attributes before and comparing them afterwards.
+     * Off by default.
+     * <p>Handlers and views are then given a request wrapper, which is also
+     * bound to the {@link RequestContextHolder} for the include, e.g. for
+     * request-scoped beans. Only changes made through it are rolled back:
+     * changes made on the container request by other means, e.g. by a filter
+     * around the include, are not.
+     */
+    public void setLayeredIncludeAttributes(boolean layeredIncludeAttributes) {
+        this.layeredIncludeAttributes = layeredIncludeAttributes;
+    }
+
+    /**
+     * Set whether to expose the WebApplicationContext, LocaleResolver,
+     * ThemeResolver and ThemeSource as a single {@link DispatcherStrategies}
+     * attribute, created once, instead of setting four attributes per request.
+     * Off by default.
+     * <p>Handlers and views are then given a request wrapper that still answers
+     * the individual attribute names, e.g. for
+     * {@link org.springframework.web.servlet.support.RequestContextUtils}. The
+     * wrapper is also bound to the {@link RequestContextHolder} for the
+     * dispatch. The wrapped container request only holds
+     * {@link #STRATEGIES_ATTRIBUTE} and {@link #WEB_APPLICATION_CONTEXT_ATTRIBUTE}.
+     */
+    public void setExposeStrategiesAsHolder(boolean exposeStrategiesAsHolder) {
+        this.exposeStrategiesAsHolder = exposeStrategiesAsHolder;
+    }
+
+    /**
+     * Set whether to record latency histograms per dispatch phase, exposed
+     * through {@link #getDispatchMetrics()} and as an MBean named
+     * "org.springframework.web.servlet:type=DispatchMetrics,name=" plus the
+     * servlet name. Off by default.
+     */
+    public void setDispatchMetricsEnabled(boolean dispatchMetricsEnabled) {
+        this.dispatchMetricsEnabled = dispatchMetricsEnabled;
+    }
+
+    /**
+     * Set whether dispatch metrics also record the bytes allocated by the
+     * dispatching thread per phase, where the JVM can measure them. This costs
+     * a call into the JVM per phase. Off by default.
+     */
+    public void setAllocationTrackingEnabled(boolean allocationTrackingEnabled) {
+        this.allocationTrackingEnabled = allocationTrackingEnabled;
+    }
+
+    /**
+     * Return the dispatch metrics, or {@code null} if not enabled.
+     */
+    @Nullable
+    public final DispatchMetrics getDispatchMetrics() {
+        return this.dispatchMetrics;
+    }
+
+    @Override
+    protected void initFrameworkServlet() throws ServletException {
+        if (this.dispatchMetricsEnabled) {
+            this.dispatchMetrics = new DispatchMetrics(this.allocationTrackingEnabled);
+            try {
+                ObjectName objectName = new ObjectName("org.springframework.web.servlet:type=DispatchMetrics,name=" +
+                        ObjectName.quote(getServletName()));
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this.dispatchMetrics, objectName);
+                this.dispatchMetricsObjectName = objectName;
+            }
+            catch (JMException ex) {
+                logger.warn("Could not register DispatchMetrics MBean for servlet '" + getServletName() + "'", ex);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        if (this.dispatchMetricsObjectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.dispatchMetricsObjectName);
+            }
+            catch (JMException ex) {
+                logger.debug("Could not unregister DispatchMetrics MBean", ex);
+            }
+            this.dispatchMetricsObjectName = null;
+        }
+    }
+
     @Override
     protected void onRefresh(ApplicationContext context) {
         initStrategies(context);
+        initDispatcherStrategies(context);
     }
 
 
@@ -278,6 +411,13 @@ public class DispatcherServlet extends FrameworkServlet {
         initFlashMapManager(context);
     }
 
+    private void initDispatcherStrategies(ApplicationContext context) {
+        this.dispatcherStrategies = new DispatcherStrategies(
+                (context instanceof WebApplicationContext ? (WebApplicationContext) context : null),
+                this.localeResolver, this.themeResolver,
+                (context instanceof ThemeSource ? (ThemeSource) context : null));
+    }
+
     private void initMultipartResolver(ApplicationContext context) {
         try {
             this.multipartResolver = context.getBean(MULTIPART_RESOLVER_BEAN_NAME, MultipartResolver.class);
@@ -582,10 +722,23 @@ public class DispatcherServlet extends FrameworkServlet {
     protected void doService(HttpServletRequest request, HttpServletResponse response) throws Exception {
         logRequest(request);
 
+        boolean include = WebUtils.isIncludeRequest(request);
+        DispatcherStrategies strategies = (this.exposeStrategiesAsHolder ? this.dispatcherStrategies : null);
+        LayeredAttributeRequest layeredRequest = null;
+        if ((include && this.layeredIncludeAttributes) || strategies != null) {
+            Predicate<String> journaledNames = null;
+            if (include && this.layeredIncludeAttributes) {
+                journaledNames = (this.cleanupAfterInclude ? attrName -> true :
+                        attrName -> attrName.startsWith(DEFAULT_STRATEGIES_PREFIX));
+            }
+            layeredRequest = new LayeredAttributeRequest(request, journaledNames, strategies);
+            request = layeredRequest;
+        }
+
         // Keep a snapshot of the request attributes in case of an include,
         // to be able to restore the original attributes after the include.
         Map<String, Object> attributesSnapshot = null;
-        if (WebUtils.isIncludeRequest(request)) {
+        if (include && !this.layeredIncludeAttributes) {
             attributesSnapshot = new HashMap<>();
             Enumeration<?> attrNames = request.getAttributeNames();
             while (attrNames.hasMoreElements()) {
@@ -597,10 +750,17 @@ public class DispatcherServlet extends FrameworkServlet {
         }
 
         // Make framework objects available to handlers and view objects.
-        request.setAttribute(WEB_APPLICATION_CONTEXT_ATTRIBUTE, getWebApplicationContext());
-        request.setAttribute(LOCALE_RESOLVER_ATTRIBUTE, this.localeResolver);
-        request.setAttribute(THEME_RESOLVER_ATTRIBUTE, this.themeResolver);
-        request.setAttribute(THEME_SOURCE_ATTRIBUTE, getThemeSource());
+        if (strategies != null) {
+            // The context is also set on the wrapped request, for code that only sees that one.
+            request.setAttribute(STRATEGIES_ATTRIBUTE, strategies);
+            request.setAttribute(WEB_APPLICATION_CONTEXT_ATTRIBUTE, getWebApplicationContext());
+        }
+        else {
+            request.setAttribute(WEB_APPLICATION_CONTEXT_ATTRIBUTE, getWebApplicationContext());
+            request.setAttribute(LOCALE_RESOLVER_ATTRIBUTE, this.localeResolver);
+            request.setAttribute(THEME_RESOLVER_ATTRIBUTE, this.themeResolver);
+            request.setAttribute(THEME_SOURCE_ATTRIBUTE, getThemeSource());
+        }
 
         if (this.flashMapManager != null) {
             FlashMap inputFlashMap = this.flashMapManager.retrieveAndUpdate(request, response);
@@ -611,6 +771,17 @@ public class DispatcherServlet extends FrameworkServlet {
             request.setAttribute(FLASH_MAP_MANAGER_ATTRIBUTE, this.flashMapManager);
         }
 
+        // Let code that finds the request through the RequestContextHolder, e.g. for
+        // request-scoped beans, see the wrapper as well.
+        RequestAttributes outerRequestAttributes = null;
+        if (layeredRequest != null) {
+            outerRequestAttributes = RequestContextHolder.getRequestAttributes();
+            if (outerRequestAttributes instanceof ServletRequestAttributes) {
+                RequestContextHolder.setRequestAttributes(
+                        layeredRequest.bind((ServletRequestAttributes) outerRequestAttributes));
+            }
+        }
+
         try {
             doDispatch(request, response);
         }
@@ -620,6 +791,12 @@ public class DispatcherServlet extends FrameworkServlet {
                 if (attributesSnapshot != null) {
                     restoreAttributesAfterInclude(request, attributesSnapshot);
                 }
+                else if (layeredRequest != null) {
+                    layeredRequest.restoreAttributes();
+                }
+            }
+            if (outerRequestAttributes instanceof ServletRequestAttributes) {
+                RequestContextHolder.setRequestAttributes(outerRequestAttributes);
             }
         }
     }
@@ -667,6 +844,16 @@ public class DispatcherServlet extends FrameworkServlet {
 
         WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
 
+        // Record the phases of this dispatch, keeping the recorder of an
+        // enclosing dispatch (forward or include) aside until we're done.
+        DispatchMetrics.Recorder recorder = null;
+        Object outerRecorder = null;
+        if (this.dispatchMetrics != null) {
+            recorder = this.dispatchMetrics.startRecording();
+            outerRecorder = request.getAttribute(DISPATCH_RECORDER_ATTRIBUTE);
+            request.setAttribute(DISPATCH_RECORDER_ATTRIBUTE, recorder);
+        }
+
         try {
             ModelAndView mv = null;
             Exception dispatchException = null;
@@ -676,7 +863,17 @@ public class DispatcherServlet extends FrameworkServlet {
                 multipartRequestParsed = (processedRequest != request);
 
                 // Determine handler for the current request.
-                mappedHandler = getHandler(processedRequest);
+                if (recorder != null) {
+                    recorder.begin();
+                }
+                try {
+                    mappedHandler = getHandler(processedRequest);
+                }
+                finally {
+                    if (recorder != null) {
+                        recorder.end(DispatchMetrics.Phase.HANDLER_LOOKUP);
+                    }
+                }
                 if (mappedHandler == null) {
                     noHandlerFound(processedRequest, response);
                     return;
@@ -695,19 +892,51 @@ public class DispatcherServlet extends FrameworkServlet {
                     }
                 }
 
-                if (!mappedHandler.applyPreHandle(processedRequest, response)) {
+                boolean proceed;
+                if (recorder != null) {
+                    recorder.begin();
+                }
+                try {
+                    proceed = mappedHandler.applyPreHandle(processedRequest, response);
+                }
+                finally {
+                    if (recorder != null) {
+                        recorder.end(DispatchMetrics.Phase.PRE_HANDLE);
+                    }
+                }
+                if (!proceed) {
                     return;
                 }
 
                 // Actually invoke the handler.
-                mv = ha.handle(processedRequest, response, mappedHandler.getHandler());
+                if (recorder != null) {
+                    recorder.begin();
+                }
+                try {
+                    mv = ha.handle(processedRequest, response, mappedHandler.getHandler());
+                }
+                finally {
+                    if (recorder != null) {
+                        recorder.end(DispatchMetrics.Phase.HANDLE);
+                    }
+                }
 
                 if (asyncManager.isConcurrentHandlingStarted()) {
                     return;
                 }
 
                 applyDefaultViewName(processedRequest, mv);
-                mappedHandler.applyPostHandle(processedRequest, response, mv);
+                if (recorder != null) {
+                    recorder.begin();
+                }
+                try {
+                    mappedHandler.applyPostHandle(processedRequest, response, mv);
+                }
+                finally {
+                    if (recorder != null) {
+                        recorder.end(DispatchMetrics.Phase.POST_HANDLE);
+                    }
+                }
             }
             catch (Exception ex) {
                 dispatchException = ex;
@@ -739,6 +968,15 @@ public class DispatcherServlet extends FrameworkServlet {
                     cleanupMultipart(processedRequest);
                 }
             }
+            if (recorder != null) {
+                recorder.finish();
+                if (outerRecorder != null) {
+                    request.setAttribute(DISPATCH_RECORDER_ATTRIBUTE, outerRecorder);
+                }
+                else {
+                    request.removeAttribute(DISPATCH_RECORDER_ATTRIBUTE);
+                }
+            }
         }
     }
 
@@ -764,7 +1002,18 @@ public class DispatcherServlet extends FrameworkServlet {
             }
             else {
                 Object handler = (mappedHandler != null ? mappedHandler.getHandler() : null);
-                mv = processHandlerException(request, response, handler, exception);
+                DispatchMetrics.Recorder recorder = getDispatchRecorder(request);
+                if (recorder != null) {
+                    recorder.begin();
+                }
+                try {
+                    mv = processHandlerException(request, response, handler, exception);
+                }
+                finally {
+                    if (recorder != null) {
+                        recorder.end(DispatchMetrics.Phase.EXCEPTION_HANDLING);
+                    }
+                }
                 errorView = (mv != null);
             }
         }
@@ -946,11 +1195,23 @@ public class DispatcherServlet extends FrameworkServlet {
                 (this.localeResolver != null ? this.localeResolver.resolveLocale(request) : request.getLocale());
         response.setLocale(locale);
 
+        DispatchMetrics.Recorder recorder = getDispatchRecorder(request);
+
         View view;
         String viewName = mv.getViewName();
         if (viewName != null) {
             // We need to resolve the view name.
-            view = resolveViewName(viewName, mv.getModelInternal(), locale, request);
+            if (recorder != null) {
+                recorder.begin();
+            }
+            try {
+                view = resolveViewName(viewName, mv.getModelInternal(), locale, request);
+            }
+            finally {
+                if (recorder != null) {
+                    recorder.end(DispatchMetrics.Phase.VIEW_RESOLUTION);
+                }
+            }
             if (view == null) {
                 throw new ServletException("Could not resolve view with name '" + mv.getViewName() +
                         "' in servlet with name '" + getServletName() + "'");
@@ -973,7 +1234,17 @@ public class DispatcherServlet extends FrameworkServlet {
             if (mv.getStatus() != null) {
                 response.setStatus(mv.getStatus().value());
             }
-            view.render(mv.getModelInternal(), request, response);
+            if (recorder != null) {
+                recorder.begin();
+            }
+            try {
+                view.render(mv.getModelInternal(), request, response);
+            }
+            finally {
+                if (recorder != null) {
+                    recorder.end(DispatchMetrics.Phase.RENDER);
+                }
+            }
         }
         catch (Exception ex) {
             if (logger.isDebugEnabled()) {
@@ -1005,6 +1276,12 @@ public class DispatcherServlet extends FrameworkServlet {
         return null;
     }
 
+    @Nullable
+    private DispatchMetrics.Recorder getDispatchRecorder(HttpServletRequest request) {
+        return (this.dispatchMetrics != null ?
+                (DispatchMetrics.Recorder) request.getAttribute(DISPATCH_RECORDER_ATTRIBUTE) : null);
+    }
+
     private void triggerAfterCompletion(HttpServletRequest request, HttpServletResponse response,
                                         @Nullable HandlerExecutionChain mappedHandler, Exception ex) throws Exception {
 
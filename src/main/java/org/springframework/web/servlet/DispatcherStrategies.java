@@ -0,0 +1,98 @@
+package org.springframework.web.servlet;
+
+import org.springframework.lang.Nullable;
+import org.springframework.ui.context.ThemeSource;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holder for the framework objects that the {@link DispatcherServlet} makes
+ * available to handlers and views, exposed as a single request attribute
+ * instead of one attribute each.
+ * @see DispatcherServlet#STRATEGIES_ATTRIBUTE
+ * @see DispatcherServlet#setExposeStrategiesAsHolder
+ */
+public final class DispatcherStrategies {
+
+    /** The request attribute names that this holder stands in for. */
+    static final List<String> ATTRIBUTE_NAMES = Collections.unmodifiableList(Arrays.asList(
+            DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE, DispatcherServlet.LOCALE_RESOLVER_ATTRIBUTE,
+            DispatcherServlet.THEME_RESOLVER_ATTRIBUTE, DispatcherServlet.THEME_SOURCE_ATTRIBUTE));
+
+    @Nullable
+    private final WebApplicationContext webApplicationContext;
+
+    @Nullable
+    private final LocaleResolver localeResolver;
+
+    @Nullable
+    private final ThemeResolver themeResolver;
+
+    @Nullable
+    private final ThemeSource themeSource;
+
+
+    public DispatcherStrategies(@Nullable WebApplicationContext webApplicationContext,
+            @Nullable LocaleResolver localeResolver, @Nullable ThemeResolver themeResolver,
+            @Nullable ThemeSource themeSource) {
+
+        this.webApplicationContext = webApplicationContext;
+        this.localeResolver = localeResolver;
+        this.themeResolver = themeResolver;
+        this.themeSource = themeSource;
+    }
+
+
+    @Nullable
+    public WebApplicationContext getWebApplicationContext() {
+        return this.webApplicationContext;
+    }
+
+    @Nullable
+    public LocaleResolver getLocaleResolver() {
+        return this.localeResolver;
+    }
+
+    @Nullable
+    public ThemeResolver getThemeResolver() {
+        return this.themeResolver;
+    }
+
+    @Nullable
+    public ThemeSource getThemeSource() {
+        return this.themeSource;
+    }
+
+    /**
+     * Whether the given request attribute name is one of those that this
+     * holder stands in for.
+     */
+    public static boolean isStrategyAttribute(String name) {
+        return ATTRIBUTE_NAMES.contains(name);
+    }
+
+    /**
+     * Return the object that the {@link DispatcherServlet} would otherwise
+     * expose under the given request attribute name, if any.
+     */
+    @Nullable
+    public Object getAttribute(String name) {
+        if (DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE.equals(name)) {
+            return this.webApplicationContext;
+        }
+        else if (DispatcherServlet.LOCALE_RESOLVER_ATTRIBUTE.equals(name)) {
+            return this.localeResolver;
+        }
+        else if (DispatcherServlet.THEME_RESOLVER_ATTRIBUTE.equals(name)) {
+            return this.themeResolver;
+        }
+        else if (DispatcherServlet.THEME_SOURCE_ATTRIBUTE.equals(name)) {
+            return this.themeSource;
+        }
+        return null;
+    }
+
+}
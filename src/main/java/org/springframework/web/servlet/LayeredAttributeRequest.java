@@ -0,0 +1,186 @@
+package org.springframework.web.servlet;
+
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Request wrapper used by the {@link DispatcherServlet} that layers attribute
+ * changes over the wrapped request.
+ *
+ * <p>With a journal, the first change to each journaled attribute made through
+ * this wrapper records the prior value, so that {@link #restoreAttributes()}
+ * can roll back exactly what was changed, e.g. during an include, without a
+ * snapshot of all attributes up front. With {@link DispatcherStrategies}, the
+ * attributes that they stand in for are answered from the holder.
+ *
+ * <p>Changes only go through the wrapper if code sees the wrapper: the
+ * {@link DispatcherServlet} therefore also binds it as the request of the
+ * current {@link RequestAttributes}, see {@link #bind}.
+ */
+class LayeredAttributeRequest extends HttpServletRequestWrapper {
+
+    @Nullable
+    private final Predicate<String> journaledNames;
+
+    @Nullable
+    private final DispatcherStrategies strategies;
+
+    @Nullable
+    private Map<String, Object> priorValues;
+
+
+    /**
+     * Create a new wrapper.
+     * @param request the request to wrap
+     * @param journaledNames which attribute names to journal changes for,
+     * or {@code null} for no journal
+     * @param strategies the holder to answer framework attributes from, if any
+     */
+    LayeredAttributeRequest(HttpServletRequest request, @Nullable Predicate<String> journaledNames,
+            @Nullable DispatcherStrategies strategies) {
+
+        super(request);
+        this.journaledNames = journaledNames;
+        this.strategies = strategies;
+    }
+
+
+    @Override
+    @Nullable
+    public Object getAttribute(String name) {
+        if (this.strategies != null && DispatcherStrategies.isStrategyAttribute(name)) {
+            return this.strategies.getAttribute(name);
+        }
+        return super.getAttribute(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        if (this.strategies == null) {
+            return super.getAttributeNames();
+        }
+        Set<String> names = new LinkedHashSet<>(Collections.list(super.getAttributeNames()));
+        names.removeIf(DispatcherStrategies::isStrategyAttribute);
+        for (String name : DispatcherStrategies.ATTRIBUTE_NAMES) {
+            if (this.strategies.getAttribute(name) != null) {
+                names.add(name);
+            }
+        }
+        return Collections.enumeration(names);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        recordPriorValue(name);
+        super.setAttribute(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        recordPriorValue(name);
+        super.removeAttribute(name);
+    }
+
+    private void recordPriorValue(String name) {
+        if (this.journaledNames == null || !this.journaledNames.test(name)) {
+            return;
+        }
+        if (this.priorValues == null) {
+            this.priorValues = new LinkedHashMap<>();
+        }
+        else if (this.priorValues.containsKey(name)) {
+            return;
+        }
+        this.priorValues.put(name, super.getAttribute(name));
+    }
+
+    /**
+     * Roll back the journaled attributes of the wrapped request to the values
+     * they had before their first change through this wrapper.
+     */
+    void restoreAttributes() {
+        if (this.priorValues == null) {
+            return;
+        }
+        for (Map.Entry<String, Object> entry : this.priorValues.entrySet()) {
+            Object priorValue = entry.getValue();
+            if (priorValue == null) {
+                getRequest().removeAttribute(entry.getKey());
+            }
+            else if (priorValue != getRequest().getAttribute(entry.getKey())) {
+                getRequest().setAttribute(entry.getKey(), priorValue);
+            }
+        }
+        this.priorValues = null;
+    }
+
+    /**
+     * Return {@link RequestAttributes} that access request attributes through
+     * this wrapper, e.g. for request-scoped beans, and leave session attributes
+     * and destruction callbacks to the given ones, which stay responsible for
+     * completing the request.
+     */
+    ServletRequestAttributes bind(ServletRequestAttributes outerAttributes) {
+        return new BoundRequestAttributes(this, outerAttributes);
+    }
+
+
+    private static final class BoundRequestAttributes extends ServletRequestAttributes {
+
+        private final ServletRequestAttributes outerAttributes;
+
+        BoundRequestAttributes(HttpServletRequest request, ServletRequestAttributes outerAttributes) {
+            super(request, outerAttributes.getResponse());
+            this.outerAttributes = outerAttributes;
+        }
+
+        @Override
+        public Object getAttribute(String name, int scope) {
+            return (scope == SCOPE_REQUEST ? super.getAttribute(name, scope) :
+                    this.outerAttributes.getAttribute(name, scope));
+        }
+
+        @Override
+        public void setAttribute(String name, Object value, int scope) {
+            if (scope == SCOPE_REQUEST) {
+                super.setAttribute(name, value, scope);
+            }
+            else {
+                this.outerAttributes.setAttribute(name, value, scope);
+            }
+        }
+
+        @Override
+        public void removeAttribute(String name, int scope) {
+            if (scope == SCOPE_REQUEST) {
+                super.removeAttribute(name, scope);
+            }
+            else {
+                this.outerAttributes.removeAttribute(name, scope);
+            }
+        }
+
+        @Override
+        public String[] getAttributeNames(int scope) {
+            return (scope == SCOPE_REQUEST ? super.getAttributeNames(scope) :
+                    this.outerAttributes.getAttributeNames(scope));
+        }
+
+        @Override
+        public void registerDestructionCallback(String name, Runnable callback, int scope) {
+            this.outerAttributes.registerDestructionCallback(name, callback, scope);
+        }
+    }
+
+}
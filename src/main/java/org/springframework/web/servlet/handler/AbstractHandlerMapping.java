@@ -25,9 +25,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport implements
         HandlerMapping, Ordered, BeanNameAware {
+
+    private static final HandlerInterceptor[] NO_INTERCEPTORS = new HandlerInterceptor[0];
+
+    private static final int INTERCEPTOR_CACHE_LIMIT = 1024;
+
     @Nullable
     private Object defaultHandler;
     private UrlPathHelper urlPathHelper = new UrlPathHelper();
@@ -35,6 +41,19 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
     private final List<Object> interceptors = new ArrayList<>();
     private final List<HandlerInterceptor> adaptedInterceptors = new ArrayList<>();
 
+    /** Whether any adapted interceptor is a {@link MappedInterceptor}. */
+    private boolean hasMappedInterceptors = false;
+
+    /** The interceptors for every request, if none is mapped by path. */
+    @Nullable
+    private HandlerInterceptor[] commonInterceptors;
+
+    /** Whether the path matcher matches like {@link AntPathPattern compiled patterns}. */
+    private boolean compiledPathMatching = true;
+
+    /** Matching interceptors per best matching pattern, if some are mapped by path. */
+    private final Map<String, PatternInterceptors> interceptorsByPattern = new ConcurrentHashMap<>(256);
+
     @Nullable
     private CorsConfigurationSource corsConfigurationSource;
     private CorsProcessor corsProcessor = new DefaultCorsProcessor();
@@ -85,6 +104,8 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
     public void setPathMatcher(PathMatcher pathMatcher) {
         Assert.notNull(pathMatcher, "PathMatcher must not be null");
         this.pathMatcher = pathMatcher;
+        this.compiledPathMatching = AntPathPattern.isEquivalent(pathMatcher);
+        this.interceptorsByPattern.clear();
         if (this.corsConfigurationSource instanceof UrlBasedCorsConfigurationSource) {
             ((UrlBasedCorsConfigurationSource) this.corsConfigurationSource).setPathMatcher(pathMatcher);
         }
@@ -148,6 +169,7 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
         extendInterceptors(this.interceptors);
         detectMappedInterceptors(this.adaptedInterceptors);
         initInterceptors();
+        initInterceptorChains();
     }
     protected void extendInterceptors(List<Object> interceptors) {
     }
@@ -168,6 +190,19 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
             }
         }
     }
+    /**
+     * Prepare the interceptor arrays handed to each {@link HandlerExecutionChain}:
+     * a single array if no interceptor is mapped by path, or else one per best
+     * matching pattern, computed on first use.
+     */
+    private void initInterceptorChains() {
+        this.compiledPathMatching = AntPathPattern.isEquivalent(this.pathMatcher);
+        this.interceptorsByPattern.clear();
+        this.hasMappedInterceptors = this.adaptedInterceptors.stream()
+                .anyMatch(interceptor -> interceptor instanceof MappedInterceptor);
+        this.commonInterceptors = (this.hasMappedInterceptors ? null : getAdaptedInterceptors());
+    }
+
     protected HandlerInterceptor adaptInterceptor(Object interceptor) {
         if (interceptor instanceof HandlerInterceptor) {
             return (HandlerInterceptor) interceptor;
@@ -231,23 +266,87 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
     protected abstract Object getHandlerInternal(HttpServletRequest request) throws Exception;
 
     protected HandlerExecutionChain getHandlerExecutionChain(Object handler, HttpServletRequest request) {
-        HandlerExecutionChain chain = (handler instanceof HandlerExecutionChain ?
-                (HandlerExecutionChain) handler : new HandlerExecutionChain(handler));
-
         String lookupPath = this.urlPathHelper.getLookupPathForRequest(request, LOOKUP_PATH);
+        HandlerInterceptor[] interceptors = getInterceptors(lookupPath, request);
+        if (handler instanceof HandlerExecutionChain) {
+            HandlerExecutionChain chain = (HandlerExecutionChain) handler;
+            chain.addInterceptors(interceptors);
+            return chain;
+        }
+        // The chain copies the array before any modification, so it can be shared.
+        return new HandlerExecutionChain(handler, interceptors);
+    }
+
+    @Nullable
+    private HandlerInterceptor[] getInterceptors(String lookupPath, HttpServletRequest request) {
+        if (!this.hasMappedInterceptors) {
+            return this.commonInterceptors;
+        }
+        HandlerInterceptor[] interceptors = null;
+        Object bestPattern = request.getAttribute(BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (this.compiledPathMatching && bestPattern instanceof String) {
+            PatternInterceptors patternInterceptors = this.interceptorsByPattern.get(bestPattern);
+            if (patternInterceptors == null) {
+                patternInterceptors = new PatternInterceptors(new AntPathPattern((String) bestPattern));
+                if (this.interceptorsByPattern.size() < INTERCEPTOR_CACHE_LIMIT) {
+                    this.interceptorsByPattern.put((String) bestPattern, patternInterceptors);
+                }
+            }
+            // The attribute may be left over from an earlier dispatch, e.g. before a forward.
+            if (patternInterceptors.pattern.matches(lookupPath)) {
+                interceptors = patternInterceptors.interceptors;
+            }
+        }
+        if (interceptors == null) {
+            interceptors = matchInterceptors(lookupPath);
+        }
+        return (interceptors.length > 0 ? interceptors : null);
+    }
+
+    private HandlerInterceptor[] matchInterceptors(String lookupPath) {
+        List<HandlerInterceptor> interceptors = new ArrayList<>(this.adaptedInterceptors.size());
         for (HandlerInterceptor interceptor : this.adaptedInterceptors) {
             if (interceptor instanceof MappedInterceptor) {
                 MappedInterceptor mappedInterceptor = (MappedInterceptor) interceptor;
-                if (mappedInterceptor.matches(lookupPath, this.pathMatcher)) {
-                    chain.addInterceptor(mappedInterceptor.getInterceptor());
+                boolean matches = (this.compiledPathMatching && mappedInterceptor.getPathMatcher() == null ?
+                        mappedInterceptor.matches(lookupPath) : mappedInterceptor.matches(lookupPath, this.pathMatcher));
+                if (matches) {
+                    interceptors.add(mappedInterceptor.getInterceptor());
                 }
             }
             else {
-                chain.addInterceptor(interceptor);
+                interceptors.add(interceptor);
             }
         }
-        return chain;
+        return (interceptors.isEmpty() ? NO_INTERCEPTORS : interceptors.toArray(NO_INTERCEPTORS));
+    }
+
+    /**
+     * Return the interceptors for every path the given pattern matches, or
+     * {@code null} if some mapped interceptor applies to only some of them.
+     */
+    @Nullable
+    private HandlerInterceptor[] planInterceptors(AntPathPattern pattern) {
+        List<HandlerInterceptor> interceptors = new ArrayList<>(this.adaptedInterceptors.size());
+        for (HandlerInterceptor interceptor : this.adaptedInterceptors) {
+            if (interceptor instanceof MappedInterceptor) {
+                MappedInterceptor mappedInterceptor = (MappedInterceptor) interceptor;
+                Boolean matches = (mappedInterceptor.getPathMatcher() == null ?
+                        mappedInterceptor.matchesAllOrNone(pattern) : null);
+                if (matches == null) {
+                    return null;
+                }
+                if (matches) {
+                    interceptors.add(mappedInterceptor.getInterceptor());
+                }
+            }
+            else {
+                interceptors.add(interceptor);
+            }
+        }
+        return (interceptors.isEmpty() ? NO_INTERCEPTORS : interceptors.toArray(NO_INTERCEPTORS));
     }
+
     protected boolean hasCorsConfigurationSource(Object handler) {
         return (handler instanceof CorsConfigurationSource || this.corsConfigurationSource != null);
     }
@@ -320,4 +419,21 @@ public abstract class AbstractHandlerMapping extends WebApplicationObjectSupport
     }
 
 
+    /**
+     * The compiled form of a best matching pattern, with the interceptors for
+     * all paths it matches if they do not depend on the path.
+     */
+    private final class PatternInterceptors {
+
+        final AntPathPattern pattern;
+
+        @Nullable
+        final HandlerInterceptor[] interceptors;
+
+        PatternInterceptors(AntPathPattern pattern) {
+            this.pattern = pattern;
+            this.interceptors = planInterceptors(pattern);
+        }
+    }
+
 }
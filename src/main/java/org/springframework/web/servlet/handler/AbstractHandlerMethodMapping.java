@@ -10,6 +10,7 @@ import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsUtils;
 import org.springframework.web.method.HandlerMethod;
@@ -19,7 +20,7 @@ import javax.servlet.http.HttpServletRequest;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -39,6 +40,13 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
     private HandlerMethodMappingNamingStrategy<T> namingStrategy;
 
     private final MappingRegistry mappingRegistry = new MappingRegistry();
+
+    private int resolutionCacheLimit = 0;
+
+    private final LongAdder resolutionCacheHits = new LongAdder();
+
+    private final LongAdder resolutionCacheMisses = new LongAdder();
+
     public void setDetectHandlerMethodsInAncestorContexts(boolean detectHandlerMethodsInAncestorContexts) {
         this.detectHandlerMethodsInAncestorContexts = detectHandlerMethodsInAncestorContexts;
     }
@@ -51,14 +59,31 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
         return this.namingStrategy;
     }
 
+    /**
+     * Set the maximum number of resolved lookups to cache, keyed by the
+     * {@link #getResolutionCacheKey request signature}. Only lookups whose
+     * candidate mappings are all {@link #isResolutionCacheable cacheable} are
+     * stored; the cache is dropped whenever mappings are registered or removed.
+     * <p>Default is 0, i.e. no caching.
+     */
+    public void setResolutionCacheLimit(int resolutionCacheLimit) {
+        this.resolutionCacheLimit = resolutionCacheLimit;
+    }
+
+    public int getResolutionCacheLimit() {
+        return this.resolutionCacheLimit;
+    }
+
+    public long getResolutionCacheHitCount() {
+        return this.resolutionCacheHits.sum();
+    }
+
+    public long getResolutionCacheMissCount() {
+        return this.resolutionCacheMisses.sum();
+    }
+
     public Map<T, HandlerMethod> getHandlerMethods() {
-        this.mappingRegistry.acquireReadLock();
-        try {
-            return Collections.unmodifiableMap(this.mappingRegistry.getMappings());
-        }
-        finally {
-            this.mappingRegistry.releaseReadLock();
-        }
+        return this.mappingRegistry.getMappings();
     }
 
     @Nullable
@@ -87,11 +112,18 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
     }
 
     protected void initHandlerMethods() {
-        for (String beanName : getCandidateBeanNames()) {
-            if (!beanName.startsWith(SCOPED_TARGET_NAME_PREFIX)) {
-                processCandidateBean(beanName);
+        // Publish a single registry snapshot for all detected handler methods.
+        this.mappingRegistry.deferPublication();
+        try {
+            for (String beanName : getCandidateBeanNames()) {
+                if (!beanName.startsWith(SCOPED_TARGET_NAME_PREFIX)) {
+                    processCandidateBean(beanName);
+                }
             }
         }
+        finally {
+            this.mappingRegistry.resumePublication();
+        }
         handlerMethodsInitialized(getHandlerMethods());
     }
     protected String[] getCandidateBeanNames() {
@@ -185,30 +217,46 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
     protected HandlerMethod getHandlerInternal(HttpServletRequest request) throws Exception {
         String lookupPath = getUrlPathHelper().getLookupPathForRequest(request);
         request.setAttribute(LOOKUP_PATH, lookupPath);
-        this.mappingRegistry.acquireReadLock();
-        try {
-            HandlerMethod handlerMethod = lookupHandlerMethod(lookupPath, request);
-            return (handlerMethod != null ? handlerMethod.createWithResolvedBean() : null);
-        }
-        finally {
-            this.mappingRegistry.releaseReadLock();
-        }
+        HandlerMethod handlerMethod = lookupHandlerMethod(lookupPath, request);
+        return (handlerMethod != null ? handlerMethod.createWithResolvedBean() : null);
     }
     @Nullable
     protected HandlerMethod lookupHandlerMethod(String lookupPath, HttpServletRequest request) throws Exception {
+        // A single volatile read: the whole lookup runs against one consistent snapshot.
+        MappingSnapshot snapshot = this.mappingRegistry.getSnapshot();
+        if (!snapshot.isIndexedFor(getPathMatcher())) {
+            // The PathMatcher was replaced after registration.
+            snapshot = this.mappingRegistry.reindex();
+        }
+        String cacheKey = null;
+        if (this.resolutionCacheLimit > 0 && !CorsUtils.isPreFlightRequest(request)) {
+            cacheKey = getResolutionCacheKey(request, lookupPath);
+            ResolvedMatch resolved = snapshot.getResolvedMatch(cacheKey);
+            if (resolved != null) {
+                this.resolutionCacheHits.increment();
+                request.setAttribute(BEST_MATCHING_HANDLER_ATTRIBUTE, resolved.handlerMethod);
+                handleMatch(resolved.mapping, lookupPath, new LinkedHashMap<>(resolved.uriVariables), request);
+                return resolved.handlerMethod;
+            }
+            this.resolutionCacheMisses.increment();
+        }
+
         List<Match> matches = new ArrayList<>();
-        List<T> directPathMatches = this.mappingRegistry.getMappingsByUrl(lookupPath);
+        boolean cacheable = (cacheKey != null);
+        List<T> directPathMatches = snapshot.getMappingsByUrl(lookupPath);
         if (directPathMatches != null) {
-            addMatchingMappings(directPathMatches, matches, request);
+            addMatchingMappings(directPathMatches, matches, request, snapshot);
+            cacheable = cacheable && isResolutionCacheable(directPathMatches);
         }
         if (matches.isEmpty()) {
-            // No choice but to go through all mappings...
-            addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+            // Only go through the mappings whose patterns may match the lookup path...
+            Set<T> candidates = snapshot.getMappingsByPattern(lookupPath);
+            addMatchingMappings(candidates, matches, request, snapshot);
+            cacheable = cacheable && isResolutionCacheable(candidates);
         }
 
         if (!matches.isEmpty()) {
             Comparator<Match> comparator = new MatchComparator(getMappingComparator(request));
-            matches.sort(comparator);
             Match bestMatch = matches.get(0);
             if (matches.size() > 1) {
                 if (logger.isTraceEnabled()) {
@@ -217,7 +265,18 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
                 if (CorsUtils.isPreFlightRequest(request)) {
                     return PREFLIGHT_AMBIGUOUS_MATCH;
                 }
-                Match secondBestMatch = matches.get(1);
+                // Single pass for the two best matches instead of sorting all of them.
+                Match secondBestMatch = null;
+                for (int i = 1; i < matches.size(); i++) {
+                    Match match = matches.get(i);
+                    if (comparator.compare(match, bestMatch) < 0) {
+                        secondBestMatch = bestMatch;
+                        bestMatch = match;
+                    }
+                    else if (secondBestMatch == null || comparator.compare(match, secondBestMatch) < 0) {
+                        secondBestMatch = match;
+                    }
+                }
                 if (comparator.compare(bestMatch, secondBestMatch) == 0) {
                     Method m1 = bestMatch.handlerMethod.getMethod();
                     Method m2 = secondBestMatch.handlerMethod.getMethod();
@@ -227,21 +286,76 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
                 }
             }
             request.setAttribute(BEST_MATCHING_HANDLER_ATTRIBUTE, bestMatch.handlerMethod);
-            handleMatch(bestMatch.mapping, lookupPath, request);
+            Map<String, String> uriVariables = extractUriTemplateVariables(bestMatch.mapping, lookupPath);
+            if (cacheable) {
+                snapshot.putResolvedMatch(cacheKey, new ResolvedMatch(bestMatch.mapping, bestMatch.handlerMethod,
+                        Collections.unmodifiableMap(new LinkedHashMap<>(uriVariables))), this.resolutionCacheLimit);
+            }
+            handleMatch(bestMatch.mapping, lookupPath, uriVariables, request);
             return bestMatch.handlerMethod;
         }
         else {
-            return handleNoMatch(this.mappingRegistry.getMappings().keySet(), lookupPath, request);
+            return handleNoMatch(snapshot.getMappings().keySet(), lookupPath, request);
         }
     }
-    private void addMatchingMappings(Collection<T> mappings, List<Match> matches, HttpServletRequest request) {
+    private void addMatchingMappings(Collection<T> mappings, List<Match> matches, HttpServletRequest request,
+                                     MappingSnapshot snapshot) {
         for (T mapping : mappings) {
             T match = getMatchingMapping(mapping, request);
             if (match != null) {
-                matches.add(new Match(match, this.mappingRegistry.getMappings().get(mapping)));
+                matches.add(new Match(match, snapshot.getMappings().get(mapping)));
             }
         }
     }
+    private boolean isResolutionCacheable(Collection<T> mappings) {
+        for (T mapping : mappings) {
+            if (!isResolutionCacheable(mapping)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the signature under which the outcome of a lookup is cached.
+     * Two requests with the same key must select the same handler method for
+     * every {@link #isResolutionCacheable cacheable} mapping.
+     * <p>The default implementation combines the HTTP method and lookup path.
+     */
+    protected String getResolutionCacheKey(HttpServletRequest request, String lookupPath) {
+        return request.getMethod() + " " + lookupPath;
+    }
+
+    /**
+     * Whether lookups involving the given mapping may be served from the
+     * resolution cache, i.e. whether matching it depends on nothing beyond
+     * what {@link #getResolutionCacheKey} captures.
+     * <p>The default implementation returns {@code false}.
+     */
+    protected boolean isResolutionCacheable(T mapping) {
+        return false;
+    }
+
+    /**
+     * Extract the URI template variables for the given matching mapping,
+     * to be passed into {@link #handleMatch(Object, String, Map, HttpServletRequest)}.
+     * <p>The default implementation returns an empty map.
+     */
+    protected Map<String, String> extractUriTemplateVariables(T mapping, String lookupPath) {
+        return new LinkedHashMap<>();
+    }
+
+    /**
+     * Invoked when a matching mapping is found, with its URI template variables
+     * already extracted (possibly taken from the resolution cache).
+     * <p>The default implementation delegates to {@link #handleMatch(Object, String, HttpServletRequest)}.
+     */
+    protected void handleMatch(T mapping, String lookupPath, Map<String, String> uriVariables,
+                               HttpServletRequest request) {
+
+        handleMatch(mapping, lookupPath, request);
+    }
+
     protected void handleMatch(T mapping, String lookupPath, HttpServletRequest request) {
         request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, lookupPath);
     }
@@ -287,6 +401,11 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
     protected abstract Comparator<T> getMappingComparator(HttpServletRequest request);
 
+    /**
+     * Registry of mappings, kept copy-on-write: modifications happen under the
+     * registry monitor on a private working copy, after which an immutable
+     * {@link MappingSnapshot} is published for lock-free request lookups.
+     */
     class MappingRegistry {
         private final Map<T, MappingRegistration<T>> registry = new HashMap<>();
 
@@ -294,20 +413,46 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
         private final MultiValueMap<String, T> urlLookup = new LinkedMultiValueMap<>();
 
+        private PathPatternTrie<T> patternLookup = new PathPatternTrie<>();
+
+        /** The PathMatcher that {@link #patternLookup} was built for. */
+        @Nullable
+        private PathMatcher indexedPathMatcher;
+
+        /** Whether that PathMatcher matches like the trie predicts. */
+        private boolean patternIndexUsable;
+
         private final Map<String, List<HandlerMethod>> nameLookup = new ConcurrentHashMap<>();
 
         private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
 
-        private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+        private volatile MappingSnapshot snapshot = new MappingSnapshot();
+
+        private int deferredPublications = 0;
 
 
+        /**
+         * Return the currently published, immutable view of all mappings.
+         */
+        public MappingSnapshot getSnapshot() {
+            return this.snapshot;
+        }
+
         public Map<T, HandlerMethod> getMappings() {
-            return this.mappingLookup;
+            return this.snapshot.getMappings();
         }
 
         @Nullable
         public List<T> getMappingsByUrl(String urlPath) {
-            return this.urlLookup.get(urlPath);
+            return this.snapshot.getMappingsByUrl(urlPath);
+        }
+
+        /**
+         * Return the mappings whose patterns may match the given lookup path,
+         * narrowed down through the pattern trie built on registration.
+         */
+        public Set<T> getMappingsByPattern(String lookupPath) {
+            return this.snapshot.getMappingsByPattern(lookupPath);
         }
 
 
@@ -322,22 +467,65 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
         }
 
 
-        public void acquireReadLock() {
-            this.readWriteLock.readLock().lock();
+        /**
+         * Hold back snapshot publication for a batch of registrations,
+         * until the matching {@link #resumePublication()} call.
+         */
+        public synchronized void deferPublication() {
+            this.deferredPublications++;
+        }
+
+        public synchronized void resumePublication() {
+            Assert.state(this.deferredPublications > 0, "Snapshot publication not deferred");
+            this.deferredPublications--;
+            publishSnapshot();
+        }
+
+        private void publishSnapshot() {
+            if (this.deferredPublications == 0) {
+                this.snapshot = new MappingSnapshot(this.mappingLookup, this.urlLookup, this.patternLookup,
+                        this.indexedPathMatcher);
+            }
+        }
+
+        /**
+         * Rebuild the pattern trie for the current PathMatcher, if it was
+         * built for another one.
+         * @return the snapshot to use
+         */
+        synchronized MappingSnapshot reindex() {
+            if (this.indexedPathMatcher != getPathMatcher()) {
+                try {
+                    updatePatternIndex();
+                }
+                finally {
+                    publishSnapshot();
+                }
+            }
+            return this.snapshot;
         }
 
-        public void releaseReadLock() {
-            this.readWriteLock.readLock().unlock();
+        private void updatePatternIndex() {
+            PathMatcher pathMatcher = getPathMatcher();
+            if (this.indexedPathMatcher == pathMatcher) {
+                return;
+            }
+            this.indexedPathMatcher = pathMatcher;
+            this.patternIndexUsable = AntPathPattern.isEquivalent(pathMatcher);
+            this.patternLookup = new PathPatternTrie<>();
+            for (T mapping : this.mappingLookup.keySet()) {
+                addPatternLookup(mapping);
+            }
         }
 
-        public void register(T mapping, Object handler, Method method) {
+        public synchronized void register(T mapping, Object handler, Method method) {
             // Assert that the handler method is not a suspending one.
             //todo  注释掉 报错
 //            if (KotlinDetector.isKotlinType(method.getDeclaringClass()) && KotlinDelegate.isSuspend(method)) {
 //                throw new IllegalStateException("Unsupported suspending handler method detected: " + method);
 //            }
-            this.readWriteLock.writeLock().lock();
             try {
+                updatePatternIndex();
                 HandlerMethod handlerMethod = createHandlerMethod(handler, method);
                 validateMethodMapping(handlerMethod, mapping);
                 this.mappingLookup.put(mapping, handlerMethod);
@@ -346,6 +534,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
                 for (String url : directUrls) {
                     this.urlLookup.add(url, mapping);
                 }
+                addPatternLookup(mapping);
 
                 String name = null;
                 if (getNamingStrategy() != null) {
@@ -361,7 +550,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
                 this.registry.put(mapping, new MappingRegistration<>(mapping, handlerMethod, directUrls, name));
             }
             finally {
-                this.readWriteLock.writeLock().unlock();
+                publishSnapshot();
             }
         }
         private void validateMethodMapping(HandlerMethod handlerMethod, T mapping) {
@@ -384,6 +573,25 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
             return urls;
         }
 
+        private void addPatternLookup(T mapping) {
+            Set<String> patterns = getMappingPathPatterns(mapping);
+            if (patterns.isEmpty() || !this.patternIndexUsable) {
+                // Matches any path, or custom matching semantics the trie cannot predict.
+                this.patternLookup.addUnindexed(mapping);
+                return;
+            }
+            for (String pattern : patterns) {
+                this.patternLookup.add(pattern, mapping);
+            }
+        }
+
+        private void removePatternLookup(T mapping) {
+            this.patternLookup.removeUnindexed(mapping);
+            for (String pattern : getMappingPathPatterns(mapping)) {
+                this.patternLookup.remove(pattern, mapping);
+            }
+        }
+
         private void addMappingName(String name, HandlerMethod handlerMethod) {
             List<HandlerMethod> oldList = this.nameLookup.get(name);
             if (oldList == null) {
@@ -402,8 +610,7 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
             this.nameLookup.put(name, newList);
         }
 
-        public void unregister(T mapping) {
-            this.readWriteLock.writeLock().lock();
+        public synchronized void unregister(T mapping) {
             try {
                 MappingRegistration<T> definition = this.registry.remove(mapping);
                 if (definition == null) {
@@ -421,13 +628,14 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
                         }
                     }
                 }
+                removePatternLookup(definition.getMapping());
 
                 removeMappingName(definition);
 
                 this.corsLookup.remove(definition.getHandlerMethod());
             }
             finally {
-                this.readWriteLock.writeLock().unlock();
+                publishSnapshot();
             }
         }
         private void removeMappingName(MappingRegistration<T> definition) {
@@ -455,6 +663,105 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
     }
 
 
+    /**
+     * Immutable view of the registered mappings, as published by the
+     * {@link MappingRegistry} after each modification.
+     */
+    class MappingSnapshot {
+
+        private final Map<T, HandlerMethod> mappings;
+
+        private final Map<String, List<T>> urlLookup;
+
+        private final PathPatternTrie<T> patternLookup;
+
+        @Nullable
+        private final PathMatcher indexedPathMatcher;
+
+        /** Resolved lookups against this snapshot; discarded with it on the next modification. */
+        private final Map<String, ResolvedMatch> resolvedMatches = new ConcurrentHashMap<>();
+
+        MappingSnapshot() {
+            this.mappings = Collections.emptyMap();
+            this.urlLookup = Collections.emptyMap();
+            this.patternLookup = new PathPatternTrie<>();
+            this.indexedPathMatcher = null;
+        }
+
+        MappingSnapshot(Map<T, HandlerMethod> mappings, MultiValueMap<String, T> urlLookup,
+                        PathPatternTrie<T> patternLookup, @Nullable PathMatcher indexedPathMatcher) {
+
+            this.mappings = Collections.unmodifiableMap(new LinkedHashMap<>(mappings));
+            Map<String, List<T>> urls = new HashMap<>(urlLookup.size());
+            urlLookup.forEach((url, list) -> urls.put(url, Collections.unmodifiableList(new ArrayList<>(list))));
+            this.urlLookup = urls;
+            this.patternLookup = patternLookup.copy();
+            this.indexedPathMatcher = indexedPathMatcher;
+        }
+
+        /**
+         * Whether the pattern trie was built for the given PathMatcher, or
+         * there are no mappings to index.
+         */
+        boolean isIndexedFor(PathMatcher pathMatcher) {
+            return (this.indexedPathMatcher == pathMatcher || this.mappings.isEmpty());
+        }
+
+        public Map<T, HandlerMethod> getMappings() {
+            return this.mappings;
+        }
+
+        @Nullable
+        public List<T> getMappingsByUrl(String urlPath) {
+            return this.urlLookup.get(urlPath);
+        }
+
+        public Set<T> getMappingsByPattern(String lookupPath) {
+            if (!isIndexedFor(getPathMatcher())) {
+                // Publication deferred while the PathMatcher was replaced: go through all of them.
+                return this.mappings.keySet();
+            }
+            return this.patternLookup.getCandidates(lookupPath);
+        }
+
+        @Nullable
+        ResolvedMatch getResolvedMatch(String cacheKey) {
+            return this.resolvedMatches.get(cacheKey);
+        }
+
+        void putResolvedMatch(String cacheKey, ResolvedMatch resolvedMatch, int cacheLimit) {
+            if (this.resolvedMatches.size() >= cacheLimit) {
+                // Make room by evicting an arbitrary entry: the cache only needs to be bounded.
+                Iterator<String> it = this.resolvedMatches.keySet().iterator();
+                if (it.hasNext()) {
+                    this.resolvedMatches.remove(it.next());
+                }
+            }
+            this.resolvedMatches.put(cacheKey, resolvedMatch);
+        }
+    }
+
+
+    /**
+     * Cached outcome of a lookup: the best matching mapping, its handler method
+     * and the URI template variables extracted for the lookup path.
+     */
+    private class ResolvedMatch {
+
+        private final T mapping;
+
+        private final HandlerMethod handlerMethod;
+
+        private final Map<String, String> uriVariables;
+
+        public ResolvedMatch(T mapping, HandlerMethod handlerMethod, Map<String, String> uriVariables) {
+            this.mapping = mapping;
+            this.handlerMethod = handlerMethod;
+            this.uriVariables = uriVariables;
+        }
+    }
+
+
     private static class MappingRegistration<T> {
         private final T mapping;
 
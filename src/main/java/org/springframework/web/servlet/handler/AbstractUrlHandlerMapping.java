@@ -5,6 +5,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.PathMatcher;
 import org.springframework.web.servlet.HandlerExecutionChain;
 
 import javax.servlet.http.HttpServletRequest;
@@ -22,6 +23,11 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 
     private final Map<String, Object> handlerMap = new LinkedHashMap<>();
 
+    private boolean usePatternIndex = false;
+
+    @Nullable
+    private volatile PathPatternTrie<IndexedPattern> patternIndex;
+
     public void setRootHandler(@Nullable Object rootHandler) {
         this.rootHandler = rootHandler;
     }
@@ -34,6 +40,7 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 
     public void setUseTrailingSlashMatch(boolean useTrailingSlashMatch) {
         this.useTrailingSlashMatch = useTrailingSlashMatch;
+        this.patternIndex = null;
     }
     public boolean useTrailingSlashMatch() {
         return this.useTrailingSlashMatch;
@@ -43,6 +50,29 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
         this.lazyInitHandlers = lazyInitHandlers;
     }
 
+    /**
+     * Set whether to find matching patterns through a {@link PathPatternTrie}
+     * of {@link AntPathPattern compiled patterns}, rather than by trying every
+     * registered pattern with the {@link #getPathMatcher() PathMatcher}.
+     * Default is "false".
+     * <p>Only takes effect while the PathMatcher is
+     * {@link AntPathPattern#isEquivalent equivalent} to compiled patterns.
+     */
+    public void setUsePatternIndex(boolean usePatternIndex) {
+        this.usePatternIndex = usePatternIndex;
+        this.patternIndex = null;
+    }
+
+    public boolean isUsePatternIndex() {
+        return this.usePatternIndex;
+    }
+
+    @Override
+    public void setPathMatcher(PathMatcher pathMatcher) {
+        super.setPathMatcher(pathMatcher);
+        this.patternIndex = null;
+    }
+
     @Override
     @Nullable
     protected Object getHandlerInternal(HttpServletRequest request) throws Exception {
@@ -88,13 +118,33 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 
         // Pattern match?
         List<String> matchingPatterns = new ArrayList<>();
-        for (String registeredPattern : this.handlerMap.keySet()) {
-            if (getPathMatcher().match(registeredPattern, urlPath)) {
-                matchingPatterns.add(registeredPattern);
+        Map<String, AntPathPattern> compiledMatches = null;
+        PathPatternTrie<IndexedPattern> index = getPatternIndex();
+        if (index != null) {
+            compiledMatches = new HashMap<>();
+            // In registration order, as below: equally specific matches keep that order.
+            List<IndexedPattern> candidates = new ArrayList<>(index.getCandidates(urlPath));
+            candidates.sort(Comparator.comparingInt(candidate -> candidate.order));
+            for (IndexedPattern candidate : candidates) {
+                if (candidate.pattern.matches(urlPath)) {
+                    matchingPatterns.add(candidate.pattern.getPattern());
+                    compiledMatches.put(candidate.pattern.getPattern(), candidate.pattern);
+                }
+                else if (candidate.trailingSlashPattern != null && candidate.trailingSlashPattern.matches(urlPath)) {
+                    matchingPatterns.add(candidate.trailingSlashPattern.getPattern());
+                    compiledMatches.put(candidate.trailingSlashPattern.getPattern(), candidate.trailingSlashPattern);
+                }
             }
-            else if (useTrailingSlashMatch()) {
-                if (!registeredPattern.endsWith("/") && getPathMatcher().match(registeredPattern + "/", urlPath)) {
-                    matchingPatterns.add(registeredPattern + "/");
+        }
+        else {
+            for (String registeredPattern : this.handlerMap.keySet()) {
+                if (getPathMatcher().match(registeredPattern, urlPath)) {
+                    matchingPatterns.add(registeredPattern);
+                }
+                else if (useTrailingSlashMatch()) {
+                    if (!registeredPattern.endsWith("/") && getPathMatcher().match(registeredPattern + "/", urlPath)) {
+                        matchingPatterns.add(registeredPattern + "/");
+                    }
                 }
             }
         }
@@ -132,7 +182,9 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
             Map<String, String> uriTemplateVariables = new LinkedHashMap<>();
             for (String matchingPattern : matchingPatterns) {
                 if (patternComparator.compare(bestMatch, matchingPattern) == 0) {
-                    Map<String, String> vars = getPathMatcher().extractUriTemplateVariables(matchingPattern, urlPath);
+                    Map<String, String> vars = (compiledMatches != null ?
+                            compiledMatches.get(matchingPattern).extractUriTemplateVariables(urlPath) :
+                            getPathMatcher().extractUriTemplateVariables(matchingPattern, urlPath));
                     Map<String, String> decodedVars = getUrlPathHelper().decodePathVariables(request, vars);
                     uriTemplateVariables.putAll(decodedVars);
                 }
@@ -146,6 +198,33 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
         // No handler found...
         return null;
     }
+    /**
+     * Return the index of registered patterns, building it on first use,
+     * or {@code null} if not to be used.
+     */
+    @Nullable
+    private PathPatternTrie<IndexedPattern> getPatternIndex() {
+        PathPatternTrie<IndexedPattern> index = this.patternIndex;
+        if (index == null) {
+            if (!this.usePatternIndex || !AntPathPattern.isEquivalent(getPathMatcher())) {
+                return null;
+            }
+            synchronized (this.handlerMap) {
+                index = this.patternIndex;
+                if (index == null) {
+                    index = new PathPatternTrie<>();
+                    int order = 0;
+                    for (String registeredPattern : this.handlerMap.keySet()) {
+                        index.add(registeredPattern,
+                                new IndexedPattern(registeredPattern, order++, useTrailingSlashMatch()));
+                    }
+                    this.patternIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
     protected void validateHandler(Object handler, HttpServletRequest request) throws Exception {
     }
     protected Object buildPathExposingHandler(Object rawHandler, String bestMatchingPattern,
@@ -224,7 +303,11 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
                 setDefaultHandler(resolvedHandler);
             }
             else {
-                this.handlerMap.put(urlPath, resolvedHandler);
+                synchronized (this.handlerMap) {
+                    this.handlerMap.put(urlPath, resolvedHandler);
+                    // Rebuilt on next use: the index is not modified once published.
+                    this.patternIndex = null;
+                }
                 if (logger.isTraceEnabled()) {
                     logger.trace("Mapped [" + urlPath + "] onto " + getHandlerDescription(handler));
                 }
@@ -274,4 +357,27 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
             return true;
         }
     }
+
+
+    /**
+     * A registered pattern, compiled, plus its trailing slash variant if
+     * trailing slash matching applies, and its position in registration order.
+     */
+    private static final class IndexedPattern {
+
+        final AntPathPattern pattern;
+
+        final int order;
+
+        @Nullable
+        final AntPathPattern trailingSlashPattern;
+
+        IndexedPattern(String pattern, int order, boolean trailingSlashMatch) {
+            this.pattern = new AntPathPattern(pattern);
+            this.order = order;
+            this.trailingSlashPattern = (trailingSlashMatch && !pattern.endsWith("/") ?
+                    new AntPathPattern(pattern + "/") : null);
+        }
+    }
+
 }
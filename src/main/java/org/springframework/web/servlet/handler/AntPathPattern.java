@@ -0,0 +1,365 @@
+package org.springframework.web.servlet.handler;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.Assert;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ant-style path pattern that is tokenized once into segment matchers, and
+ * matches like a default {@link AntPathMatcher}: "/"-separated, case-sensitive,
+ * without trimming tokens.
+ *
+ * <p>Use {@link #isEquivalent(PathMatcher)} to check that a configured
+ * {@link PathMatcher} can be replaced by compiled patterns.
+ */
+public final class AntPathPattern {
+
+    private static final String PATH_SEPARATOR = "/";
+
+    private static final String DOUBLE_WILDCARD = "**";
+
+    private static final Pattern GLOB_PATTERN = Pattern.compile("\\?|\\*|\\{((?:\\{[^/]+?\\}|[^/{}]|\\\\[{}])+?)\\}");
+
+    private static final String DEFAULT_VARIABLE_PATTERN = "(.*)";
+
+
+    private final String pattern;
+
+    private final Segment[] segments;
+
+
+    public AntPathPattern(String pattern) {
+        Assert.notNull(pattern, "Pattern must not be null");
+        this.pattern = pattern;
+        String[] tokens = tokenize(pattern);
+        this.segments = new Segment[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            this.segments[i] = new Segment(tokens[i]);
+        }
+    }
+
+
+    /**
+     * Whether the given matcher matches like compiled patterns do: a plain
+     * {@link AntPathMatcher} that still has its default path separator,
+     * case sensitivity and token trimming.
+     */
+    public static boolean isEquivalent(PathMatcher pathMatcher) {
+        return (pathMatcher.getClass() == AntPathMatcher.class && !pathMatcher.match("*", "a/b") &&
+                !pathMatcher.match("a", "A") && !pathMatcher.match("a", " a"));
+    }
+
+    public String getPattern() {
+        return this.pattern;
+    }
+
+    /**
+     * Whether the given path matches this pattern, as
+     * {@link AntPathMatcher#match} would answer.
+     */
+    public boolean matches(String path) {
+        return doMatch(path, null);
+    }
+
+    /**
+     * Match the given path and extract the URI template variables.
+     * @return the variables, or {@code null} if the path does not match
+     */
+    @Nullable
+    public Map<String, String> matchAndExtract(String path) {
+        Map<String, String> variables = new LinkedHashMap<>();
+        return (doMatch(path, variables) ? variables : null);
+    }
+
+    /**
+     * Extract the URI template variables from the given path, as
+     * {@link AntPathMatcher#extractUriTemplateVariables} would.
+     * @throws IllegalStateException if the path does not match
+     */
+    public Map<String, String> extractUriTemplateVariables(String path) {
+        Map<String, String> variables = matchAndExtract(path);
+        if (variables == null) {
+            throw new IllegalStateException("Pattern \"" + this.pattern + "\" is not a match for \"" + path + "\"");
+        }
+        return variables;
+    }
+
+    /**
+     * Whether this pattern is known to match every path that the given pattern
+     * matches. {@code false} means it could not be told.
+     */
+    public boolean matchesAllOf(AntPathPattern other) {
+        if (this.pattern.equals(other.pattern)) {
+            return true;
+        }
+        // A literal prefix followed by "**", e.g. "/api/**"
+        int prefixLength = this.segments.length - 1;
+        if (prefixLength < 0 || !this.segments[prefixLength].doubleWildcard ||
+                isRooted() != other.isRooted() || other.segments.length < prefixLength) {
+            return false;
+        }
+        for (int i = 0; i < prefixLength; i++) {
+            if (this.segments[i].literal == null || !this.segments[i].literal.equals(other.segments[i].literal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether this pattern is known to match none of the paths that the given
+     * pattern matches. {@code false} means it could not be told.
+     */
+    public boolean matchesNoneOf(AntPathPattern other) {
+        if (isRooted() != other.isRooted()) {
+            return true;
+        }
+        // Up to the first "**", both patterns line up segment by segment.
+        int length = Math.min(this.segments.length, other.segments.length);
+        for (int i = 0; i < length; i++) {
+            Segment segment = this.segments[i];
+            Segment otherSegment = other.segments[i];
+            if (segment.doubleWildcard || otherSegment.doubleWildcard) {
+                return false;
+            }
+            if (segment.literal != null && otherSegment.literal != null && !segment.literal.equals(otherSegment.literal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isRooted() {
+        return this.pattern.startsWith(PATH_SEPARATOR);
+    }
+
+    /**
+     * The matching algorithm of {@link AntPathMatcher}, on the segments of
+     * this pattern.
+     */
+    private boolean doMatch(String path, @Nullable Map<String, String> variables) {
+        if (path.startsWith(PATH_SEPARATOR) != isRooted()) {
+            return false;
+        }
+        Segment[] pattDirs = this.segments;
+        String[] pathDirs = tokenize(path);
+        int pattIdxStart = 0;
+        int pattIdxEnd = pattDirs.length - 1;
+        int pathIdxStart = 0;
+        int pathIdxEnd = pathDirs.length - 1;
+
+        // Match all elements up to the first **
+        while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+            Segment pattDir = pattDirs[pattIdxStart];
+            if (pattDir.doubleWildcard) {
+                break;
+            }
+            if (!pattDir.matches(pathDirs[pathIdxStart], variables)) {
+                return false;
+            }
+            pattIdxStart++;
+            pathIdxStart++;
+        }
+
+        if (pathIdxStart > pathIdxEnd) {
+            // Path is exhausted, only match if rest of pattern is * or **'s
+            if (pattIdxStart > pattIdxEnd) {
+                return (this.pattern.endsWith(PATH_SEPARATOR) == path.endsWith(PATH_SEPARATOR));
+            }
+            if (pattIdxStart == pattIdxEnd && "*".equals(pattDirs[pattIdxStart].source) &&
+                    path.endsWith(PATH_SEPARATOR)) {
+                return true;
+            }
+            return isAllDoubleWildcards(pattIdxStart, pattIdxEnd);
+        }
+        else if (pattIdxStart > pattIdxEnd) {
+            // String not exhausted, but pattern is. Failure.
+            return false;
+        }
+
+        // up to last '**'
+        while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+            Segment pattDir = pattDirs[pattIdxEnd];
+            if (pattDir.doubleWildcard) {
+                break;
+            }
+            if (!pattDir.matches(pathDirs[pathIdxEnd], variables)) {
+                return false;
+            }
+            pattIdxEnd--;
+            pathIdxEnd--;
+        }
+        if (pathIdxStart > pathIdxEnd) {
+            // String is exhausted
+            return isAllDoubleWildcards(pattIdxStart, pattIdxEnd);
+        }
+
+        while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+            int patIdxTmp = -1;
+            for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
+                if (pattDirs[i].doubleWildcard) {
+                    patIdxTmp = i;
+                    break;
+                }
+            }
+            if (patIdxTmp == pattIdxStart + 1) {
+                // '**/**' situation, so skip one
+                pattIdxStart++;
+                continue;
+            }
+            // Find the pattern between padIdxStart & padIdxTmp in str between
+            // strIdxStart & strIdxEnd
+            int patLength = (patIdxTmp - pattIdxStart - 1);
+            int strLength = (pathIdxEnd - pathIdxStart + 1);
+            int foundIdx = -1;
+
+            strLoop:
+            for (int i = 0; i <= strLength - patLength; i++) {
+                for (int j = 0; j < patLength; j++) {
+                    Segment subPat = pattDirs[pattIdxStart + j + 1];
+                    String subStr = pathDirs[pathIdxStart + i + j];
+                    if (!subPat.matches(subStr, variables)) {
+                        continue strLoop;
+                    }
+                }
+                foundIdx = pathIdxStart + i;
+                break;
+            }
+
+            if (foundIdx == -1) {
+                return false;
+            }
+
+            pattIdxStart = patIdxTmp;
+            pathIdxStart = foundIdx + patLength;
+        }
+
+        return isAllDoubleWildcards(pattIdxStart, pattIdxEnd);
+    }
+
+    private boolean isAllDoubleWildcards(int start, int end) {
+        for (int i = start; i <= end; i++) {
+            if (!this.segments[i].doubleWildcard) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String[] tokenize(String path) {
+        return StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object other) {
+        return (this == other || (other instanceof AntPathPattern && this.pattern.equals(((AntPathPattern) other).pattern)));
+    }
+
+    @Override
+    public int hashCode() {
+        return this.pattern.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.pattern;
+    }
+
+
+    /**
+     * A single pattern segment: a literal, "**", or a regular expression
+     * built like {@code AntPathMatcher.AntPathStringMatcher} does.
+     */
+    private static final class Segment {
+
+        final String source;
+
+        final boolean doubleWildcard;
+
+        @Nullable
+        final String literal;
+
+        @Nullable
+        private final Pattern regex;
+
+        private final List<String> variableNames;
+
+        Segment(String source) {
+            this.source = source;
+            this.doubleWildcard = DOUBLE_WILDCARD.equals(source);
+            List<String> variableNames = new ArrayList<>();
+            StringBuilder patternBuilder = new StringBuilder();
+            Matcher matcher = GLOB_PATTERN.matcher(source);
+            int end = 0;
+            boolean glob = false;
+            while (matcher.find()) {
+                glob = true;
+                patternBuilder.append(quote(source, end, matcher.start()));
+                String match = matcher.group();
+                if ("?".equals(match)) {
+                    patternBuilder.append('.');
+                }
+                else if ("*".equals(match)) {
+                    patternBuilder.append(".*");
+                }
+                else if (match.startsWith("{") && match.endsWith("}")) {
+                    int colonIdx = match.indexOf(':');
+                    if (colonIdx == -1) {
+                        patternBuilder.append(DEFAULT_VARIABLE_PATTERN);
+                        variableNames.add(matcher.group(1));
+                    }
+                    else {
+                        String variablePattern = match.substring(colonIdx + 1, match.length() - 1);
+                        patternBuilder.append('(').append(variablePattern).append(')');
+                        variableNames.add(match.substring(1, colonIdx));
+                    }
+                }
+                end = matcher.end();
+            }
+            patternBuilder.append(quote(source, end, source.length()));
+            this.literal = (glob ? null : source);
+            this.regex = (glob ? Pattern.compile(patternBuilder.toString()) : null);
+            this.variableNames = (variableNames.isEmpty() ? Collections.emptyList() : variableNames);
+        }
+
+        private static String quote(String s, int start, int end) {
+            if (start == end) {
+                return "";
+            }
+            return Pattern.quote(s.substring(start, end));
+        }
+
+        boolean matches(String str, @Nullable Map<String, String> variables) {
+            if (this.regex == null) {
+                return str.equals(this.literal);
+            }
+            Matcher matcher = this.regex.matcher(str);
+            if (!matcher.matches()) {
+                return false;
+            }
+            if (variables != null) {
+                if (this.variableNames.size() != matcher.groupCount()) {
+                    throw new IllegalArgumentException("The number of capturing groups in the pattern segment " +
+                            this.regex + " does not match the number of URI template variables it defines, " +
+                            "which can occur if capturing groups are used in a URI template regex. " +
+                            "Use non-capturing groups instead.");
+                }
+                for (int i = 1; i <= matcher.groupCount(); i++) {
+                    variables.put(this.variableNames.get(i - 1), matcher.group(i));
+                }
+            }
+            return true;
+        }
+    }
+
+}
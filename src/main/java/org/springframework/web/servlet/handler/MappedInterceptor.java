@@ -20,6 +20,12 @@ public final class MappedInterceptor implements HandlerInterceptor {
 
     private final HandlerInterceptor interceptor;
 
+    /** The include patterns, compiled for matching like a default AntPathMatcher. */
+    private final AntPathPattern[] compiledIncludePatterns;
+
+    /** The exclude patterns, compiled for matching like a default AntPathMatcher. */
+    private final AntPathPattern[] compiledExcludePatterns;
+
     @Nullable
     private PathMatcher pathMatcher;
 
@@ -34,6 +40,19 @@ public final class MappedInterceptor implements HandlerInterceptor {
         this.includePatterns = includePatterns;
         this.excludePatterns = excludePatterns;
         this.interceptor = interceptor;
+        this.compiledIncludePatterns = compile(includePatterns);
+        this.compiledExcludePatterns = compile(excludePatterns);
+    }
+
+    private static AntPathPattern[] compile(@Nullable String[] patterns) {
+        if (ObjectUtils.isEmpty(patterns)) {
+            return new AntPathPattern[0];
+        }
+        AntPathPattern[] compiled = new AntPathPattern[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            compiled[i] = new AntPathPattern(patterns[i]);
+        }
+        return compiled;
     }
 
     public MappedInterceptor(@Nullable String[] includePatterns, WebRequestInterceptor interceptor) {
@@ -88,6 +107,59 @@ public final class MappedInterceptor implements HandlerInterceptor {
         return false;
     }
 
+    /**
+     * Variant of {@link #matches(String, PathMatcher)} on the compiled patterns,
+     * for when no {@link #setPathMatcher PathMatcher} is set here and the given
+     * one is {@link AntPathPattern#isEquivalent equivalent} to them.
+     */
+    boolean matches(String lookupPath) {
+        for (AntPathPattern pattern : this.compiledExcludePatterns) {
+            if (pattern.matches(lookupPath)) {
+                return false;
+            }
+        }
+        if (this.compiledIncludePatterns.length == 0) {
+            return true;
+        }
+        for (AntPathPattern pattern : this.compiledIncludePatterns) {
+            if (pattern.matches(lookupPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tell whether this interceptor applies to every path or to no path that
+     * the given handler pattern matches, on the compiled patterns.
+     * @return {@code TRUE} or {@code FALSE} if the same for all such paths,
+     * or {@code null} if it depends on the path
+     */
+    @Nullable
+    Boolean matchesAllOrNone(AntPathPattern handlerPattern) {
+        boolean excludedFromSome = false;
+        for (AntPathPattern pattern : this.compiledExcludePatterns) {
+            if (pattern.matchesAllOf(handlerPattern)) {
+                return Boolean.FALSE;
+            }
+            excludedFromSome |= !pattern.matchesNoneOf(handlerPattern);
+        }
+        if (excludedFromSome) {
+            return null;
+        }
+        if (this.compiledIncludePatterns.length == 0) {
+            return Boolean.TRUE;
+        }
+        boolean none = true;
+        for (AntPathPattern pattern : this.compiledIncludePatterns) {
+            if (pattern.matchesAllOf(handlerPattern)) {
+                return Boolean.TRUE;
+            }
+            none &= pattern.matchesNoneOf(handlerPattern);
+        }
+        return (none ? Boolean.FALSE : null);
+    }
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
             throws Exception {
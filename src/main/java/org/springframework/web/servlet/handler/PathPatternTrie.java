@@ -0,0 +1,166 @@
+package org.springframework.web.servlet.handler;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+
+/**
+ * Segment trie over URL path patterns, used to narrow down the mappings that
+ * can possibly match a lookup path before running the full condition match.
+ *
+ * <p>Patterns are split on "/" into literal segments, single-segment wildcards
+ * (anything containing '*', '?' or a URI variable) and "**" catch-alls. The
+ * lookup is deliberately lenient: it returns a superset of the values whose
+ * patterns match under {@link org.springframework.util.AntPathMatcher}
+ * semantics, including case-insensitive matching, suffix pattern matching
+ * ("/list" for "/list.json") and trailing slash matching. Values registered
+ * via {@link #addUnindexed} are returned for every path.
+ *
+ * <p>Not thread-safe: callers are expected to guard modifications, or to
+ * publish a {@link #copy()} that is no longer modified.
+ *
+ * @param <T> the type of values registered per pattern
+ */
+public final class PathPatternTrie<T> {
+
+    private static final String PATH_SEPARATOR = "/";
+
+    private final Node<T> root = new Node<>();
+
+    private final Set<T> unindexed = new LinkedHashSet<>();
+
+
+    public void add(String pattern, T value) {
+        Node<T> node = this.root;
+        for (String segment : tokenize(pattern)) {
+            if ("**".equals(segment)) {
+                // Remaining segments are ignored: anything below this node is a candidate.
+                node.catchAll.add(value);
+                return;
+            }
+            node = (isWildcard(segment) ? node.getOrCreateWildcardChild() :
+                    node.literalChildren.computeIfAbsent(segment.toLowerCase(Locale.ENGLISH), k -> new Node<>()));
+        }
+        node.values.add(value);
+    }
+
+    public void remove(String pattern, T value) {
+        Node<T> node = this.root;
+        for (String segment : tokenize(pattern)) {
+            if ("**".equals(segment)) {
+                node.catchAll.remove(value);
+                return;
+            }
+            node = (isWildcard(segment) ? node.wildcardChild :
+                    node.literalChildren.get(segment.toLowerCase(Locale.ENGLISH)));
+            if (node == null) {
+                return;
+            }
+        }
+        node.values.remove(value);
+    }
+
+    public void addUnindexed(T value) {
+        this.unindexed.add(value);
+    }
+
+    public void removeUnindexed(T value) {
+        this.unindexed.remove(value);
+    }
+
+    /**
+     * Return a deep copy of this trie, independent of further modifications.
+     */
+    public PathPatternTrie<T> copy() {
+        PathPatternTrie<T> copy = new PathPatternTrie<>();
+        copy.unindexed.addAll(this.unindexed);
+        this.root.copyInto(copy.root);
+        return copy;
+    }
+
+    /**
+     * Return every value whose pattern may match the given lookup path.
+     */
+    public Set<T> getCandidates(String lookupPath) {
+        Set<T> result = new LinkedHashSet<>(this.unindexed);
+        String[] segments = tokenize(lookupPath);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = segments[i].toLowerCase(Locale.ENGLISH);
+        }
+        collect(this.root, segments, 0, lookupPath.endsWith(PATH_SEPARATOR), result);
+        return result;
+    }
+
+    private void collect(Node<T> node, String[] segments, int index, boolean trailingSlash, Set<T> result) {
+        result.addAll(node.catchAll);
+        if (index == segments.length) {
+            result.addAll(node.values);
+            if (trailingSlash && node.wildcardChild != null) {
+                // A trailing "*" also matches the empty segment after a trailing slash: "/a/*" serves "/a/".
+                result.addAll(node.wildcardChild.values);
+            }
+            return;
+        }
+        String segment = segments[index];
+        Node<T> literalChild = node.literalChildren.get(segment);
+        if (literalChild != null) {
+            collect(literalChild, segments, index + 1, trailingSlash, result);
+        }
+        if (index == segments.length - 1) {
+            // Suffix pattern match: "/list" also serves "/list.json".
+            int dotIndex = segment.indexOf('.');
+            if (dotIndex != -1) {
+                Node<T> prefixChild = node.literalChildren.get(segment.substring(0, dotIndex));
+                if (prefixChild != null) {
+                    collect(prefixChild, segments, index + 1, trailingSlash, result);
+                }
+            }
+        }
+        if (node.wildcardChild != null) {
+            collect(node.wildcardChild, segments, index + 1, trailingSlash, result);
+        }
+    }
+
+    private static String[] tokenize(String path) {
+        return StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true);
+    }
+
+    private static boolean isWildcard(String segment) {
+        return (segment.indexOf('*') != -1 || segment.indexOf('?') != -1 || segment.indexOf('{') != -1);
+    }
+
+
+    private static final class Node<T> {
+
+        private final Map<String, Node<T>> literalChildren = new HashMap<>(4);
+
+        @Nullable
+        private Node<T> wildcardChild;
+
+        private final Set<T> values = new LinkedHashSet<>(2);
+
+        private final Set<T> catchAll = new LinkedHashSet<>(2);
+
+        Node<T> getOrCreateWildcardChild() {
+            if (this.wildcardChild == null) {
+                this.wildcardChild = new Node<>();
+            }
+            return this.wildcardChild;
+        }
+
+        void copyInto(Node<T> target) {
+            target.values.addAll(this.values);
+            target.catchAll.addAll(this.catchAll);
+            this.literalChildren.forEach((segment, child) -> {
+                Node<T> childCopy = new Node<>();
+                child.copyInto(childCopy);
+                target.literalChildren.put(segment, childCopy);
+            });
+            if (this.wildcardChild != null) {
+                this.wildcardChild.copyInto(target.getOrCreateWildcardChild());
+            }
+        }
+    }
+
+}
@@ -8,12 +8,15 @@ import org.springframework.util.PathMatcher;
 import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.AntPathPattern;
+import org.springframework.web.servlet.handler.PathPatternTrie;
 import org.springframework.web.servlet.support.WebContentGenerator;
 import org.springframework.web.util.UrlPathHelper;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
@@ -28,6 +31,14 @@ public class WebContentInterceptor extends WebContentGenerator implements Handle
 
     private Map<String, CacheControl> cacheControlMappings = new HashMap<>();
 
+    private boolean usePatternIndex = false;
+
+    @Nullable
+    private volatile PathPatternTrie<AntPathPattern> cacheMappingIndex;
+
+    @Nullable
+    private volatile PathPatternTrie<AntPathPattern> cacheControlMappingIndex;
+
     public WebContentInterceptor() {
         // No restriction of HTTP methods by default,
         // in particular for use with annotated controllers...
@@ -55,17 +66,34 @@ public class WebContentInterceptor extends WebContentGenerator implements Handle
             int cacheSeconds = Integer.parseInt(cacheMappings.getProperty(path));
             this.cacheMappings.put(path, cacheSeconds);
         }
+        this.cacheMappingIndex = null;
     }
 
     public void addCacheMapping(CacheControl cacheControl, String... paths) {
         for (String path : paths) {
             this.cacheControlMappings.put(path, cacheControl);
         }
+        this.cacheControlMappingIndex = null;
     }
 
     public void setPathMatcher(PathMatcher pathMatcher) {
         Assert.notNull(pathMatcher, "PathMatcher must not be null");
         this.pathMatcher = pathMatcher;
+        this.cacheMappingIndex = null;
+        this.cacheControlMappingIndex = null;
+    }
+
+    /**
+     * Set whether to look up pattern mappings through a {@link PathPatternTrie}
+     * of {@link AntPathPattern compiled patterns} instead of trying each pattern,
+     * with the most specific matching pattern winning. Default is "false".
+     * <p>Only takes effect while the {@link #setPathMatcher PathMatcher} is
+     * {@link AntPathPattern#isEquivalent equivalent} to compiled patterns.
+     */
+    public void setUsePatternIndex(boolean usePatternIndex) {
+        this.usePatternIndex = usePatternIndex;
+        this.cacheMappingIndex = null;
+        this.cacheControlMappingIndex = null;
     }
 
     @Override
@@ -108,6 +136,15 @@ public class WebContentInterceptor extends WebContentGenerator implements Handle
             return cacheControl;
         }
         // Pattern match?
+        PathPatternTrie<AntPathPattern> index = this.cacheControlMappingIndex;
+        if (index == null && isPatternIndexUsable()) {
+            index = createPatternIndex(this.cacheControlMappings);
+            this.cacheControlMappingIndex = index;
+        }
+        if (index != null) {
+            String pattern = findBestMatchingPattern(index, urlPath);
+            return (pattern != null ? this.cacheControlMappings.get(pattern) : null);
+        }
         for (Map.Entry<String, CacheControl> entry : this.cacheControlMappings.entrySet()) {
             if (this.pathMatcher.match(entry.getKey(), urlPath)) {
                 return entry.getValue();
@@ -124,6 +161,15 @@ public class WebContentInterceptor extends WebContentGenerator implements Handle
             return cacheSeconds;
         }
         // Pattern match?
+        PathPatternTrie<AntPathPattern> index = this.cacheMappingIndex;
+        if (index == null && isPatternIndexUsable()) {
+            index = createPatternIndex(this.cacheMappings);
+            this.cacheMappingIndex = index;
+        }
+        if (index != null) {
+            String pattern = findBestMatchingPattern(index, urlPath);
+            return (pattern != null ? this.cacheMappings.get(pattern) : null);
+        }
         for (Map.Entry<String, Integer> entry : this.cacheMappings.entrySet()) {
             if (this.pathMatcher.match(entry.getKey(), urlPath)) {
                 return entry.getValue();
@@ -132,6 +178,28 @@ public class WebContentInterceptor extends WebContentGenerator implements Handle
         return null;
     }
 
+    private boolean isPatternIndexUsable() {
+        return (this.usePatternIndex && AntPathPattern.isEquivalent(this.pathMatcher));
+    }
+
+    private PathPatternTrie<AntPathPattern> createPatternIndex(Map<String, ?> mappings) {
+        PathPatternTrie<AntPathPattern> index = new PathPatternTrie<>();
+        mappings.keySet().forEach(pattern -> index.add(pattern, new AntPathPattern(pattern)));
+        return index;
+    }
+
+    @Nullable
+    private String findBestMatchingPattern(PathPatternTrie<AntPathPattern> index, String urlPath) {
+        String bestMatch = null;
+        Comparator<String> patternComparator = this.pathMatcher.getPatternComparator(urlPath);
+        for (AntPathPattern candidate : index.getCandidates(urlPath)) {
+            if (candidate.matches(urlPath) &&
+                    (bestMatch == null || patternComparator.compare(candidate.getPattern(), bestMatch) < 0)) {
+                bestMatch = candidate.getPattern();
+            }
+        }
+        return bestMatch;
+    }
 
     @Override
     public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
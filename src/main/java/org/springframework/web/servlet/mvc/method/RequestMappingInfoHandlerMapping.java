@@ -52,22 +52,64 @@ public abstract class RequestMappingInfoHandlerMapping extends AbstractHandlerMe
     protected Comparator<RequestMappingInfo> getMappingComparator(final HttpServletRequest request) {
         return (info1, info2) -> info1.compareTo(info2, request);
     }
+    /**
+     * Includes the "Content-Type" header and whether there is a body, which
+     * drive the "consumes" condition, and all "Accept" headers, which drive the
+     * "produces" condition, in addition to method and path.
+     */
     @Override
-    protected void handleMatch(RequestMappingInfo info, String lookupPath, HttpServletRequest request) {
-        super.handleMatch(info, lookupPath, request);
+    protected String getResolutionCacheKey(HttpServletRequest request, String lookupPath) {
+        StringBuilder key = new StringBuilder(request.getMethod()).append(' ').append(lookupPath)
+                .append(' ').append(request.getContentType()).append(hasBody(request) ? " body" : " nobody");
+        Enumeration<String> accept = request.getHeaders(HttpHeaders.ACCEPT);
+        while (accept != null && accept.hasMoreElements()) {
+            key.append(' ').append(accept.nextElement());
+        }
+        return key.toString();
+    }
 
-        String bestPattern;
-        Map<String, String> uriVariables;
+    /**
+     * Tell whether there is a body the way the "consumes" condition does.
+     */
+    private static boolean hasBody(HttpServletRequest request) {
+        String contentLength = request.getHeader(HttpHeaders.CONTENT_LENGTH);
+        String transferEncoding = request.getHeader(HttpHeaders.TRANSFER_ENCODING);
+        return (StringUtils.hasText(transferEncoding) ||
+                (StringUtils.hasText(contentLength) && !contentLength.trim().equals("0")));
+    }
 
+    /**
+     * Mappings with "params", "headers" or custom conditions depend on more
+     * than the cache key and are therefore never cached.
+     */
+    @Override
+    protected boolean isResolutionCacheable(RequestMappingInfo info) {
+        return (info.getParamsCondition().isEmpty() && info.getHeadersCondition().isEmpty() &&
+                info.getCustomCondition() == null);
+    }
+
+    @Override
+    protected Map<String, String> extractUriTemplateVariables(RequestMappingInfo info, String lookupPath) {
         Set<String> patterns = info.getPatternsCondition().getPatterns();
         if (patterns.isEmpty()) {
-            bestPattern = lookupPath;
-            uriVariables = Collections.emptyMap();
-        }
-        else {
-            bestPattern = patterns.iterator().next();
-            uriVariables = getPathMatcher().extractUriTemplateVariables(bestPattern, lookupPath);
+            return new LinkedHashMap<>();
         }
+        return getPathMatcher().extractUriTemplateVariables(patterns.iterator().next(), lookupPath);
+    }
+
+    @Override
+    protected void handleMatch(RequestMappingInfo info, String lookupPath, HttpServletRequest request) {
+        handleMatch(info, lookupPath, extractUriTemplateVariables(info, lookupPath), request);
+    }
+
+    @Override
+    protected void handleMatch(RequestMappingInfo info, String lookupPath, Map<String, String> uriVariables,
+                               HttpServletRequest request) {
+
+        super.handleMatch(info, lookupPath, request);
+
+        Set<String> patterns = info.getPatternsCondition().getPatterns();
+        String bestPattern = (patterns.isEmpty() ? lookupPath : patterns.iterator().next());
 
         request.setAttribute(BEST_MATCHING_PATTERN_ATTRIBUTE, bestPattern);
 
@@ -10,6 +10,7 @@ import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.support.AllEncompassingFormHttpMessageConverter;
 import org.springframework.http.converter.xml.SourceHttpMessageConverter;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.ui.ModelMap;
 import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.context.ApplicationContextAware;
@@ -63,6 +64,17 @@ public class ExceptionHandlerExceptionResolver extends
     private final Map<ControllerAdviceBean, ExceptionHandlerMethodResolver> exceptionHandlerAdviceCache =
             new LinkedHashMap<>();
 
+    /** Advice entries applicable to each handler type, in advice order. */
+    private final Map<Class<?>, List<Map.Entry<ControllerAdviceBean, ExceptionHandlerMethodResolver>>>
+            applicableAdviceCache = new ConcurrentReferenceHashMap<>(64);
+
+    @Nullable
+    private volatile List<Map.Entry<ControllerAdviceBean, ExceptionHandlerMethodResolver>> applicableAdviceWithoutHandler;
+
+    /** Resolved exception handlers by handler type and exception (and cause) type. */
+    private final Map<ExceptionHandlerKey, ResolvedExceptionHandler> resolvedExceptionHandlerCache =
+            new ConcurrentReferenceHashMap<>(64);
+
 
     public ExceptionHandlerExceptionResolver() {
         this.messageConverters = new ArrayList<>();
@@ -176,6 +188,10 @@ public class ExceptionHandlerExceptionResolver extends
             return;
         }
 
+        this.applicableAdviceCache.clear();
+        this.applicableAdviceWithoutHandler = null;
+        this.resolvedExceptionHandlerCache.clear();
+
         List<ControllerAdviceBean> adviceBeans = ControllerAdviceBean.findAnnotatedBeans(getApplicationContext());
         for (ControllerAdviceBean adviceBean : adviceBeans) {
             Class<?> beanType = adviceBean.getBeanType();
@@ -270,12 +286,14 @@ public class ExceptionHandlerExceptionResolver extends
         if (exceptionHandlerMethod == null) {
             return null;
         }
-
-        if (this.argumentResolvers != null) {
-            exceptionHandlerMethod.setHandlerMethodArgumentResolvers(this.argumentResolvers);
-        }
-        if (this.returnValueHandlers != null) {
-            exceptionHandlerMethod.setHandlerMethodReturnValueHandlers(this.returnValueHandlers);
+        if (!isSharedInvocable(handlerMethod, exception, exceptionHandlerMethod)) {
+            // Returned by an overriding getExceptionHandlerMethod: not bound yet.
+            if (this.argumentResolvers != null) {
+                exceptionHandlerMethod.setHandlerMethodArgumentResolvers(this.argumentResolvers);
+            }
+            if (this.returnValueHandlers != null) {
+                exceptionHandlerMethod.setHandlerMethodReturnValueHandlers(this.returnValueHandlers);
+            }
         }
 
         ServletWebRequest webRequest = new ServletWebRequest(request, response);
@@ -323,24 +341,66 @@ public class ExceptionHandlerExceptionResolver extends
             return mav;
         }
     }
+
+    /**
+     * Return the invocable for the {@code @ExceptionHandler} method for the given
+     * exception, if any. It is shared by concurrent requests, and comes with
+     * the argument resolvers and return value handlers of this resolver set.
+     */
     @Nullable
     protected ServletInvocableHandlerMethod getExceptionHandlerMethod(
             @Nullable HandlerMethod handlerMethod, Exception exception) {
 
+        ExceptionHandlerKey key = getExceptionHandlerKey(handlerMethod, exception);
+        ResolvedExceptionHandler resolved = this.resolvedExceptionHandlerCache.get(key);
+        if (resolved == null) {
+            resolved = resolveExceptionHandler(handlerMethod, exception);
+            this.resolvedExceptionHandlerCache.put(key, resolved);
+        }
+        if (resolved.method == null) {
+            return null;
+        }
+        Object bean = (resolved.advice != null ? resolved.advice.resolveBean() : handlerMethod.getBean());
+        return resolved.getInvocableHandlerMethod(bean);
+    }
+
+    /**
+     * Whether the given invocable is the shared one cached for the handler and
+     * exception, which already comes with the resolvers and handlers of this
+     * resolver, as opposed to one returned by a subclass.
+     */
+    private boolean isSharedInvocable(@Nullable HandlerMethod handlerMethod, Exception exception,
+            ServletInvocableHandlerMethod invocable) {
+
+        ResolvedExceptionHandler resolved =
+                this.resolvedExceptionHandlerCache.get(getExceptionHandlerKey(handlerMethod, exception));
+        return (resolved != null && resolved.invocable == invocable);
+    }
+
+    private ExceptionHandlerKey getExceptionHandlerKey(@Nullable HandlerMethod handlerMethod, Exception exception) {
+        Class<?> handlerType = (handlerMethod != null ? handlerMethod.getBeanType() : null);
+        Throwable cause = exception.getCause();
+        return new ExceptionHandlerKey(handlerType, exception.getClass(), (cause != null ? cause.getClass() : null));
+    }
+
+    /**
+     * Find the exception handler for the given handler and exception: local
+     * exception handler methods first, then applicable advice in order.
+     * The outcome only depends on the handler type and the exception and
+     * cause types, so it is cached by {@link #getExceptionHandlerMethod}.
+     */
+    private ResolvedExceptionHandler resolveExceptionHandler(@Nullable HandlerMethod handlerMethod, Exception exception) {
         Class<?> handlerType = null;
 
         if (handlerMethod != null) {
             // Local exception handler methods on the controller class itself.
             // To be invoked through the proxy, even in case of an interface-based proxy.
             handlerType = handlerMethod.getBeanType();
-            ExceptionHandlerMethodResolver resolver = this.exceptionHandlerCache.get(handlerType);
-            if (resolver == null) {
-                resolver = new ExceptionHandlerMethodResolver(handlerType);
-                this.exceptionHandlerCache.put(handlerType, resolver);
-            }
+            ExceptionHandlerMethodResolver resolver =
+                    this.exceptionHandlerCache.computeIfAbsent(handlerType, ExceptionHandlerMethodResolver::new);
             Method method = resolver.resolveMethod(exception);
             if (method != null) {
-                return new ServletInvocableHandlerMethod(handlerMethod.getBean(), method);
+                return new ResolvedExceptionHandler(null, method);
             }
             // For advice applicability check below (involving base packages, assignable types
             // and annotation presence), use target class instead of interface-based proxy.
@@ -349,17 +409,120 @@ public class ExceptionHandlerExceptionResolver extends
             }
         }
 
+        for (Map.Entry<ControllerAdviceBean, ExceptionHandlerMethodResolver> entry : getApplicableAdvice(handlerType)) {
+            Method method = entry.getValue().resolveMethod(exception);
+            if (method != null) {
+                return new ResolvedExceptionHandler(entry.getKey(), method);
+            }
+        }
+
+        return new ResolvedExceptionHandler(null, null);
+    }
+
+    private List<Map.Entry<ControllerAdviceBean, ExceptionHandlerMethodResolver>> getApplicableAdvice(
+            @Nullable Class<?> handlerType) {
+
+        if (handlerType == null) {
+            List<Map.Entry<ControllerAdviceBean, ExceptionHandlerMethodResolver>> applicable =
+                    this.applicableAdviceWithoutHandler;
+            if (applicable == null) {
+                applicable = findApplicableAdvice(null);
+                this.applicableAdviceWithoutHandler = applicable;
+            }
+            return applicable;
+        }
+        return this.applicableAdviceCache.computeIfAbsent(handlerType, this::findApplicableAdvice);
+    }
+
+    private List<Map.Entry<ControllerAdviceBean, ExceptionHandlerMethodResolver>> findApplicableAdvice(
+            @Nullable Class<?> handlerType) {
+
+        List<Map.Entry<ControllerAdviceBean, ExceptionHandlerMethodResolver>> applicable = new ArrayList<>();
         for (Map.Entry<ControllerAdviceBean, ExceptionHandlerMethodResolver> entry : this.exceptionHandlerAdviceCache.entrySet()) {
-            ControllerAdviceBean advice = entry.getKey();
-            if (advice.isApplicableToBeanType(handlerType)) {
-                ExceptionHandlerMethodResolver resolver = entry.getValue();
-                Method method = resolver.resolveMethod(exception);
-                if (method != null) {
-                    return new ServletInvocableHandlerMethod(advice.resolveBean(), method);
-                }
+            if (entry.getKey().isApplicableToBeanType(handlerType)) {
+                applicable.add(entry);
+            }
+        }
+        return applicable;
+    }
+
+    private ServletInvocableHandlerMethod createInvocableHandlerMethod(Object bean, Method method) {
+        ServletInvocableHandlerMethod invocable = new ServletInvocableHandlerMethod(bean, method);
+        if (this.argumentResolvers != null) {
+            invocable.setHandlerMethodArgumentResolvers(this.argumentResolvers);
+        }
+        if (this.returnValueHandlers != null) {
+            invocable.setHandlerMethodReturnValueHandlers(this.returnValueHandlers);
+        }
+        return invocable;
+    }
+
+
+    private static final class ExceptionHandlerKey {
+
+        @Nullable
+        private final Class<?> handlerType;
+
+        private final Class<?> exceptionType;
+
+        @Nullable
+        private final Class<?> causeType;
+
+        ExceptionHandlerKey(@Nullable Class<?> handlerType, Class<?> exceptionType, @Nullable Class<?> causeType) {
+            this.handlerType = handlerType;
+            this.exceptionType = exceptionType;
+            this.causeType = causeType;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof ExceptionHandlerKey)) {
+                return false;
             }
+            ExceptionHandlerKey otherKey = (ExceptionHandlerKey) other;
+            return (this.handlerType == otherKey.handlerType && this.exceptionType == otherKey.exceptionType &&
+                    this.causeType == otherKey.causeType);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * (31 * Objects.hashCode(this.handlerType) + this.exceptionType.hashCode()) +
+                    Objects.hashCode(this.causeType));
+        }
+    }
+
+
+    /**
+     * A resolved exception handler method, keeping the invocable built for the
+     * last bean instance so it can be reused as long as the bean is the same
+     * (always, for singleton controllers and advice).
+     */
+    private final class ResolvedExceptionHandler {
+
+        @Nullable
+        private final ControllerAdviceBean advice;
+
+        @Nullable
+        private final Method method;
+
+        @Nullable
+        private volatile ServletInvocableHandlerMethod invocable;
+
+        ResolvedExceptionHandler(@Nullable ControllerAdviceBean advice, @Nullable Method method) {
+            this.advice = advice;
+            this.method = method;
         }
 
-        return null;
+        ServletInvocableHandlerMethod getInvocableHandlerMethod(Object bean) {
+            ServletInvocableHandlerMethod invocable = this.invocable;
+            if (invocable == null || invocable.getBean() != bean) {
+                invocable = createInvocableHandlerMethod(bean, this.method);
+                this.invocable = invocable;
+            }
+            return invocable;
+        }
     }
 }
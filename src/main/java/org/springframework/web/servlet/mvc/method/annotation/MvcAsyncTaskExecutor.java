@@ -0,0 +1,250 @@
+package org.springframework.web.servlet.mvc.method.annotation;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AsyncTaskExecutor} for MVC async processing, e.g. of {@code Callable}
+ * controller return values, that runs tasks either on a bounded thread pool or
+ * on virtual threads, and keeps queueing metrics.
+ *
+ * <p>Unlike the default {@code SimpleAsyncTaskExecutor}, which starts a new
+ * platform thread per task, the bounded pool caps threads and queued tasks and
+ * rejects further tasks with a {@link TaskRejectedException}. Virtual threads
+ * are used through {@code Executors.newVirtualThreadPerTaskExecutor()}, looked
+ * up reflectively, since they require a JVM that supports them.
+ */
+public class MvcAsyncTaskExecutor implements AsyncTaskExecutor, DisposableBean {
+
+    @Nullable
+    private static final MethodHandle virtualThreadExecutorFactory = findVirtualThreadExecutorFactory();
+
+    private static final boolean virtualThreadsSupported = probeVirtualThreads();
+
+    private final ExecutorService executorService;
+
+    private final boolean virtualThreads;
+
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+
+    private final AtomicInteger activeTasks = new AtomicInteger();
+
+    private final LongAdder completedTasks = new LongAdder();
+
+    private final LongAdder rejectedTasks = new LongAdder();
+
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+
+    /**
+     * Create an executor with a bounded thread pool.
+     * @param maxThreads the maximum number of threads; idle threads time out
+     * @param queueCapacity the maximum number of tasks waiting for a thread
+     */
+    public MvcAsyncTaskExecutor(int maxThreads, int queueCapacity) {
+        Assert.isTrue(maxThreads > 0, "'maxThreads' must be greater than 0");
+        Assert.isTrue(queueCapacity >= 0, "'queueCapacity' must not be negative");
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                (queueCapacity > 0 ? new LinkedBlockingQueue<>(queueCapacity) : new SynchronousQueue<>()),
+                new CustomizableThreadFactory("MvcAsync-"));
+        executor.allowCoreThreadTimeOut(true);
+        this.executorService = executor;
+        this.virtualThreads = false;
+    }
+
+    private MvcAsyncTaskExecutor(ExecutorService executorService) {
+        this.executorService = executorService;
+        this.virtualThreads = true;
+    }
+
+
+    /**
+     * Whether the running JVM supports virtual threads.
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return virtualThreadsSupported;
+    }
+
+    /**
+     * Create an executor that runs each task on a new virtual thread.
+     * @throws IllegalStateException if the JVM does not support virtual threads
+     */
+    public static MvcAsyncTaskExecutor virtualThreads() {
+        Assert.state(virtualThreadsSupported, "Virtual threads are not supported by this JVM");
+        return new MvcAsyncTaskExecutor(createVirtualThreadExecutor());
+    }
+
+    /**
+     * Create an executor on virtual threads if supported, or else with a
+     * bounded thread pool of the given size.
+     */
+    public static MvcAsyncTaskExecutor virtualThreadsOrBounded(int maxThreads, int queueCapacity) {
+        if (virtualThreadsSupported) {
+            try {
+                return new MvcAsyncTaskExecutor(createVirtualThreadExecutor());
+            }
+            catch (IllegalStateException ex) {
+                // Fall back to the bounded pool
+            }
+        }
+        return new MvcAsyncTaskExecutor(maxThreads, queueCapacity);
+    }
+
+    @Nullable
+    private static MethodHandle findVirtualThreadExecutorFactory() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        }
+        catch (NoSuchMethodException | IllegalAccessException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Check that a virtual thread executor can actually be created: on JDK 19
+     * and 20 the factory method exists but throws without {@code --enable-preview}.
+     */
+    private static boolean probeVirtualThreads() {
+        if (virtualThreadExecutorFactory == null) {
+            return false;
+        }
+        try {
+            createVirtualThreadExecutor().shutdown();
+            return true;
+        }
+        catch (IllegalStateException ex) {
+            return false;
+        }
+    }
+
+    private static ExecutorService createVirtualThreadExecutor() {
+        Assert.state(virtualThreadExecutorFactory != null, "Virtual threads are not supported by this JVM");
+        try {
+            return (ExecutorService) virtualThreadExecutorFactory.invoke();
+        }
+        catch (Throwable ex) {
+            throw new IllegalStateException("Failed to create virtual thread executor", ex);
+        }
+    }
+
+
+    public boolean isVirtualThreads() {
+        return this.virtualThreads;
+    }
+
+    /**
+     * Return the number of tasks accepted but not started yet.
+     */
+    public int getQueuedTaskCount() {
+        return this.queuedTasks.get();
+    }
+
+    public int getActiveTaskCount() {
+        return this.activeTasks.get();
+    }
+
+    public long getCompletedTaskCount() {
+        return this.completedTasks.sum();
+    }
+
+    public long getRejectedTaskCount() {
+        return this.rejectedTasks.sum();
+    }
+
+    /**
+     * Return the total time tasks have waited between submission and start.
+     */
+    public long getTotalWaitTime(TimeUnit unit) {
+        return unit.convert(this.totalWaitNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Return the longest time a task has waited between submission and start.
+     */
+    public long getMaxWaitTime(TimeUnit unit) {
+        return unit.convert(this.maxWaitNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+
+    @Override
+    public void execute(Runnable task) {
+        long submitted = System.nanoTime();
+        this.queuedTasks.incrementAndGet();
+        Runnable trackedTask = () -> {
+            long waited = System.nanoTime() - submitted;
+            this.queuedTasks.decrementAndGet();
+            this.totalWaitNanos.add(waited);
+            this.maxWaitNanos.accumulateAndGet(waited, Math::max);
+            this.activeTasks.incrementAndGet();
+            try {
+                task.run();
+            }
+            finally {
+                this.activeTasks.decrementAndGet();
+                this.completedTasks.increment();
+            }
+        };
+        try {
+            this.executorService.execute(trackedTask);
+        }
+        catch (RejectedExecutionException ex) {
+            this.queuedTasks.decrementAndGet();
+            this.rejectedTasks.increment();
+            throw new TaskRejectedException("Executor [" + this + "] did not accept task: " + task, ex);
+        }
+    }
+
+    @Override
+    public void execute(Runnable task, long startTimeout) {
+        execute(task);
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        FutureTask<Object> future = new FutureTask<>(task, null);
+        execute(future);
+        return future;
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(future);
+        return future;
+    }
+
+    @Override
+    public void destroy() {
+        this.executorService.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "MvcAsyncTaskExecutor [" + (this.virtualThreads ? "virtual threads" : this.executorService) + "]";
+    }
+
+}
@@ -0,0 +1,219 @@
+package org.springframework.web.servlet.mvc.method.annotation;
+
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.HandlerMethodArgumentResolverComposite;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+/**
+ * {@link ServletInvocableHandlerMethod} that runs a precompiled invocation
+ * plan: the argument resolver bound to each parameter once, and a
+ * {@link MethodHandle} taking the target bean and the argument array instead
+ * of {@link Method#invoke}.
+ *
+ * <p>Plans are shared by all instances for the same argument resolvers, method
+ * and bean type, since instances are created per request. The bean type is part
+ * of the key as generic parameter types, and therefore the resolver that
+ * supports them, are resolved against it.
+ */
+class PlannedServletInvocableHandlerMethod extends ServletInvocableHandlerMethod {
+
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    private static final Map<HandlerMethodArgumentResolverComposite, Map<MethodClassKey, InvocationPlan>> invocationPlanCache =
+            new ConcurrentReferenceHashMap<>();
+
+    @Nullable
+    private HandlerMethodArgumentResolverComposite resolvers;
+
+    @Nullable
+    private WebDataBinderFactory dataBinderFactory;
+
+    private ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    @Nullable
+    private InvocationPlan invocationPlan;
+
+
+    PlannedServletInvocableHandlerMethod(HandlerMethod handlerMethod) {
+        super(handlerMethod);
+    }
+
+
+    @Override
+    public void setHandlerMethodArgumentResolvers(HandlerMethodArgumentResolverComposite argumentResolvers) {
+        super.setHandlerMethodArgumentResolvers(argumentResolvers);
+        this.resolvers = argumentResolvers;
+        this.invocationPlan = null;
+    }
+
+    @Override
+    public void setDataBinderFactory(WebDataBinderFactory dataBinderFactory) {
+        super.setDataBinderFactory(dataBinderFactory);
+        this.dataBinderFactory = dataBinderFactory;
+    }
+
+    @Override
+    public void setParameterNameDiscoverer(ParameterNameDiscoverer parameterNameDiscoverer) {
+        super.setParameterNameDiscoverer(parameterNameDiscoverer);
+        this.parameterNameDiscoverer = parameterNameDiscoverer;
+        this.invocationPlan = null;
+    }
+
+    private InvocationPlan getInvocationPlan() {
+        InvocationPlan plan = this.invocationPlan;
+        if (plan == null) {
+            HandlerMethodArgumentResolverComposite composite =
+                    (this.resolvers != null ? this.resolvers : new HandlerMethodArgumentResolverComposite());
+            Map<MethodClassKey, InvocationPlan> plans =
+                    invocationPlanCache.computeIfAbsent(composite, key -> new ConcurrentReferenceHashMap<>());
+            plan = plans.computeIfAbsent(new MethodClassKey(getBridgedMethod(), getBeanType()), key ->
+                    new InvocationPlan(getBridgedMethod(), getMethodParameters(), composite, this.parameterNameDiscoverer));
+            this.invocationPlan = plan;
+        }
+        return plan;
+    }
+
+    @Override
+    protected Object[] getMethodArgumentValues(NativeWebRequest request, @Nullable ModelAndViewContainer mavContainer,
+            Object... providedArgs) throws Exception {
+
+        MethodParameter[] parameters = getMethodParameters();
+        if (ObjectUtils.isEmpty(parameters)) {
+            return EMPTY_ARGS;
+        }
+        // Resolvers are bound once per parameter: no supportsParameter lookups per call.
+        HandlerMethodArgumentResolver[] boundResolvers = getInvocationPlan().resolvers;
+        Object[] args = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            MethodParameter parameter = parameters[i];
+            args[i] = findProvidedArgument(parameter, providedArgs);
+            if (args[i] != null) {
+                continue;
+            }
+            HandlerMethodArgumentResolver resolver = boundResolvers[i];
+            if (resolver == null) {
+                throw new IllegalStateException(formatArgumentError(parameter, "No suitable resolver"));
+            }
+            try {
+                args[i] = resolver.resolveArgument(parameter, mavContainer, request, this.dataBinderFactory);
+            }
+            catch (Exception ex) {
+                // Leave stack trace for later, exception may actually be resolved and handled...
+                if (logger.isDebugEnabled()) {
+                    String exMsg = ex.getMessage();
+                    if (exMsg != null && !exMsg.contains(parameter.getExecutable().toGenericString())) {
+                        logger.debug(formatArgumentError(parameter, exMsg));
+                    }
+                }
+                throw ex;
+            }
+        }
+        return args;
+    }
+
+    @Override
+    @Nullable
+    protected Object doInvoke(Object... args) throws Exception {
+        try {
+            return (Object) getInvocationPlan().invoker.invokeExact(getBean(), args);
+        }
+        catch (ClassCastException | NullPointerException ex) {
+            // Thrown either by the argument adaptation of the invoker or by the handler method itself.
+            if (!isArgumentMismatch(args)) {
+                throw ex;
+            }
+            assertTargetBean(getBridgedMethod(), getBean(), args);
+            String text = (ex.getMessage() != null ? ex.getMessage() : "Illegal argument");
+            throw new IllegalStateException(formatInvokeError(text, args), ex);
+        }
+        catch (Exception | Error ex) {
+            throw ex;
+        }
+        catch (Throwable ex) {
+            throw new IllegalStateException(formatInvokeError("Invocation failure", args), ex);
+        }
+    }
+
+    private boolean isArgumentMismatch(Object[] args) {
+        Method method = getBridgedMethod();
+        if (!Modifier.isStatic(method.getModifiers()) && !method.getDeclaringClass().isInstance(getBean())) {
+            return true;
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (args.length != parameterTypes.length) {
+            return true;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (args[i] == null ? parameterTypes[i].isPrimitive() :
+                    !ClassUtils.resolvePrimitiveIfNecessary(parameterTypes[i]).isInstance(args[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Precompiled invocation of a handler method: the argument resolver bound to
+     * each parameter plus a MethodHandle taking the target bean and the argument
+     * array, so that steady-state invocation does no reflective lookups.
+     */
+    private static final class InvocationPlan {
+
+        final HandlerMethodArgumentResolver[] resolvers;
+
+        final MethodHandle invoker;
+
+        InvocationPlan(Method method, MethodParameter[] parameters, HandlerMethodArgumentResolverComposite composite,
+                ParameterNameDiscoverer parameterNameDiscoverer) {
+
+            this.resolvers = new HandlerMethodArgumentResolver[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                MethodParameter parameter = parameters[i];
+                parameter.initParameterNameDiscovery(parameterNameDiscoverer);
+                for (HandlerMethodArgumentResolver resolver : composite.getResolvers()) {
+                    if (resolver.supportsParameter(parameter)) {
+                        this.resolvers[i] = resolver;
+                        break;
+                    }
+                }
+            }
+            this.invoker = createInvoker(method);
+        }
+
+        private static MethodHandle createInvoker(Method method) {
+            ReflectionUtils.makeAccessible(method);
+            try {
+                MethodHandle handle = MethodHandles.lookup().unreflect(method);
+                if (Modifier.isStatic(method.getModifiers())) {
+                    handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                }
+                return handle.asSpreader(Object[].class, method.getParameterCount())
+                        .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+            }
+            catch (IllegalAccessException ex) {
+                throw new IllegalStateException("Could not create invoker for handler method " + method, ex);
+            }
+        }
+    }
+
+}
@@ -2,6 +2,7 @@ package org.springframework.web.servlet.mvc.method.annotation;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.core.DefaultParameterNameDiscoverer;
@@ -19,6 +20,7 @@ import org.springframework.http.converter.support.AllEncompassingFormHttpMessage
 import org.springframework.http.converter.xml.SourceHttpMessageConverter;
 import org.springframework.lang.Nullable;
 import org.springframework.ui.ModelMap;
+import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.web.accept.ContentNegotiationManager;
@@ -47,10 +49,19 @@ import javax.servlet.http.HttpSession;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
-public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter implements BeanFactoryAware, InitializingBean {
-
+public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter
+        implements BeanFactoryAware, InitializingBean, DisposableBean {
 
+    /**
+     * Name of the session attribute that holds the lock used with
+     * {@link #setUseSessionLocks}.
+     */
+    public static final String SESSION_LOCK_ATTRIBUTE = RequestMappingHandlerAdapter.class.getName() + ".SESSION_LOCK";
 
     public static final ReflectionUtils.MethodFilter INIT_BINDER_METHODS = method ->
             AnnotatedElementUtils.hasAnnotation(method, InitBinder.class);
@@ -93,6 +104,14 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
 
     private AsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("MvcAsync");
 
+    private boolean taskExecutorConfigured = false;
+
+    private boolean useVirtualThreads = false;
+
+    /** The executor created for {@link #setUseVirtualThreads}, to be shut down with this adapter. */
+    @Nullable
+    private MvcAsyncTaskExecutor defaultTaskExecutor;
+
     @Nullable
     private Long asyncRequestTimeout;
 
@@ -109,6 +128,12 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
 
     private boolean synchronizeOnSession = false;
 
+    private boolean useSessionLocks = false;
+
+    private final LongAdder sessionLockWaits = new LongAdder();
+
+    private final LongAdder sessionLockWaitNanos = new LongAdder();
+
     private SessionAttributeStore sessionAttributeStore = new DefaultSessionAttributeStore();
 
     private ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
@@ -254,6 +279,22 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
 
     public void setTaskExecutor(AsyncTaskExecutor taskExecutor) {
         this.taskExecutor = taskExecutor;
+        this.taskExecutorConfigured = true;
+    }
+
+    /**
+     * Set whether to run async tasks, e.g. for {@code Callable} return values,
+     * on virtual threads instead of the default {@code SimpleAsyncTaskExecutor}.
+     * On a JVM without virtual threads, a bounded pool is used instead.
+     * Ignored if a {@link #setTaskExecutor task executor} is set.
+     * @see MvcAsyncTaskExecutor#virtualThreadsOrBounded
+     */
+    public void setUseVirtualThreads(boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    public AsyncTaskExecutor getTaskExecutor() {
+        return this.taskExecutor;
     }
 
     public void setAsyncRequestTimeout(long timeout) {
@@ -292,6 +333,32 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
         this.synchronizeOnSession = synchronizeOnSession;
     }
 
+    /**
+     * Set whether to synchronize on a lock kept in each session, under
+     * {@link #SESSION_LOCK_ATTRIBUTE}, instead of on the
+     * {@link WebUtils#getSessionMutex session mutex}. Default is "false".
+     * <p>Unlike a session monitor, these locks do not pin virtual threads and
+     * let waiting time be measured. Like the session mutex, a lock stays with
+     * its session when the session id changes, e.g. on login.
+     */
+    public void setUseSessionLocks(boolean useSessionLocks) {
+        this.useSessionLocks = useSessionLocks;
+    }
+
+    /**
+     * Return how many requests had to wait for their session lock.
+     */
+    public long getSessionLockWaitCount() {
+        return this.sessionLockWaits.sum();
+    }
+
+    /**
+     * Return the total time requests have waited for their session lock.
+     */
+    public long getSessionLockWaitTime(TimeUnit unit) {
+        return unit.convert(this.sessionLockWaitNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
 
     public void setParameterNameDiscoverer(ParameterNameDiscoverer parameterNameDiscoverer) {
         this.parameterNameDiscoverer = parameterNameDiscoverer;
@@ -316,6 +383,12 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
 
     @Override
     public void afterPropertiesSet() {
+        if (this.useVirtualThreads && !this.taskExecutorConfigured && this.defaultTaskExecutor == null) {
+            int processors = Runtime.getRuntime().availableProcessors();
+            this.defaultTaskExecutor = MvcAsyncTaskExecutor.virtualThreadsOrBounded(processors * 8, processors * 64);
+            this.taskExecutor = this.defaultTaskExecutor;
+        }
+
         // Do this first, it may add ResponseBody advice beans
         initControllerAdviceCache();
 
@@ -333,6 +406,13 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
         }
     }
 
+    @Override
+    public void destroy() {
+        if (this.defaultTaskExecutor != null) {
+            this.defaultTaskExecutor.destroy();
+        }
+    }
+
 
     private void initControllerAdviceCache() {
         if (getApplicationContext() == null) {
@@ -519,7 +599,22 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
         // Execute invokeHandlerMethod in synchronized block if required.
         if (this.synchronizeOnSession) {
             HttpSession session = request.getSession(false);
-            if (session != null) {
+            if (session != null && this.useSessionLocks) {
+                Lock lock = getSessionLock(session);
+                if (!lock.tryLock()) {
+                    long waitStart = System.nanoTime();
+                    lock.lock();
+                    this.sessionLockWaits.increment();
+                    this.sessionLockWaitNanos.add(System.nanoTime() - waitStart);
+                }
+                try {
+                    mav = invokeHandlerMethod(request, response, handlerMethod);
+                }
+                finally {
+                    lock.unlock();
+                }
+            }
+            else if (session != null) {
                 Object mutex = WebUtils.getSessionMutex(session);
                 synchronized (mutex) {
                     mav = invokeHandlerMethod(request, response, handlerMethod);
@@ -547,6 +642,24 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
         return mav;
     }
 
+    /**
+     * Return the lock kept in the given session, creating it under the session
+     * mutex if necessary.
+     */
+    private Lock getSessionLock(HttpSession session) {
+        Object lock = session.getAttribute(SESSION_LOCK_ATTRIBUTE);
+        if (lock == null) {
+            synchronized (WebUtils.getSessionMutex(session)) {
+                lock = session.getAttribute(SESSION_LOCK_ATTRIBUTE);
+                if (lock == null) {
+                    lock = new ReentrantLock();
+                    session.setAttribute(SESSION_LOCK_ATTRIBUTE, lock);
+                }
+            }
+        }
+        return (Lock) lock;
+    }
+
     @Override
     protected long getLastModifiedInternal(HttpServletRequest request, HandlerMethod handlerMethod) {
         return -1;
@@ -626,8 +739,12 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
         }
     }
 
+    /**
+     * Create a {@link ServletInvocableHandlerMethod} that resolves arguments
+     * and invokes the handler through a precompiled, shared invocation plan.
+     */
     protected ServletInvocableHandlerMethod createInvocableHandlerMethod(HandlerMethod handlerMethod) {
-        return new ServletInvocableHandlerMethod(handlerMethod);
+        return new PlannedServletInvocableHandlerMethod(handlerMethod);
     }
 
     private ModelFactory getModelFactory(HandlerMethod handlerMethod, WebDataBinderFactory binderFactory) {
@@ -9,6 +9,9 @@ import org.springframework.stereotype.Controller;
 import org.springframework.util.Assert;
 import org.springframework.util.StringValueResolver;
 import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.accept.ContentNegotiationStrategy;
+import org.springframework.web.accept.HeaderContentNegotiationStrategy;
+import org.springframework.web.accept.PathExtensionContentNegotiationStrategy;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.servlet.handler.MatchableHandlerMapping;
@@ -65,6 +68,29 @@ implements MatchableHandlerMapping, EmbeddedValueResolverAware {
     public ContentNegotiationManager getContentNegotiationManager() {
         return this.contentNegotiationManager;
     }
+
+    /**
+     * "produces" conditions resolve the requested media types through the
+     * {@link ContentNegotiationManager}: they are only cacheable as long as every
+     * strategy works off the "Accept" header or the path, both part of the cache key.
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    protected boolean isResolutionCacheable(RequestMappingInfo info) {
+        if (!super.isResolutionCacheable(info)) {
+            return false;
+        }
+        if (info.getProducesCondition().isEmpty()) {
+            return true;
+        }
+        for (ContentNegotiationStrategy strategy : getContentNegotiationManager().getStrategies()) {
+            if (!(strategy instanceof HeaderContentNegotiationStrategy ||
+                    strategy instanceof PathExtensionContentNegotiationStrategy)) {
+                return false;
+            }
+        }
+        return true;
+    }
     @Override
     public void setEmbeddedValueResolver(StringValueResolver resolver) {
         this.embeddedValueResolver = resolver;
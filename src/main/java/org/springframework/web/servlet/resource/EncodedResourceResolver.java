@@ -5,23 +5,54 @@ import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 public class EncodedResourceResolver extends AbstractResourceResolver {
     public static final List<String> DEFAULT_CODINGS = Arrays.asList("br", "gzip");
 
+    private static final String GZIP_CODING = "gzip";
+
+    private static final Set<String> DEFAULT_COMPRESSIBLE_EXTENSIONS = new HashSet<>(Arrays.asList(
+            ".html", ".htm", ".css", ".js", ".mjs", ".json", ".map", ".svg", ".txt", ".xml"));
+
 
     private final List<String> contentCodings = new ArrayList<>(DEFAULT_CODINGS);
 
     private final Map<String, String> extensions = new LinkedHashMap<>();
 
+    private boolean precompress = false;
+
+    private final Set<String> compressibleExtensions = new HashSet<>(DEFAULT_COMPRESSIBLE_EXTENSIONS);
+
+    private long minCompressibleSize = 1024;
+
+    private long maxCompressibleSize = 1024 * 1024;
+
+    private long variantStoreLimit = 32 * 1024 * 1024;
+
+    /** Negotiated coding per request path and Accept-Encoding header. */
+    private final Map<String, Negotiation> negotiationCache = new ConcurrentReferenceHashMap<>(256);
+
+    /** Compressed variants generated on first access, by resource description. */
+    private final Map<String, CompressedResource> variantStore = new ConcurrentHashMap<>(64);
+
+    private final AtomicLong variantStoreSize = new AtomicLong();
+
 
     public EncodedResourceResolver() {
         this.extensions.put("gzip", ".gz");
@@ -32,6 +63,7 @@ public class EncodedResourceResolver extends AbstractResourceResolver {
         Assert.notEmpty(codings, "At least one content coding expected");
         this.contentCodings.clear();
         this.contentCodings.addAll(codings);
+        this.negotiationCache.clear();
     }
 
 
@@ -49,6 +81,60 @@ public class EncodedResourceResolver extends AbstractResourceResolver {
 
     public void registerExtension(String coding, String extension) {
         this.extensions.put(coding, (extension.startsWith(".") ? extension : "." + extension));
+        this.negotiationCache.clear();
+    }
+
+    /**
+     * Set whether to gzip compressible resources that have no pre-encoded
+     * variant on first access, keeping the result in memory. Default is "false".
+     * <p>Only "gzip" variants can be generated; "br" is served only if present.
+     * @see #setCompressibleExtensions
+     * @see #setVariantStoreLimit
+     */
+    public void setPrecompress(boolean precompress) {
+        this.precompress = precompress;
+        this.negotiationCache.clear();
+    }
+
+    public boolean isPrecompress() {
+        return this.precompress;
+    }
+
+    /**
+     * Set the file extensions of resources worth compressing.
+     * By default text formats such as ".html", ".css", ".js" and ".svg".
+     */
+    public void setCompressibleExtensions(Set<String> compressibleExtensions) {
+        this.compressibleExtensions.clear();
+        for (String extension : compressibleExtensions) {
+            this.compressibleExtensions.add(extension.startsWith(".") ? extension : "." + extension);
+        }
+    }
+
+    public Set<String> getCompressibleExtensions() {
+        return Collections.unmodifiableSet(this.compressibleExtensions);
+    }
+
+    /**
+     * Set the size range, in bytes, of resources worth compressing.
+     * Default is from 1 KB up to 1 MB.
+     */
+    public void setCompressibleSizeRange(long minSize, long maxSize) {
+        Assert.isTrue(minSize >= 0 && maxSize >= minSize, "Invalid compressible size range");
+        this.minCompressibleSize = minSize;
+        this.maxCompressibleSize = maxSize;
+    }
+
+    /**
+     * Set the total number of compressed bytes to keep in memory. Default is 32 MB.
+     */
+    public void setVariantStoreLimit(long variantStoreLimit) {
+        Assert.isTrue(variantStoreLimit > 0, "'variantStoreLimit' must be greater than 0");
+        this.variantStoreLimit = variantStoreLimit;
+    }
+
+    public long getVariantStoreLimit() {
+        return this.variantStoreLimit;
     }
 
     @Override
@@ -65,26 +151,162 @@ public class EncodedResourceResolver extends AbstractResourceResolver {
             return resource;
         }
 
-        for (String coding : this.contentCodings) {
-            if (acceptEncoding.contains(coding)) {
-                try {
-                    String extension = getExtension(coding);
-                    Resource encoded = new EncodedResource(resource, coding, extension);
-                    if (encoded.exists()) {
-                        return encoded;
-                    }
+        String negotiationKey = requestPath + '\n' + acceptEncoding;
+        Negotiation negotiation = this.negotiationCache.get(negotiationKey);
+        if (negotiation != null) {
+            Resource encoded = getVariant(resource, negotiation);
+            if (encoded != null) {
+                return encoded;
+            }
+        }
+
+        for (String coding : getAcceptedCodings(acceptEncoding)) {
+            try {
+                String extension = getExtension(coding);
+                Resource encoded = new EncodedResource(resource, coding, extension);
+                if (encoded.exists()) {
+                    this.negotiationCache.put(negotiationKey, new Negotiation(coding, false));
+                    return encoded;
                 }
-                catch (IOException ex) {
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("No " + coding + " resource for [" + resource.getFilename() + "]", ex);
-                    }
+            }
+            catch (IOException ex) {
+                if (logger.isTraceEnabled()) {
+                    logger.trace("No " + coding + " resource for [" + resource.getFilename() + "]", ex);
+                }
+            }
+            if (GZIP_CODING.equals(coding)) {
+                Resource compressed = getCompressedVariant(resource);
+                if (compressed != null) {
+                    this.negotiationCache.put(negotiationKey, new Negotiation(coding, true));
+                    return compressed;
                 }
             }
         }
 
+        this.negotiationCache.put(negotiationKey, Negotiation.IDENTITY);
         return resource;
     }
 
+    @Nullable
+    private Resource getVariant(Resource resource, Negotiation negotiation) {
+        if (negotiation.coding == null) {
+            return resource;
+        }
+        if (negotiation.generated) {
+            return getCompressedVariant(resource);
+        }
+        try {
+            return new EncodedResource(resource, negotiation.coding, getExtension(negotiation.coding));
+        }
+        catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Return the acceptable codings, best first: by weight of the Accept-Encoding
+     * header, then in the order of {@link #setContentCodings contentCodings}.
+     */
+    private List<String> getAcceptedCodings(String acceptEncoding) {
+        Map<String, Float> weights = new HashMap<>();
+        Float wildcardWeight = null;
+        for (String token : StringUtils.tokenizeToStringArray(acceptEncoding, ",")) {
+            String[] parts = StringUtils.tokenizeToStringArray(token, ";");
+            if (parts.length == 0) {
+                continue;
+            }
+            float weight = 1;
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].startsWith("q=")) {
+                    try {
+                        weight = Float.parseFloat(parts[i].substring(2).trim());
+                    }
+                    catch (NumberFormatException ex) {
+                        weight = 0;
+                    }
+                }
+            }
+            if ("*".equals(parts[0])) {
+                wildcardWeight = weight;
+            }
+            else {
+                weights.put(parts[0], weight);
+            }
+        }
+        List<String> accepted = new ArrayList<>(this.contentCodings.size());
+        for (String coding : this.contentCodings) {
+            Float weight = weights.getOrDefault(coding, wildcardWeight);
+            if (weight != null && weight > 0) {
+                accepted.add(coding);
+            }
+        }
+        Float defaultWeight = wildcardWeight;
+        accepted.sort(Comparator.comparing((String coding) -> weights.getOrDefault(coding, defaultWeight)).reversed());
+        return accepted;
+    }
+
+    @Nullable
+    private Resource getCompressedVariant(Resource resource) {
+        if (!this.precompress || !isCompressible(resource)) {
+            return null;
+        }
+        try {
+            String key = resource.getDescription();
+            long lastModified = resource.lastModified();
+            CompressedResource compressed = this.variantStore.get(key);
+            if (compressed != null && compressed.lastModified() == lastModified) {
+                return compressed;
+            }
+            long length = resource.contentLength();
+            if (length < this.minCompressibleSize || length > this.maxCompressibleSize) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) length / 2);
+            try (InputStream in = resource.getInputStream(); OutputStream gzip = new GZIPOutputStream(out)) {
+                StreamUtils.copy(in, gzip);
+            }
+            if (out.size() >= length) {
+                return null;
+            }
+            compressed = new CompressedResource(resource, out.toByteArray(), GZIP_CODING);
+            store(key, compressed);
+            return compressed;
+        }
+        catch (IOException ex) {
+            if (logger.isTraceEnabled()) {
+                logger.trace("Failed to compress [" + resource.getFilename() + "]", ex);
+            }
+            return null;
+        }
+    }
+
+    private boolean isCompressible(Resource resource) {
+        String filename = resource.getFilename();
+        if (filename == null) {
+            return false;
+        }
+        int index = filename.lastIndexOf('.');
+        return (index >= 0 && this.compressibleExtensions.contains(filename.substring(index).toLowerCase()));
+    }
+
+    private void store(String key, CompressedResource compressed) throws IOException {
+        long size = compressed.contentLength();
+        if (size > this.variantStoreLimit) {
+            return;
+        }
+        CompressedResource previous = this.variantStore.put(key, compressed);
+        long used = this.variantStoreSize.addAndGet(size - (previous != null ? previous.contentLength() : 0));
+        if (used > this.variantStoreLimit) {
+            // Evict arbitrary variants: they are cheap to compress again.
+            Iterator<Map.Entry<String, CompressedResource>> it = this.variantStore.entrySet().iterator();
+            while (this.variantStoreSize.get() > this.variantStoreLimit && it.hasNext()) {
+                Map.Entry<String, CompressedResource> entry = it.next();
+                if (entry.getValue() != compressed && this.variantStore.remove(entry.getKey(), entry.getValue())) {
+                    this.variantStoreSize.addAndGet(-entry.getValue().contentLength());
+                }
+            }
+        }
+    }
 
     @Nullable
     private String getAcceptEncoding(HttpServletRequest request) {
@@ -109,6 +331,60 @@ public class EncodedResourceResolver extends AbstractResourceResolver {
 
 
 
+    /**
+     * Outcome of a negotiation: the coding to serve, if any, and whether its
+     * variant was generated rather than found next to the original.
+     */
+    private static final class Negotiation {
+
+        static final Negotiation IDENTITY = new Negotiation(null, false);
+
+        @Nullable
+        final String coding;
+
+        final boolean generated;
+
+        Negotiation(@Nullable String coding, boolean generated) {
+            this.coding = coding;
+            this.generated = generated;
+        }
+    }
+
+
+    /**
+     * Variant compressed in memory from the original resource.
+     */
+    static final class CompressedResource extends TransformedResource implements HttpResource {
+
+        private final Resource original;
+
+        private final String coding;
+
+        CompressedResource(Resource original, byte[] content, String coding) {
+            super(original, content);
+            this.original = original;
+            this.coding = coding;
+        }
+
+        @Override
+        public String getDescription() {
+            return this.coding + " variant of " + this.original.getDescription();
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            // Copy: the original's headers may be shared, e.g. by a cached resource.
+            HttpHeaders headers = new HttpHeaders();
+            if (this.original instanceof HttpResource) {
+                headers.addAll(((HttpResource) this.original).getResponseHeaders());
+            }
+            headers.add(HttpHeaders.CONTENT_ENCODING, this.coding);
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            return headers;
+        }
+    }
+
+
     static final class EncodedResource extends AbstractResource implements HttpResource {
 
         private final Resource original;
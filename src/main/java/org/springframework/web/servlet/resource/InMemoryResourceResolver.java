@@ -0,0 +1,586 @@
+package org.springframework.web.servlet.resource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.net.URL;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ResourceResolver} that keeps small, frequently requested resources in
+ * memory, so that serving them again takes no file system calls at all.
+ *
+ * <p>To be placed first in the resolver chain: the resource resolved by the rest
+ * of the chain (including an encoded variant chosen by {@link EncodedResourceResolver})
+ * is snapshotted into a direct {@link ByteBuffer}, together with its length,
+ * last-modified time, response headers and an ETag computed from its content.
+ * Snapshots are keyed by request path and Accept-Encoding header.
+ *
+ * <p>Only resources up to {@link #setMaxResourceSize maxResourceSize} are kept,
+ * within a total {@link #setMemoryBudget memoryBudget}; the least recently used
+ * ones are evicted first. Snapshots are not revalidated against their source,
+ * unless {@link #setWatchFiles watchFiles} is on: then file-backed snapshots are
+ * dropped as soon as a {@link WatchService} reports a change to their file.
+ *
+ * <p>File watching runs on a daemon thread, which ends once this resolver is
+ * garbage collected. Register the resolver as a bean to have it end right
+ * away when the application context is closed, via {@link #destroy()}.
+ */
+public class InMemoryResourceResolver extends AbstractResourceResolver implements DisposableBean {
+
+    private static final String RESOLVED_RESOURCE_KEY_PREFIX = "resolvedResource:";
+
+    private final List<String> contentCodings = new ArrayList<>(EncodedResourceResolver.DEFAULT_CODINGS);
+
+    private int maxResourceSize = 64 * 1024;
+
+    private long memoryBudget = 16 * 1024 * 1024;
+
+    private boolean watchFiles = false;
+
+    private final Map<String, CachedResource> resourceCache = new ConcurrentHashMap<>(256);
+
+    private final AtomicLong memoryUsed = new AtomicLong();
+
+    private final AtomicLong accessCounter = new AtomicLong();
+
+    private final Object evictionMonitor = new Object();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    @Nullable
+    private volatile FileWatcher fileWatcher;
+
+
+    /**
+     * Set the content codings that may be negotiated by resolvers further down
+     * the chain, and therefore distinguish cached variants of a resource.
+     * <p>By default {@link EncodedResourceResolver#DEFAULT_CODINGS}.
+     */
+    public void setContentCodings(List<String> codings) {
+        Assert.notEmpty(codings, "At least one content coding expected");
+        this.contentCodings.clear();
+        this.contentCodings.addAll(codings);
+    }
+
+    public List<String> getContentCodings() {
+        return Collections.unmodifiableList(this.contentCodings);
+    }
+
+    /**
+     * Set the largest resource, in bytes, to keep in memory. Default is 64 KB.
+     */
+    public void setMaxResourceSize(int maxResourceSize) {
+        Assert.isTrue(maxResourceSize > 0, "'maxResourceSize' must be greater than 0");
+        this.maxResourceSize = maxResourceSize;
+    }
+
+    public int getMaxResourceSize() {
+        return this.maxResourceSize;
+    }
+
+    /**
+     * Set the total number of content bytes to keep in memory. Default is 16 MB.
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        Assert.isTrue(memoryBudget > 0, "'memoryBudget' must be greater than 0");
+        this.memoryBudget = memoryBudget;
+    }
+
+    public long getMemoryBudget() {
+        return this.memoryBudget;
+    }
+
+    /**
+     * Set whether to watch the directories of file-backed resources, and drop
+     * their snapshots once the file changes. Default is "false".
+     */
+    public void setWatchFiles(boolean watchFiles) {
+        this.watchFiles = watchFiles;
+    }
+
+    public boolean isWatchFiles() {
+        return this.watchFiles;
+    }
+
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount.sum();
+    }
+
+    /**
+     * Return the number of content bytes currently held in memory.
+     */
+    public long getMemoryUsed() {
+        return this.memoryUsed.get();
+    }
+
+    /**
+     * Drop all snapshots.
+     */
+    public void clearCache() {
+        for (String key : this.resourceCache.keySet()) {
+            remove(key);
+        }
+    }
+
+
+    @Override
+    protected Resource resolveResourceInternal(@Nullable HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+
+        String key = computeKey(request, requestPath);
+        CachedResource cached = this.resourceCache.get(key);
+        if (cached != null) {
+            cached.lastAccess = this.accessCounter.incrementAndGet();
+            this.hitCount.increment();
+            return cached;
+        }
+        this.missCount.increment();
+
+        Resource resource = chain.resolveResource(request, requestPath, locations);
+        if (resource != null) {
+            cached = createSnapshot(resource);
+            if (cached != null) {
+                CachedResource existing = this.resourceCache.putIfAbsent(key, cached);
+                if (existing != null) {
+                    return existing;
+                }
+                this.memoryUsed.addAndGet(cached.contentLength);
+                if (watch(cached) && isModified(cached)) {
+                    // Changed after the read, possibly before the watch was in place.
+                    remove(key, cached);
+                    return resource;
+                }
+                evictIfNecessary();
+                return cached;
+            }
+        }
+        return resource;
+    }
+
+    protected String computeKey(@Nullable HttpServletRequest request, String requestPath) {
+        if (request != null) {
+            String codingKey = getContentCodingKey(request);
+            if (StringUtils.hasText(codingKey)) {
+                return RESOLVED_RESOURCE_KEY_PREFIX + requestPath + "+encoding=" + codingKey;
+            }
+        }
+        return RESOLVED_RESOURCE_KEY_PREFIX + requestPath;
+    }
+
+    /**
+     * Key on the whole Accept-Encoding header, since q-values and "*" take
+     * part in the negotiation, unless it names none of the content codings:
+     * then only the unencoded resource can be chosen.
+     */
+    @Nullable
+    private String getContentCodingKey(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (!StringUtils.hasText(header)) {
+            return null;
+        }
+        header = StringUtils.trimAllWhitespace(header.toLowerCase());
+        if (header.contains("*")) {
+            return header;
+        }
+        for (String coding : this.contentCodings) {
+            if (header.contains(coding)) {
+                return header;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private CachedResource createSnapshot(Resource resource) {
+        try {
+            long length = resource.contentLength();
+            if (length < 0 || length > this.maxResourceSize || !resource.isReadable()) {
+                return null;
+            }
+            // Taken before the read: a change during the read then shows as a newer time.
+            long lastModified = resource.lastModified();
+            byte[] content;
+            try (InputStream in = resource.getInputStream()) {
+                content = StreamUtils.copyToByteArray(in);
+            }
+            if (content.length > this.maxResourceSize) {
+                return null;
+            }
+            return new CachedResource(resource, content, lastModified, this.accessCounter.incrementAndGet());
+        }
+        catch (IOException ex) {
+            if (logger.isTraceEnabled()) {
+                logger.trace("Not caching [" + resource + "]", ex);
+            }
+            return null;
+        }
+    }
+
+    private void evictIfNecessary() {
+        if (this.memoryUsed.get() <= this.memoryBudget) {
+            return;
+        }
+        synchronized (this.evictionMonitor) {
+            while (this.memoryUsed.get() > this.memoryBudget) {
+                Map.Entry<String, CachedResource> eldest = null;
+                for (Map.Entry<String, CachedResource> entry : this.resourceCache.entrySet()) {
+                    if (eldest == null || entry.getValue().lastAccess < eldest.getValue().lastAccess) {
+                        eldest = entry;
+                    }
+                }
+                if (eldest == null) {
+                    return;
+                }
+                if (remove(eldest.getKey(), eldest.getValue())) {
+                    this.evictionCount.increment();
+                }
+            }
+        }
+    }
+
+    private void remove(String key) {
+        CachedResource cached = this.resourceCache.get(key);
+        if (cached != null) {
+            remove(key, cached);
+        }
+    }
+
+    private boolean remove(String key, CachedResource cached) {
+        if (this.resourceCache.remove(key, cached)) {
+            this.memoryUsed.addAndGet(-cached.contentLength);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Watch the file of the given snapshot, if any.
+     * @return whether the file is watched
+     */
+    private boolean watch(CachedResource cached) {
+        if (!this.watchFiles || cached.file == null) {
+            return false;
+        }
+        FileWatcher watcher = this.fileWatcher;
+        if (watcher == null) {
+            synchronized (this.evictionMonitor) {
+                watcher = this.fileWatcher;
+                if (watcher == null) {
+                    try {
+                        watcher = new FileWatcher(this);
+                    }
+                    catch (IOException ex) {
+                        logger.warn("Cannot watch resource files, disabling file watching", ex);
+                        this.watchFiles = false;
+                        return false;
+                    }
+                    this.fileWatcher = watcher;
+                }
+            }
+        }
+        return watcher.register(cached.file.getParent());
+    }
+
+    private boolean isModified(CachedResource cached) {
+        try {
+            return (cached.original.lastModified() != cached.lastModified);
+        }
+        catch (IOException ex) {
+            return true;
+        }
+    }
+
+    private void invalidate(Path changedFile) {
+        this.resourceCache.forEach((key, cached) -> {
+            if (changedFile.equals(cached.file)) {
+                remove(key, cached);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        FileWatcher watcher = this.fileWatcher;
+        if (watcher != null) {
+            this.fileWatcher = null;
+            watcher.close();
+        }
+    }
+
+    @Override
+    protected String resolveUrlPathInternal(String resourceUrlPath,
+                                            List<? extends Resource> locations, ResourceResolverChain chain) {
+
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+
+
+    /**
+     * Watches the directories of cached files on a daemon thread. The thread
+     * only holds a weak reference to the resolver, and ends once the resolver
+     * is gone or the watcher is closed.
+     */
+    private static final class FileWatcher implements Runnable {
+
+        private static final long POLL_SECONDS = 10;
+
+        private final WeakReference<InMemoryResourceResolver> resolver;
+
+        private final WatchService watchService;
+
+        private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+
+        FileWatcher(InMemoryResourceResolver resolver) throws IOException {
+            this.resolver = new WeakReference<>(resolver);
+            this.watchService = FileSystems.getDefault().newWatchService();
+            Thread thread = new Thread(this, "InMemoryResourceResolver-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Watch the given directory.
+         * @return whether the directory is watched
+         */
+        boolean register(@Nullable Path directory) {
+            if (directory == null) {
+                return false;
+            }
+            if (!this.directories.add(directory)) {
+                return true;
+            }
+            try {
+                directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                return true;
+            }
+            catch (IOException | ClosedWatchServiceException ex) {
+                this.directories.remove(directory);
+                InMemoryResourceResolver resolver = this.resolver.get();
+                if (resolver != null && resolver.logger.isDebugEnabled()) {
+                    resolver.logger.debug("Cannot watch directory [" + directory + "]", ex);
+                }
+                return false;
+            }
+        }
+
+        void close() throws IOException {
+            this.watchService.close();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    WatchKey key = this.watchService.poll(POLL_SECONDS, TimeUnit.SECONDS);
+                    InMemoryResourceResolver resolver = this.resolver.get();
+                    if (resolver == null) {
+                        close();
+                        return;
+                    }
+                    if (key == null) {
+                        continue;
+                    }
+                    Path directory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            resolver.clearCache();
+                        }
+                        else {
+                            resolver.invalidate(directory.resolve((Path) event.context()));
+                        }
+                    }
+                    if (!key.reset()) {
+                        this.directories.remove(directory);
+                    }
+                }
+            }
+            catch (InterruptedException | ClosedWatchServiceException | IOException ex) {
+                // Shut down
+            }
+        }
+    }
+
+
+    /**
+     * In-memory snapshot of a resolved resource.
+     */
+    static final class CachedResource extends AbstractResource implements HttpResource {
+
+        final Resource original;
+
+        private final ByteBuffer content;
+
+        final int contentLength;
+
+        final long lastModified;
+
+        private final HttpHeaders responseHeaders;
+
+        @Nullable
+        final Path file;
+
+        volatile long lastAccess;
+
+        CachedResource(Resource original, byte[] content, long lastModified, long lastAccess) throws IOException {
+            this.original = original;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
+            buffer.put(content);
+            ((Buffer) buffer).flip();
+            this.content = buffer.asReadOnlyBuffer();
+            this.contentLength = content.length;
+            this.lastModified = lastModified;
+            HttpHeaders headers = new HttpHeaders();
+            if (original instanceof HttpResource) {
+                headers.putAll(((HttpResource) original).getResponseHeaders());
+            }
+            if (headers.getETag() == null) {
+                headers.setETag("\"" + DigestUtils.md5DigestAsHex(content) + "\"");
+            }
+            this.responseHeaders = HttpHeaders.readOnlyHttpHeaders(headers);
+            this.file = (original.isFile() ? original.getFile().toPath().toAbsolutePath() : null);
+            this.lastAccess = lastAccess;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteBufferInputStream(this.content.duplicate());
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public boolean isReadable() {
+            return true;
+        }
+
+        @Override
+        public URL getURL() throws IOException {
+            return this.original.getURL();
+        }
+
+        @Override
+        public URI getURI() throws IOException {
+            return this.original.getURI();
+        }
+
+        @Override
+        public File getFile() throws IOException {
+            return this.original.getFile();
+        }
+
+        @Override
+        public long contentLength() {
+            return this.contentLength;
+        }
+
+        @Override
+        public long lastModified() {
+            return this.lastModified;
+        }
+
+        @Override
+        public Resource createRelative(String relativePath) throws IOException {
+            return this.original.createRelative(relativePath);
+        }
+
+        @Override
+        @Nullable
+        public String getFilename() {
+            return this.original.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return "In-memory copy of " + this.original.getDescription();
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            return this.responseHeaders;
+        }
+    }
+
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return (this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1);
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, this.buffer.remaining());
+            this.buffer.get(bytes, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+            ((Buffer) this.buffer).position(this.buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+
+}
@@ -0,0 +1,265 @@
+package org.springframework.web.servlet.resource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link ContentVersionStrategy} that keeps computed versions in an index keyed
+ * by resource location, and only hashes content again once the size or the
+ * last-modified time of a resource has changed.
+ *
+ * <p>The index can be filled up front for file system locations with
+ * {@link #buildIndex}, which hashes files in parallel, and can be kept in a
+ * sidecar file across restarts: see {@link #setIndexFile}.
+ *
+ * <p>Versions computed while serving requests only mark the index as changed:
+ * the sidecar file is rewritten shortly after, on a background thread, once
+ * for all changes in the meantime. Call {@link #flushIndex} on shutdown to
+ * write pending changes right away; otherwise they are computed again on the
+ * next start.
+ */
+public class IndexedContentVersionStrategy extends ContentVersionStrategy {
+
+    private static final Log logger = LogFactory.getLog(IndexedContentVersionStrategy.class);
+
+    private static final long FLUSH_DELAY_MILLIS = 2000;
+
+    /** Shared by all instances; its thread ends when idle. */
+    private static final ScheduledThreadPoolExecutor flushExecutor = createFlushExecutor();
+
+    private final Map<String, IndexEntry> index = new ConcurrentHashMap<>(256);
+
+    @Nullable
+    private File indexFile;
+
+    private final Object indexFileMonitor = new Object();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+
+    /**
+     * Set the file to keep the index in. Entries are loaded from it right away,
+     * if it exists, and the file is rewritten in the background whenever
+     * versions are added.
+     */
+    public void setIndexFile(@Nullable File indexFile) {
+        this.indexFile = indexFile;
+        if (indexFile != null && indexFile.isFile()) {
+            loadIndex(indexFile);
+        }
+    }
+
+    @Nullable
+    public File getIndexFile() {
+        return this.indexFile;
+    }
+
+    /**
+     * Return the number of indexed versions.
+     */
+    public int getIndexSize() {
+        return this.index.size();
+    }
+
+    /**
+     * Compute the versions of all files under the given locations, in parallel.
+     * Locations that are not directories in the file system are skipped.
+     */
+    public void buildIndex(List<? extends Resource> locations) {
+        List<Path> files = new ArrayList<>();
+        for (Resource location : locations) {
+            try {
+                if (!location.isFile() || !location.getFile().isDirectory()) {
+                    continue;
+                }
+                try (Stream<Path> paths = Files.walk(location.getFile().toPath())) {
+                    files.addAll(paths.filter(Files::isRegularFile).collect(Collectors.toList()));
+                }
+            }
+            catch (IOException ex) {
+                logger.debug("Cannot index location [" + location + "]", ex);
+            }
+        }
+        boolean changed = files.parallelStream()
+                .map(file -> updateEntry(new FileSystemResource(file)) != null)
+                .reduce(false, Boolean::logicalOr);
+        if (changed) {
+            flushIndex();
+        }
+    }
+
+    @Override
+    public String getResourceVersion(Resource resource) {
+        String key = getIndexKey(resource);
+        if (key == null) {
+            return super.getResourceVersion(resource);
+        }
+        try {
+            IndexEntry entry = this.index.get(key);
+            if (entry != null && entry.matches(resource.contentLength(), resource.lastModified())) {
+                return entry.version;
+            }
+        }
+        catch (IOException ex) {
+            return super.getResourceVersion(resource);
+        }
+        IndexEntry entry = updateEntry(resource);
+        if (entry == null) {
+            return super.getResourceVersion(resource);
+        }
+        scheduleFlush();
+        return entry.version;
+    }
+
+    /**
+     * Write the index to the {@link #setIndexFile index file} now, if set.
+     */
+    public void flushIndex() {
+        this.flushScheduled.set(false);
+        saveIndex();
+    }
+
+    private void scheduleFlush() {
+        if (this.indexFile != null && this.flushScheduled.compareAndSet(false, true)) {
+            flushExecutor.schedule(this::flushIndex, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createFlushExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "IndexedContentVersionStrategy-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(10, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Hash the resource and index the result, unless it is indexed already.
+     * @return the new entry, or {@code null} if the index was up to date or
+     * the resource cannot be indexed
+     */
+    @Nullable
+    private IndexEntry updateEntry(Resource resource) {
+        String key = getIndexKey(resource);
+        if (key == null) {
+            return null;
+        }
+        try {
+            long size = resource.contentLength();
+            long lastModified = resource.lastModified();
+            IndexEntry existing = this.index.get(key);
+            if (existing != null && existing.matches(size, lastModified)) {
+                return null;
+            }
+            IndexEntry entry = new IndexEntry(size, lastModified, super.getResourceVersion(resource));
+            this.index.put(key, entry);
+            return entry;
+        }
+        catch (IOException | IllegalStateException ex) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Cannot index [" + resource + "]", ex);
+            }
+            return null;
+        }
+    }
+
+    @Nullable
+    private String getIndexKey(Resource resource) {
+        try {
+            if (resource.isFile()) {
+                return resource.getFile().toPath().toAbsolutePath().normalize().toString();
+            }
+            return resource.getURL().toExternalForm();
+        }
+        catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private void loadIndex(File file) {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields.length == 4) {
+                    this.index.put(fields[0],
+                            new IndexEntry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3]));
+                }
+            }
+        }
+        catch (IOException | NumberFormatException ex) {
+            logger.warn("Ignoring unreadable version index file [" + file + "]", ex);
+            this.index.clear();
+        }
+    }
+
+    private void saveIndex() {
+        File file = this.indexFile;
+        if (file == null) {
+            return;
+        }
+        synchronized (this.indexFileMonitor) {
+            Path target = file.toPath();
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    for (Map.Entry<String, IndexEntry> entry : this.index.entrySet()) {
+                        IndexEntry value = entry.getValue();
+                        writer.write(entry.getKey() + '\t' + value.size + '\t' + value.lastModified + '\t' +
+                                value.version);
+                        writer.newLine();
+                    }
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (IOException ex) {
+                logger.warn("Failed to write version index file [" + file + "]", ex);
+            }
+        }
+    }
+
+
+    private static final class IndexEntry {
+
+        final long size;
+
+        final long lastModified;
+
+        final String version;
+
+        IndexEntry(long size, long lastModified, String version) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.version = version;
+        }
+
+        boolean matches(long size, long lastModified) {
+            return (this.size == size && this.lastModified == lastModified);
+        }
+    }
+
+}
@@ -7,6 +7,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.EmbeddedValueResolverAware;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpRange;
@@ -29,6 +30,7 @@ import org.springframework.web.servlet.support.WebContentGenerator;
 import org.springframework.web.util.UrlPathHelper;
 
 import javax.servlet.ServletException;
+import javax.servlet.ServletResponseWrapper;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -46,6 +48,18 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
 
     private static final String URL_RESOURCE_CHARSET_PREFIX = "[charset=";
 
+    /** Set by Tomcat on requests whose connector can send files itself. */
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    /** Below this size, writing the content is cheaper than handing off to sendfile (as in Tomcat's DefaultServlet). */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
 
     private final List<String> locationValues = new ArrayList<>(4);
 
@@ -314,7 +328,9 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
         checkRequest(request);
 
         // Header phase
-        if (new ServletWebRequest(request, response).checkNotModified(resource.lastModified())) {
+        String eTag = (resource instanceof HttpResource ?
+                ((HttpResource) resource).getResponseHeaders().getETag() : null);
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, resource.lastModified())) {
             logger.trace("Resource not modified");
             return;
         }
@@ -335,7 +351,9 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
         if (request.getHeader(HttpHeaders.RANGE) == null) {
             Assert.state(this.resourceHttpMessageConverter != null, "Not initialized");
             setHeaders(response, resource, mediaType);
-            this.resourceHttpMessageConverter.write(resource, mediaType, outputMessage);
+            if (!sendfile(request, response, resource, 0, resource.contentLength())) {
+                this.resourceHttpMessageConverter.write(resource, mediaType, outputMessage);
+            }
         }
         else {
             Assert.state(this.resourceRegionHttpMessageConverter != null, "Not initialized");
@@ -344,8 +362,10 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
             try {
                 List<HttpRange> httpRanges = inputMessage.getHeaders().getRange();
                 response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-                this.resourceRegionHttpMessageConverter.write(
-                        HttpRange.toResourceRegions(httpRanges, resource), mediaType, outputMessage);
+                List<ResourceRegion> regions = HttpRange.toResourceRegions(httpRanges, resource);
+                if (regions.size() != 1 || !sendfile(request, response, resource, mediaType, regions.get(0))) {
+                    this.resourceRegionHttpMessageConverter.write(regions, mediaType, outputMessage);
+                }
             }
             catch (IllegalArgumentException ex) {
                 response.setHeader("Content-Range", "bytes */" + resource.contentLength());
@@ -355,6 +375,53 @@ public class ResourceHttpRequestHandler extends WebContentGenerator implements H
     }
 
 
+    private boolean sendfile(HttpServletRequest request, HttpServletResponse response, Resource resource,
+            @Nullable MediaType mediaType, ResourceRegion region) throws IOException {
+
+        long length = resource.contentLength();
+        long start = region.getPosition();
+        long end = Math.min(start + region.getCount(), length);
+        if (!canSendfile(request, response, resource, end - start)) {
+            return false;
+        }
+        if (mediaType != null) {
+            response.setContentType(mediaType.toString());
+        }
+        response.setHeader("Content-Range", "bytes " + start + '-' + (end - 1) + '/' + length);
+        response.setContentLengthLong(end - start);
+        return sendfile(request, response, resource, start, end);
+    }
+
+    /**
+     * Hand the given byte range of the resource off to the container's
+     * sendfile support, if it has any, so that the file is written to the
+     * socket without being copied through the JVM. Headers must have been set.
+     * @param start the first byte to send
+     * @param end the byte after the last one to send
+     * @return whether the container will send the content
+     */
+    private boolean sendfile(HttpServletRequest request, HttpServletResponse response, Resource resource,
+            long start, long end) throws IOException {
+
+        if (!canSendfile(request, response, resource, end - start)) {
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, resource.getFile().getCanonicalPath());
+        request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+        request.setAttribute(SENDFILE_END_ATTRIBUTE, end);
+        return true;
+    }
+
+    private boolean canSendfile(HttpServletRequest request, HttpServletResponse response, Resource resource,
+            long count) {
+
+        // A response wrapper, e.g. a compressing filter, has to see the content.
+        return (count >= SENDFILE_MIN_SIZE && resource.isFile() &&
+                Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE)) &&
+                !(response instanceof ServletResponseWrapper));
+    }
+
+
     @Nullable
     protected Resource getResource(HttpServletRequest request) throws IOException {
         String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
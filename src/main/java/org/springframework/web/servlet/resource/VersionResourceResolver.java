@@ -38,6 +38,29 @@ public class VersionResourceResolver extends AbstractResourceResolver {
         return this;
     }
 
+    /**
+     * Like {@link #addContentVersionStrategy}, but with versions kept in an
+     * index, so that content is only hashed again once it has changed.
+     * @param indexFile the file to keep the index in across restarts, if any
+     * @see IndexedContentVersionStrategy
+     */
+    public VersionResourceResolver addIndexedContentVersionStrategy(@Nullable File indexFile, String... pathPatterns) {
+        IndexedContentVersionStrategy strategy = new IndexedContentVersionStrategy();
+        strategy.setIndexFile(indexFile);
+        addVersionStrategy(strategy, pathPatterns);
+        return this;
+    }
+
+    /**
+     * Compute the versions of all resources under the given locations up front,
+     * for each {@link IndexedContentVersionStrategy} of this resolver.
+     */
+    public void buildVersionIndex(List<? extends Resource> locations) {
+        new LinkedHashSet<>(this.versionStrategyMap.values()).stream()
+                .filter(strategy -> strategy instanceof IndexedContentVersionStrategy)
+                .forEach(strategy -> ((IndexedContentVersionStrategy) strategy).buildIndex(locations));
+    }
+
 
     public VersionResourceResolver addFixedVersionStrategy(String version, String... pathPatterns) {
         List<String> patternsList = Arrays.asList(pathPatterns);
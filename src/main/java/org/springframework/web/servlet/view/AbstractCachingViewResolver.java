@@ -8,10 +8,16 @@ import org.springframework.web.servlet.ViewResolver;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.LinkedHashMap;
+import java.time.Duration;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 public abstract class AbstractCachingViewResolver extends WebApplicationObjectSupport implements ViewResolver {
     public static final int DEFAULT_CACHE_LIMIT = 1024;
@@ -36,21 +42,50 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 
     private CacheFilter cacheFilter = DEFAULT_CACHE_FILTER;
 
-    private final Map<Object, View> viewAccessCache = new ConcurrentHashMap<>(DEFAULT_CACHE_LIMIT);
-
-    private final Map<Object, View> viewCreationCache =
-            new LinkedHashMap<Object, View>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
-                @Override
-                protected boolean removeEldestEntry(Map.Entry<Object, View> eldest) {
-                    if (size() > getCacheLimit()) {
-                        viewAccessCache.remove(eldest.getKey());
-                        return true;
-                    }
-                    else {
-                        return false;
-                    }
-                }
-            };
+    private long cacheTtlNanos = 0;
+
+    /** Cached views by cache key, evicted in approximately least recently used order. */
+    private final Map<Object, CachedView> viewCache = new ConcurrentHashMap<>(DEFAULT_CACHE_LIMIT);
+
+    /**
+     * Cached views in insertion order, for CLOCK eviction: a view that was
+     * accessed since it was last queued gets a second chance at the tail.
+     * May still hold views that were removed from the cache meanwhile.
+     */
+    private final ConcurrentLinkedQueue<CachedView> evictionQueue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger evictionQueueSize = new AtomicInteger();
+
+    /** Whether a thread is evicting, so that others carry on instead of waiting. */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /** View creations in progress, so that each key is only created by one thread at a time. */
+    private final Map<Object, CompletableFuture<View>> viewCreations = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final CacheStatistics cacheStatistics = new CacheStatistics() {
+        @Override
+        public long getHitCount() {
+            return hitCount.sum();
+        }
+        @Override
+        public long getMissCount() {
+            return missCount.sum();
+        }
+        @Override
+        public long getEvictionCount() {
+            return evictionCount.sum();
+        }
+        @Override
+        public int getSize() {
+            return viewCache.size();
+        }
+    };
 
 
     public void setCacheLimit(int cacheLimit) {
@@ -86,6 +121,21 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
         return this.cacheFilter;
     }
 
+    /**
+     * Expire cached views the given time after their creation, e.g. to pick up
+     * reloaded templates. Default is none: views stay until evicted or removed.
+     */
+    public void setCacheTtl(@Nullable Duration cacheTtl) {
+        this.cacheTtlNanos = (cacheTtl != null ? cacheTtl.toNanos() : 0);
+    }
+
+    /**
+     * Return hit, miss and eviction statistics of the view cache.
+     */
+    public CacheStatistics getCacheStatistics() {
+        return this.cacheStatistics;
+    }
+
 
     @Override
     @Nullable
@@ -95,32 +145,156 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
         }
         else {
             Object cacheKey = getCacheKey(viewName, locale);
-            View view = this.viewAccessCache.get(cacheKey);
-            if (view == null) {
-                synchronized (this.viewCreationCache) {
-                    view = this.viewCreationCache.get(cacheKey);
-                    if (view == null) {
-                        // Ask the subclass to create the View object.
-                        view = createView(viewName, locale);
-                        if (view == null && this.cacheUnresolved) {
-                            view = UNRESOLVED_VIEW;
-                        }
-                        if (view != null && this.cacheFilter.filter(view, viewName, locale)) {
-                            this.viewAccessCache.put(cacheKey, view);
-                            this.viewCreationCache.put(cacheKey, view);
-                        }
-                    }
-                }
-            }
-            else {
+            View view;
+            CachedView cachedView = getCachedView(cacheKey);
+            if (cachedView != null) {
+                this.hitCount.increment();
+                view = cachedView.view;
                 if (logger.isTraceEnabled()) {
                     logger.trace(formatKey(cacheKey) + "served from cache");
                 }
             }
+            else {
+                this.missCount.increment();
+                view = createCachedView(cacheKey, viewName, locale);
+            }
             return (view != UNRESOLVED_VIEW ? view : null);
         }
     }
 
+    @Nullable
+    private CachedView getCachedView(Object cacheKey) {
+        CachedView cachedView = this.viewCache.get(cacheKey);
+        if (cachedView == null) {
+            return null;
+        }
+        if (this.cacheTtlNanos > 0 && System.nanoTime() - cachedView.createdAt > this.cacheTtlNanos) {
+            this.viewCache.remove(cacheKey, cachedView);
+            return null;
+        }
+        if (!cachedView.referenced) {
+            cachedView.referenced = true;
+        }
+        return cachedView;
+    }
+
+    @Nullable
+    private View createCachedView(Object cacheKey, String viewName, Locale locale) throws Exception {
+        CompletableFuture<View> creation = new CompletableFuture<>();
+        CompletableFuture<View> existingCreation = this.viewCreations.putIfAbsent(cacheKey, creation);
+        if (existingCreation != null) {
+            // Another thread is creating this view: wait for it rather than creating it again.
+            return awaitCreation(existingCreation);
+        }
+        try {
+            View view;
+            CachedView cachedView = getCachedView(cacheKey);
+            if (cachedView != null) {
+                view = cachedView.view;
+            }
+            else {
+                // Ask the subclass to create the View object.
+                view = createView(viewName, locale);
+                if (view == null && this.cacheUnresolved) {
+                    view = UNRESOLVED_VIEW;
+                }
+                if (view != null && this.cacheFilter.filter(view, viewName, locale)) {
+                    putCachedView(cacheKey, view, creation);
+                }
+            }
+            creation.complete(view);
+            return view;
+        }
+        catch (Throwable ex) {
+            creation.completeExceptionally(ex);
+            throw ex;
+        }
+        finally {
+            this.viewCreations.remove(cacheKey, creation);
+        }
+    }
+
+    @Nullable
+    private static View awaitCreation(CompletableFuture<View> creation) throws Exception {
+        try {
+            return creation.get();
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void putCachedView(Object cacheKey, View view, CompletableFuture<View> creation) {
+        CachedView cachedView = new CachedView(cacheKey, view);
+        this.viewCache.put(cacheKey, cachedView);
+        // removeFromCache and clearCache drop the creation before the cached view:
+        // if it is gone by now, a removal may have missed this view, so undo the put.
+        if (this.viewCreations.get(cacheKey) != creation) {
+            this.viewCache.remove(cacheKey, cachedView);
+            return;
+        }
+        this.evictionQueue.add(cachedView);
+        this.evictionQueueSize.incrementAndGet();
+        evictIfNecessary();
+    }
+
+    private void evictIfNecessary() {
+        int cacheLimit = getCacheLimit();
+        // Recheck after letting go, in case another thread skipped eviction meanwhile.
+        boolean queueDrained = false;
+        while (!queueDrained && isOverLimit(cacheLimit) && this.evicting.compareAndSet(false, true)) {
+            try {
+                queueDrained = !evict(cacheLimit);
+            }
+            finally {
+                this.evicting.set(false);
+            }
+        }
+    }
+
+    /**
+     * Evict views until within the limit.
+     * @return {@code false} if the eviction queue ran empty first
+     */
+    private boolean evict(int cacheLimit) {
+        while (isOverLimit(cacheLimit)) {
+            CachedView candidate = this.evictionQueue.poll();
+            if (candidate == null) {
+                return false;
+            }
+            if (this.viewCache.get(candidate.cacheKey) != candidate) {
+                // Removed, expired or replaced meanwhile.
+                this.evictionQueueSize.decrementAndGet();
+            }
+            else if (candidate.referenced) {
+                candidate.referenced = false;
+                this.evictionQueue.add(candidate);
+            }
+            else {
+                this.evictionQueueSize.decrementAndGet();
+                if (this.viewCache.remove(candidate.cacheKey, candidate)) {
+                    this.evictionCount.increment();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the cache holds more views than the limit, or the eviction queue
+     * holds too many views that have been removed from the cache.
+     */
+    private boolean isOverLimit(int cacheLimit) {
+        return (this.viewCache.size() > cacheLimit || this.evictionQueueSize.get() > 2 * cacheLimit);
+    }
+
     private static String formatKey(Object cacheKey) {
         return "View with key [" + cacheKey + "] ";
     }
@@ -137,11 +311,8 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
         }
         else {
             Object cacheKey = getCacheKey(viewName, locale);
-            Object cachedView;
-            synchronized (this.viewCreationCache) {
-                this.viewAccessCache.remove(cacheKey);
-                cachedView = this.viewCreationCache.remove(cacheKey);
-            }
+            this.viewCreations.remove(cacheKey);
+            Object cachedView = this.viewCache.remove(cacheKey);
             if (logger.isDebugEnabled()) {
                 // Some debug output might be useful...
                 logger.debug(formatKey(cacheKey) +
@@ -152,10 +323,8 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
 
     public void clearCache() {
         logger.debug("Clearing all views from the cache");
-        synchronized (this.viewCreationCache) {
-            this.viewAccessCache.clear();
-            this.viewCreationCache.clear();
-        }
+        this.viewCreations.clear();
+        this.viewCache.clear();
     }
 
     @Nullable
@@ -178,4 +347,35 @@ public abstract class AbstractCachingViewResolver extends WebApplicationObjectSu
          */
         boolean filter(View view, String viewName, Locale locale);
     }
+
+    /**
+     * Statistics of the view cache, e.g. for exposure through JMX.
+     */
+    public interface CacheStatistics {
+
+        long getHitCount();
+
+        long getMissCount();
+
+        long getEvictionCount();
+
+        int getSize();
+    }
+
+    private static final class CachedView {
+
+        final Object cacheKey;
+
+        final View view;
+
+        final long createdAt = System.nanoTime();
+
+        /** Whether accessed since queued for eviction. */
+        volatile boolean referenced;
+
+        CachedView(Object cacheKey, View view) {
+            this.cacheKey = cacheKey;
+            this.view = view;
+        }
+    }
 }
@@ -0,0 +1,111 @@
+package org.springframework.beans.factory.support;
+
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DefaultSingletonBeanRegistryTest {
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            circularReferenceInOppositeOrder(executor);
+            concurrentCreationOfOneSingleton(executor);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        System.out.println("Singleton creation locks behave like the registry-wide lock");
+    }
+
+    /**
+     * Two threads reach a circular reference in opposite order: each holds one
+     * bean in creation and needs the other one.
+     */
+    private static void circularReferenceInOppositeOrder(ExecutorService executor) throws Exception {
+        for (int i = 0; i < 50; i++) {
+            CountDownLatch bothInCreation = new CountDownLatch(2);
+            DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+            beanFactory.registerBeanDefinition("a", cyclicBean(bothInCreation, "b"));
+            beanFactory.registerBeanDefinition("b", cyclicBean(bothInCreation, "a"));
+
+            Future<Object> a = executor.submit(() -> beanFactory.getBean("a"));
+            Future<Object> b = executor.submit(() -> beanFactory.getBean("b"));
+            CyclicBean beanA = (CyclicBean) a.get(10, TimeUnit.SECONDS);
+            CyclicBean beanB = (CyclicBean) b.get(10, TimeUnit.SECONDS);
+
+            Assert.state(beanA.getOther() == beanB, "a does not refer to b");
+            Assert.state(beanB.getOther() == beanA, "b does not refer to a");
+            Assert.state(beanFactory.getBean("a") == beanA && beanFactory.getBean("b") == beanB,
+                    "Singletons replaced after creation");
+        }
+    }
+
+    private static RootBeanDefinition cyclicBean(CountDownLatch bothInCreation, String other) {
+        RootBeanDefinition definition = new RootBeanDefinition(CyclicBean.class);
+        definition.getConstructorArgumentValues().addGenericArgumentValue(bothInCreation);
+        definition.getPropertyValues().add("other", new RuntimeBeanReference(other));
+        return definition;
+    }
+
+    /**
+     * Threads that ask for a singleton in creation wait for that one instance.
+     */
+    private static void concurrentCreationOfOneSingleton(ExecutorService executor) throws Exception {
+        SlowBean.instances.set(0);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("slow", new RootBeanDefinition(SlowBean.class));
+
+        List<Callable<Object>> lookups = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            lookups.add(() -> beanFactory.getBean("slow"));
+        }
+        Object first = null;
+        for (Future<Object> lookup : executor.invokeAll(lookups, 10, TimeUnit.SECONDS)) {
+            Object bean = lookup.get();
+            Assert.state(first == null || first == bean, "Different instances of one singleton");
+            first = bean;
+        }
+        Assert.state(SlowBean.instances.get() == 1, "Singleton created " + SlowBean.instances + " times");
+    }
+
+
+    public static class CyclicBean {
+
+        private Object other;
+
+        public CyclicBean(CountDownLatch bothInCreation) throws InterruptedException {
+            bothInCreation.countDown();
+            bothInCreation.await(10, TimeUnit.SECONDS);
+        }
+
+        public void setOther(Object other) {
+            this.other = other;
+        }
+
+        public Object getOther() {
+            return this.other;
+        }
+    }
+
+
+    public static class SlowBean {
+
+        static final AtomicInteger instances = new AtomicInteger();
+
+        public SlowBean() throws InterruptedException {
+            Thread.sleep(50);
+            instances.incrementAndGet();
+        }
+    }
+
+}
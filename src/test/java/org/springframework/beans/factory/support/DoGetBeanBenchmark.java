@@ -0,0 +1,104 @@
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timing run of {@code getBean} on 1, 8 and 32 threads, for warm singletons
+ * and for singletons that are still in creation, i.e. all threads of a round
+ * race for the same fresh bean factory.
+ */
+public class DoGetBeanBenchmark {
+
+    private static final int BEAN_COUNT = 64;
+
+    private static final int[] THREAD_COUNTS = {1, 8, 32};
+
+    private static final long RUN_MILLIS = 2000;
+
+
+    public static void main(String[] args) throws Exception {
+        List<String> beanNames = new ArrayList<>();
+        for (int i = 0; i < BEAN_COUNT; i++) {
+            beanNames.add("bean" + i);
+        }
+        for (int threads : THREAD_COUNTS) {
+            // Once to warm up the JIT, once to measure.
+            warm(threads, beanNames);
+            System.out.printf("warm         %2d threads: %,12d getBean/s%n", threads, warm(threads, beanNames));
+        }
+        for (int threads : THREAD_COUNTS) {
+            inCreation(threads, beanNames);
+            System.out.printf("in creation  %2d threads: %,12d getBean/s%n", threads, inCreation(threads, beanNames));
+        }
+    }
+
+    private static long warm(int threads, List<String> beanNames) throws Exception {
+        DefaultListableBeanFactory beanFactory = createBeanFactory(beanNames);
+        for (String beanName : beanNames) {
+            beanFactory.getBean(beanName);
+        }
+        LongAdder lookups = new LongAdder();
+        run(threads, () -> {
+            for (String beanName : beanNames) {
+                beanFactory.getBean(beanName);
+            }
+            lookups.add(beanNames.size());
+        });
+        return lookups.sum() * 1000 / RUN_MILLIS;
+    }
+
+    private static long inCreation(int threads, List<String> beanNames) throws Exception {
+        LongAdder lookups = new LongAdder();
+        CyclicBarrier round = new CyclicBarrier(threads);
+        DefaultListableBeanFactory[] beanFactory = {createBeanFactory(beanNames)};
+        CyclicBarrier nextRound = new CyclicBarrier(threads, () -> beanFactory[0] = createBeanFactory(beanNames));
+        run(threads, () -> {
+            List<String> order = new ArrayList<>(beanNames);
+            Collections.shuffle(order);
+            try {
+                round.await(1, TimeUnit.SECONDS);
+                for (String beanName : order) {
+                    beanFactory[0].getBean(beanName);
+                }
+                nextRound.await(1, TimeUnit.SECONDS);
+            }
+            catch (Exception ex) {
+                // Another thread finished its run: no more rounds.
+                return;
+            }
+            lookups.add(order.size());
+        });
+        return lookups.sum() * 1000 / RUN_MILLIS;
+    }
+
+    private static DefaultListableBeanFactory createBeanFactory(List<String> beanNames) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        for (String beanName : beanNames) {
+            beanFactory.registerBeanDefinition(beanName, new RootBeanDefinition(Object.class));
+        }
+        return beanFactory;
+    }
+
+    private static void run(int threads, Runnable iteration) throws InterruptedException {
+        long end = System.currentTimeMillis() + RUN_MILLIS;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                while (System.currentTimeMillis() < end) {
+                    iteration.run();
+                }
+                done.countDown();
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+    }
+
+}
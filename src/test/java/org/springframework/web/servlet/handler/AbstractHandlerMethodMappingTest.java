@@ -0,0 +1,205 @@
+package org.springframework.web.servlet.handler;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Checks that the mapping registry publishes immutable snapshots, each one
+ * complete, and that lookups never see a registration in progress.
+ */
+public class AbstractHandlerMethodMappingTest {
+
+    private static final Method HANDLE = ClassUtils.getMethod(TestController.class, "handle");
+
+
+    public static void main(String[] args) throws Exception {
+        publishedSnapshotsAreImmutable();
+        deferredPublicationPublishesOnce();
+        resolutionCacheIsDroppedWithSnapshot();
+        concurrentLookupsDuringRegistration();
+        System.out.println("Mapping registry snapshots are immutable and consistent");
+    }
+
+    private static void publishedSnapshotsAreImmutable() {
+        TestHandlerMethodMapping mapping = new TestHandlerMethodMapping();
+        mapping.register("/a/{id}");
+        AbstractHandlerMethodMapping<String>.MappingSnapshot before = mapping.getMappingRegistry().getSnapshot();
+        mapping.register("/b/{id}");
+        AbstractHandlerMethodMapping<String>.MappingSnapshot after = mapping.getMappingRegistry().getSnapshot();
+
+        Assert.state(before != after, "No new snapshot published on registration");
+        Assert.state(before.getMappings().keySet().equals(Collections.singleton("/a/{id}")),
+                "Published snapshot modified: " + before.getMappings().keySet());
+        Assert.state(before.getMappingsByPattern("/b/1").isEmpty(),
+                "Published pattern index modified: " + before.getMappingsByPattern("/b/1"));
+        Assert.state(after.getMappings().size() == 2, "Registration missing: " + after.getMappings().keySet());
+        try {
+            after.getMappings().remove("/a/{id}");
+            throw new IllegalStateException("Snapshot mappings are modifiable");
+        }
+        catch (UnsupportedOperationException ex) {
+            // expected
+        }
+    }
+
+    private static void deferredPublicationPublishesOnce() {
+        TestHandlerMethodMapping mapping = new TestHandlerMethodMapping();
+        AbstractHandlerMethodMapping<String>.MappingRegistry registry = mapping.getMappingRegistry();
+        AbstractHandlerMethodMapping<String>.MappingSnapshot initial = registry.getSnapshot();
+        registry.deferPublication();
+        mapping.register("/a");
+        mapping.register("/b/{id}");
+        Assert.state(registry.getSnapshot() == initial, "Snapshot published while deferred");
+        registry.resumePublication();
+        Assert.state(registry.getSnapshot().getMappings().size() == 2,
+                "Deferred registrations missing: " + registry.getSnapshot().getMappings().keySet());
+    }
+
+    /**
+     * Lookups cached against one snapshot are not served once mappings change.
+     */
+    private static void resolutionCacheIsDroppedWithSnapshot() throws Exception {
+        TestHandlerMethodMapping mapping = new TestHandlerMethodMapping();
+        mapping.setResolutionCacheLimit(16);
+        mapping.register("/a/{id}");
+        Assert.state("/a/{id}".equals(mapping.lookup("/a/1")), "Pattern mapping not found");
+        Assert.state("/a/{id}".equals(mapping.lookup("/a/1")), "Pattern mapping not found in cache");
+        Assert.state(mapping.getResolutionCacheHitCount() == 1, "Lookup not served from the resolution cache");
+
+        mapping.register("/a/1");
+        Assert.state("/a/1".equals(mapping.lookup("/a/1")), "Stale resolution served after registration");
+        mapping.unregisterMapping("/a/1");
+        Assert.state("/a/{id}".equals(mapping.lookup("/a/1")), "Stale resolution served after removal");
+    }
+
+    /**
+     * Readers keep finding the stable mappings while a writer registers and
+     * removes others.
+     */
+    private static void concurrentLookupsDuringRegistration() throws Exception {
+        TestHandlerMethodMapping mapping = new TestHandlerMethodMapping();
+        mapping.setResolutionCacheLimit(64);
+        mapping.register("/stable/{id}");
+        mapping.register("/stable");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicBoolean done = new AtomicBoolean();
+        try {
+            Future<?>[] readers = new Future<?>[4];
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = executor.submit(() -> {
+                    while (!done.get()) {
+                        String found = mapping.lookup("/stable/1");
+                        Assert.state("/stable/{id}".equals(found), "Lookup of /stable/1 found " + found);
+                        found = mapping.lookup("/stable");
+                        Assert.state("/stable".equals(found), "Lookup of /stable found " + found);
+                    }
+                    return null;
+                });
+            }
+            for (int i = 0; i < 2000; i++) {
+                mapping.register("/transient" + i + "/{id}");
+                if (i % 2 == 0) {
+                    mapping.register("/stable/" + i);
+                    mapping.unregisterMapping("/stable/" + i);
+                }
+                mapping.unregisterMapping("/transient" + i + "/{id}");
+            }
+            done.set(true);
+            for (Future<?> reader : readers) {
+                reader.get(10, TimeUnit.SECONDS);
+            }
+        }
+        finally {
+            done.set(true);
+            executor.shutdownNow();
+        }
+        Assert.state(mapping.getHandlerMethods().size() == 2,
+                "Mappings left behind: " + mapping.getHandlerMethods().keySet());
+    }
+
+
+    /**
+     * Maps each path pattern to its own handler instance.
+     */
+    private static class TestHandlerMethodMapping extends AbstractHandlerMethodMapping<String> {
+
+        void register(String pattern) {
+            registerMapping(pattern, new TestController(pattern), HANDLE);
+        }
+
+        /**
+         * Return the pattern of the handler found for the given path, if any.
+         */
+        String lookup(String path) throws Exception {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+            request.setAttribute(LOOKUP_PATH, path);
+            HandlerMethod handlerMethod = lookupHandlerMethod(path, request);
+            return (handlerMethod != null ? ((TestController) handlerMethod.getBean()).pattern : null);
+        }
+
+        @Override
+        protected boolean isHandler(Class<?> beanType) {
+            return false;
+        }
+
+        @Override
+        protected String getMappingForMethod(Method method, Class<?> handlerType) {
+            return null;
+        }
+
+        @Override
+        protected Set<String> getMappingPathPatterns(String mapping) {
+            return Collections.singleton(mapping);
+        }
+
+        @Override
+        protected String getMatchingMapping(String mapping, HttpServletRequest request) {
+            String lookupPath = (String) request.getAttribute(LOOKUP_PATH);
+            return (getPathMatcher().match(mapping, lookupPath) ? mapping : null);
+        }
+
+        @Override
+        protected Comparator<String> getMappingComparator(HttpServletRequest request) {
+            return getPathMatcher().getPatternComparator((String) request.getAttribute(LOOKUP_PATH));
+        }
+
+        @Override
+        protected boolean isResolutionCacheable(String mapping) {
+            return true;
+        }
+
+        @Override
+        protected Map<String, String> extractUriTemplateVariables(String mapping, String lookupPath) {
+            return getPathMatcher().extractUriTemplateVariables(mapping, lookupPath);
+        }
+    }
+
+
+    private static class TestController {
+
+        final String pattern;
+
+        TestController(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public void handle() {
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package org.springframework.web.servlet.handler;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.Assert;
+
+import java.util.Set;
+
+public class PathPatternTrieTest {
+
+    public static void main(String[] args) {
+        PathPatternTrie<String> trie = new PathPatternTrie<>();
+        trie.add("/a/*", "wildcard");
+        trie.add("/a", "literal");
+        trie.add("/a/b/**", "catchAll");
+
+        AntPathMatcher matcher = new AntPathMatcher();
+        Assert.state(matcher.match("/a/*", "/a/"), "AntPathMatcher should match /a/* against /a/");
+
+        Set<String> candidates = trie.getCandidates("/a/");
+        Assert.state(candidates.contains("wildcard"), "/a/* is lost for /a/: " + candidates);
+        Assert.state(candidates.contains("literal"), "/a is lost for /a/: " + candidates);
+
+        candidates = trie.getCandidates("/a");
+        Assert.state(!candidates.contains("wildcard"), "/a/* is a candidate for /a: " + candidates);
+
+        candidates = trie.getCandidates("/a/b/c/d");
+        Assert.state(candidates.contains("catchAll"), "/a/b/** is lost for /a/b/c/d: " + candidates);
+
+        System.out.println("PathPatternTrie candidates match AntPathMatcher");
+    }
+}
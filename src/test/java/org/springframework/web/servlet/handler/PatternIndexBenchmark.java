@@ -0,0 +1,74 @@
+package org.springframework.web.servlet.handler;
+
+import org.springframework.web.servlet.handler.PatternIndexTest.TestUrlHandlerMapping;
+import org.springframework.web.servlet.handler.PatternIndexTest.TestWebContentInterceptor;
+
+import java.util.List;
+
+/**
+ * Timing run of pattern lookups in URL handler mappings and the web content
+ * interceptor, with and without the pattern index, against 10, 100 and 1000
+ * registered patterns.
+ */
+public class PatternIndexBenchmark {
+
+    private static final int[] PATTERN_COUNTS = {10, 100, 1000};
+
+    private static final long RUN_MILLIS = 1000;
+
+
+    public static void main(String[] args) throws Exception {
+        for (int patternCount : PATTERN_COUNTS) {
+            List<String> patterns = PatternIndexTest.createPatterns(patternCount);
+            List<String> paths = PatternIndexTest.createPaths(patternCount, 1000);
+            for (boolean usePatternIndex : new boolean[] {false, true}) {
+                TestUrlHandlerMapping mapping = new TestUrlHandlerMapping(patterns, usePatternIndex, false);
+                // Once to warm up the JIT, once to measure.
+                run(() -> lookupAll(mapping, paths));
+                System.out.printf("handler mapping     %4d patterns, index %-5s: %,10d lookups/s%n",
+                        patternCount, usePatternIndex, run(() -> lookupAll(mapping, paths)) * paths.size());
+
+                TestWebContentInterceptor interceptor = new TestWebContentInterceptor(patterns, usePatternIndex);
+                run(() -> lookupAll(interceptor, paths));
+                System.out.printf("content interceptor %4d patterns, index %-5s: %,10d lookups/s%n",
+                        patternCount, usePatternIndex, run(() -> lookupAll(interceptor, paths)) * paths.size());
+            }
+        }
+    }
+
+    private static void lookupAll(TestUrlHandlerMapping mapping, List<String> paths) throws Exception {
+        for (String path : paths) {
+            mapping.lookup(path);
+        }
+    }
+
+    private static void lookupAll(TestWebContentInterceptor interceptor, List<String> paths) {
+        for (String path : paths) {
+            interceptor.lookupCacheSeconds(path);
+        }
+    }
+
+    /**
+     * Return how many times per second the given iteration ran.
+     */
+    private static long run(Iteration iteration) throws Exception {
+        long start = System.nanoTime();
+        long end = start + RUN_MILLIS * 1_000_000;
+        long iterations = 0;
+        long now;
+        do {
+            iteration.run();
+            iterations++;
+            now = System.nanoTime();
+        }
+        while (now < end);
+        return iterations * 1_000_000_000 / (now - start);
+    }
+
+
+    private interface Iteration {
+
+        void run() throws Exception;
+    }
+
+}
@@ -0,0 +1,177 @@
+package org.springframework.web.servlet.handler;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.Assert;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.WebContentInterceptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Checks that URL handler mappings and the web content interceptor find the
+ * same matches through the pattern index as by trying every pattern with an
+ * {@link AntPathMatcher}.
+ */
+public class PatternIndexTest {
+
+    static final String[] PATTERN_TEMPLATES = {
+            "/static/%d/**", "/api/v%d/items/{id}", "/api/v%d/items/{id}/parts/*", "/users/%d/{name}.json",
+            "/files/%d/*.txt", "/pages/%d", "/a%d/**/b", "/{tenant}/reports/%d", "/docs/%d/{section}/**", "/img/%d/??.png",
+            "/shop/{store}/%d", "/shop/%d/{item}"};
+
+    static final String[] PATH_TEMPLATES = {
+            "/static/%d/css/site.css", "/api/v%d/items/42", "/api/v%d/items/42/parts/7", "/users/%d/bob.json",
+            "/files/%d/notes.txt", "/pages/%d", "/pages/%d/", "/a%d/x/y/b", "/acme/reports/%d", "/docs/%d/x/y/z",
+            "/img/%d/ab.png", "/img/%d/abc.png", "/missing/%d", "/api/v%d/items", "/static/%d", "/shop/%1$d/%1$d"};
+
+
+    public static void main(String[] args) throws Exception {
+        for (int patternCount : new int[] {10, 100, 1000}) {
+            List<String> patterns = createPatterns(patternCount);
+            List<String> paths = createPaths(patternCount, 2000);
+            handlerMappingMatchesLinearScan(patterns, paths, false);
+            handlerMappingMatchesLinearScan(patterns, paths, true);
+            webContentInterceptorMatchesLinearScan(patterns, paths);
+        }
+        System.out.println("Pattern index lookups match the linear AntPathMatcher scan");
+    }
+
+    static List<String> createPatterns(int count) {
+        List<String> patterns = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            patterns.add(String.format(PATTERN_TEMPLATES[i % PATTERN_TEMPLATES.length], i / PATTERN_TEMPLATES.length));
+        }
+        return patterns;
+    }
+
+    static List<String> createPaths(int patternCount, int count) {
+        Random random = new Random(42);
+        int groups = Math.max(1, patternCount / PATTERN_TEMPLATES.length);
+        List<String> paths = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String template = PATH_TEMPLATES[random.nextInt(PATH_TEMPLATES.length)];
+            paths.add(String.format(template, random.nextInt(groups + 1)));
+        }
+        return paths;
+    }
+
+    private static void handlerMappingMatchesLinearScan(
+            List<String> patterns, List<String> paths, boolean trailingSlashMatch) throws Exception {
+
+        TestUrlHandlerMapping linear = new TestUrlHandlerMapping(patterns, false, trailingSlashMatch);
+        TestUrlHandlerMapping indexed = new TestUrlHandlerMapping(patterns, true, trailingSlashMatch);
+        for (String path : paths) {
+            List<Object> expected = linear.describeLookup(path);
+            List<Object> actual = indexed.describeLookup(path);
+            Assert.state(Objects.equals(expected, actual), "Lookup of " + path + " among " + patterns.size() +
+                    " patterns (trailing slash match " + trailingSlashMatch + "): expected " + expected +
+                    " but was " + actual);
+        }
+    }
+
+    private static void webContentInterceptorMatchesLinearScan(List<String> patterns, List<String> paths) {
+        TestWebContentInterceptor interceptor = new TestWebContentInterceptor(patterns, true);
+        AntPathMatcher pathMatcher = new AntPathMatcher();
+        for (String path : paths) {
+            // Most specific matching patterns, all equally so.
+            Set<String> expected = new LinkedHashSet<>();
+            Comparator<String> patternComparator = pathMatcher.getPatternComparator(path);
+            for (String pattern : patterns) {
+                if (!pathMatcher.match(pattern, path)) {
+                    continue;
+                }
+                int comparison = (expected.isEmpty() ? -1 : patternComparator.compare(pattern, expected.iterator().next()));
+                if (comparison < 0) {
+                    expected.clear();
+                }
+                if (comparison <= 0) {
+                    expected.add(pattern);
+                }
+            }
+            Integer cacheSeconds = interceptor.lookupCacheSeconds(path);
+            String actual = (cacheSeconds != null ? patterns.get(cacheSeconds) : null);
+            Assert.state(expected.isEmpty() ? actual == null : expected.contains(actual),
+                    "Cache mapping for " + path + " among " + patterns.size() + " patterns: expected one of " +
+                    expected + " but was " + actual);
+        }
+    }
+
+
+    static class TestUrlHandlerMapping extends AbstractUrlHandlerMapping {
+
+        TestUrlHandlerMapping(List<String> patterns, boolean usePatternIndex, boolean trailingSlashMatch) {
+            setUsePatternIndex(usePatternIndex);
+            setUseTrailingSlashMatch(trailingSlashMatch);
+            for (String pattern : patterns) {
+                registerHandler(pattern, new TestHandler(pattern));
+            }
+        }
+
+        Object lookup(String path) throws Exception {
+            return lookupHandler(path, new MockHttpServletRequest("GET", path));
+        }
+
+        /**
+         * The handler found for the given path, plus what it exposes to the
+         * request: best matching pattern, path within mapping and URI variables.
+         */
+        List<Object> describeLookup(String path) throws Exception {
+            HandlerExecutionChain chain = (HandlerExecutionChain) lookup(path);
+            if (chain == null) {
+                return null;
+            }
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+            HandlerInterceptor[] interceptors = chain.getInterceptors();
+            if (interceptors != null) {
+                for (HandlerInterceptor interceptor : interceptors) {
+                    interceptor.preHandle(request, null, chain.getHandler());
+                }
+            }
+            return Arrays.asList(((TestHandler) chain.getHandler()).pattern,
+                    request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE),
+                    request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE),
+                    request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE));
+        }
+    }
+
+
+    static class TestHandler {
+
+        final String pattern;
+
+        TestHandler(String pattern) {
+            this.pattern = pattern;
+        }
+    }
+
+
+    static class TestWebContentInterceptor extends WebContentInterceptor {
+
+        TestWebContentInterceptor(List<String> patterns, boolean usePatternIndex) {
+            setUsePatternIndex(usePatternIndex);
+            // Cache seconds identify the pattern that matched.
+            Properties cacheMappings = new Properties();
+            for (int i = 0; i < patterns.size(); i++) {
+                cacheMappings.setProperty(patterns.get(i), String.valueOf(i));
+            }
+            setCacheMappings(cacheMappings);
+        }
+
+        @Override
+        public Integer lookupCacheSeconds(String urlPath) {
+            return super.lookupCacheSeconds(urlPath);
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+package org.springframework.web.servlet.resource;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.Assert;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class InMemoryResourceResolverTest {
+
+    public static void main(String[] args) throws Exception {
+        servesSnapshots();
+        evictsLeastRecentlyUsedBeyondBudget();
+        keysOnAcceptEncoding();
+        clearCacheReleasesMemory();
+        dropsSnapshotOfChangedFile();
+        System.out.println("In-memory resources stay within budget and are invalidated");
+    }
+
+    private static void servesSnapshots() throws Exception {
+        TestResourceResolverChain chain = new TestResourceResolverChain();
+        chain.add("a.css", resource(100));
+        chain.add("large.css", resource(1000));
+        InMemoryResourceResolver resolver = new InMemoryResourceResolver();
+        resolver.setMaxResourceSize(500);
+
+        Resource first = resolver.resolveResource(null, "a.css", Collections.emptyList(), chain);
+        Resource second = resolver.resolveResource(null, "a.css", Collections.emptyList(), chain);
+        Assert.state(second == first, "Snapshot not served again");
+        Assert.state(chain.resolutions("a.css") == 1, "Resolved " + chain.resolutions("a.css") + " times");
+        Assert.state(contentOf(second).equals(contentOf(chain.resources.get("a.css"))), "Snapshot content differs");
+        Assert.state(((HttpResource) second).getResponseHeaders().getETag() != null, "No ETag on snapshot");
+
+        resolver.resolveResource(null, "large.css", Collections.emptyList(), chain);
+        resolver.resolveResource(null, "large.css", Collections.emptyList(), chain);
+        Assert.state(chain.resolutions("large.css") == 2, "Resource beyond the size limit kept in memory");
+        Assert.state(resolver.getMemoryUsed() == 100, "Memory used: " + resolver.getMemoryUsed());
+    }
+
+    private static void evictsLeastRecentlyUsedBeyondBudget() throws Exception {
+        TestResourceResolverChain chain = new TestResourceResolverChain();
+        chain.add("a.css", resource(100));
+        chain.add("b.css", resource(100));
+        chain.add("c.css", resource(100));
+        InMemoryResourceResolver resolver = new InMemoryResourceResolver();
+        resolver.setMemoryBudget(250);
+
+        resolver.resolveResource(null, "a.css", Collections.emptyList(), chain);
+        resolver.resolveResource(null, "b.css", Collections.emptyList(), chain);
+        resolver.resolveResource(null, "a.css", Collections.emptyList(), chain);
+        resolver.resolveResource(null, "c.css", Collections.emptyList(), chain);
+
+        Assert.state(resolver.getMemoryUsed() == 200, "Memory used: " + resolver.getMemoryUsed());
+        Assert.state(resolver.getEvictionCount() == 1, "Evicted " + resolver.getEvictionCount() + " snapshots");
+        resolver.resolveResource(null, "a.css", Collections.emptyList(), chain);
+        Assert.state(chain.resolutions("a.css") == 1, "Recently used snapshot a.css was evicted");
+        resolver.resolveResource(null, "b.css", Collections.emptyList(), chain);
+        Assert.state(chain.resolutions("b.css") == 2, "Least recently used snapshot b.css was not evicted");
+        Assert.state(resolver.getMemoryUsed() <= 250, "Memory used: " + resolver.getMemoryUsed());
+    }
+
+    private static void keysOnAcceptEncoding() throws Exception {
+        TestResourceResolverChain chain = new TestResourceResolverChain();
+        chain.add("a.css", resource(100));
+        InMemoryResourceResolver resolver = new InMemoryResourceResolver();
+
+        resolver.resolveResource(request(null), "a.css", Collections.emptyList(), chain);
+        resolver.resolveResource(request("identity"), "a.css", Collections.emptyList(), chain);
+        Assert.state(chain.resolutions("a.css") == 1, "Accept-Encoding without known codings not shared");
+        resolver.resolveResource(request("gzip"), "a.css", Collections.emptyList(), chain);
+        resolver.resolveResource(request("GZIP "), "a.css", Collections.emptyList(), chain);
+        Assert.state(chain.resolutions("a.css") == 2, "Equivalent Accept-Encoding headers not shared");
+        resolver.resolveResource(request("gzip;q=0, br"), "a.css", Collections.emptyList(), chain);
+        Assert.state(chain.resolutions("a.css") == 3, "Differently negotiated Accept-Encoding shared");
+    }
+
+    private static void clearCacheReleasesMemory() throws Exception {
+        TestResourceResolverChain chain = new TestResourceResolverChain();
+        chain.add("a.css", resource(100));
+        InMemoryResourceResolver resolver = new InMemoryResourceResolver();
+        resolver.resolveResource(null, "a.css", Collections.emptyList(), chain);
+        resolver.clearCache();
+        Assert.state(resolver.getMemoryUsed() == 0, "Memory used after clearing: " + resolver.getMemoryUsed());
+        resolver.resolveResource(null, "a.css", Collections.emptyList(), chain);
+        Assert.state(chain.resolutions("a.css") == 2, "Snapshot served after clearing");
+    }
+
+    private static void dropsSnapshotOfChangedFile() throws Exception {
+        File file = File.createTempFile("InMemoryResourceResolverTest", ".css");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "before".getBytes(StandardCharsets.UTF_8));
+        TestResourceResolverChain chain = new TestResourceResolverChain();
+        chain.add("a.css", new FileSystemResource(file));
+        InMemoryResourceResolver resolver = new InMemoryResourceResolver();
+        resolver.setWatchFiles(true);
+        try {
+            Resource snapshot = resolver.resolveResource(null, "a.css", Collections.emptyList(), chain);
+            Assert.state("before".equals(contentOf(snapshot)), "Unexpected content: " + contentOf(snapshot));
+
+            Files.write(file.toPath(), "after".getBytes(StandardCharsets.UTF_8));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (resolver.getMemoryUsed() != 0) {
+                Assert.state(System.nanoTime() < deadline, "Snapshot of changed file not dropped");
+                Thread.sleep(20);
+            }
+            Resource resolved = resolver.resolveResource(null, "a.css", Collections.emptyList(), chain);
+            Assert.state("after".equals(contentOf(resolved)), "Stale content: " + contentOf(resolved));
+        }
+        finally {
+            resolver.destroy();
+        }
+    }
+
+
+    private static Resource resource(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        return new ByteArrayResource(content) {
+            @Override
+            public long lastModified() {
+                // Static resources come with one; byte arrays don't.
+                return 0;
+            }
+        };
+    }
+
+    private static HttpServletRequest request(@Nullable String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return request;
+    }
+
+    private static String contentOf(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+
+    private static class TestResourceResolverChain implements ResourceResolverChain {
+
+        final Map<String, Resource> resources = new HashMap<>();
+
+        private final Map<String, Integer> resolutions = new HashMap<>();
+
+        void add(String requestPath, Resource resource) {
+            this.resources.put(requestPath, resource);
+        }
+
+        int resolutions(String requestPath) {
+            return this.resolutions.getOrDefault(requestPath, 0);
+        }
+
+        @Override
+        @Nullable
+        public Resource resolveResource(@Nullable HttpServletRequest request, String requestPath,
+                List<? extends Resource> locations) {
+
+            this.resolutions.merge(requestPath, 1, Integer::sum);
+            return this.resources.get(requestPath);
+        }
+
+        @Override
+        @Nullable
+        public String resolveUrlPath(String resourcePath, List<? extends Resource> locations) {
+            return (this.resources.containsKey(resourcePath) ? resourcePath : null);
+        }
+    }
+
+}
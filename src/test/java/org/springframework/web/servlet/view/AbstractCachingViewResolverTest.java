@@ -0,0 +1,168 @@
+package org.springframework.web.servlet.view;
+
+import org.springframework.util.Assert;
+import org.springframework.web.servlet.View;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AbstractCachingViewResolverTest {
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            clockEviction();
+            expiry();
+            singleFlightCreation(executor);
+            removalDuringCreation(executor);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        System.out.println("View cache evicts, expires, creates once and honours removals");
+    }
+
+    /**
+     * A view accessed since it was cached gets a second chance: the next
+     * unreferenced one in insertion order is evicted instead.
+     */
+    private static void clockEviction() throws Exception {
+        TestViewResolver resolver = new TestViewResolver();
+        resolver.setCacheLimit(3);
+        resolver.resolve("a");
+        resolver.resolve("b");
+        resolver.resolve("c");
+        resolver.resolve("a");
+        resolver.resolve("d");
+
+        Assert.state(resolver.getCacheStatistics().getEvictionCount() == 1,
+                "Evicted " + resolver.getCacheStatistics().getEvictionCount() + " views");
+        Assert.state(resolver.getCacheStatistics().getSize() == 3,
+                "Cache holds " + resolver.getCacheStatistics().getSize() + " views");
+        resolver.resolve("a");
+        Assert.state(resolver.loads("a") == 1, "Recently used view a was evicted");
+        resolver.resolve("b");
+        Assert.state(resolver.loads("b") == 2, "Least recently used view b was not evicted");
+    }
+
+    private static void expiry() throws Exception {
+        TestViewResolver resolver = new TestViewResolver();
+        resolver.setCacheTtl(Duration.ofMillis(50));
+        View view = resolver.resolve("a");
+        Assert.state(resolver.resolve("a") == view, "View not served from cache before expiry");
+        Thread.sleep(100);
+        Assert.state(resolver.resolve("a") != view, "Expired view served from cache");
+        Assert.state(resolver.loads("a") == 2, "View loaded " + resolver.loads("a") + " times");
+    }
+
+    /**
+     * Threads that miss the same view wait for one creation.
+     */
+    private static void singleFlightCreation(ExecutorService executor) throws Exception {
+        TestViewResolver resolver = new TestViewResolver();
+        CountDownLatch release = resolver.block("a");
+
+        List<Callable<View>> lookups = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            lookups.add(() -> resolver.resolve("a"));
+        }
+        List<Future<View>> views = new ArrayList<>();
+        for (Callable<View> lookup : lookups) {
+            views.add(executor.submit(lookup));
+        }
+        resolver.awaitLoading("a");
+        Thread.sleep(50);
+        release.countDown();
+
+        View first = null;
+        for (Future<View> view : views) {
+            View resolved = view.get(10, TimeUnit.SECONDS);
+            Assert.state(first == null || first == resolved, "Different views for one name");
+            first = resolved;
+        }
+        Assert.state(resolver.loads("a") == 1, "View loaded " + resolver.loads("a") + " times");
+    }
+
+    /**
+     * A view removed while it is being created is not cached: the removal must
+     * not be undone by the creation finishing afterwards.
+     */
+    private static void removalDuringCreation(ExecutorService executor) throws Exception {
+        TestViewResolver resolver = new TestViewResolver();
+        CountDownLatch release = resolver.block("a");
+        Future<View> creation = executor.submit(() -> resolver.resolve("a"));
+        resolver.awaitLoading("a");
+        resolver.removeFromCache("a", Locale.ENGLISH);
+        release.countDown();
+        View stale = creation.get(10, TimeUnit.SECONDS);
+
+        Assert.state(resolver.resolve("a") != stale, "View removed during creation is still cached");
+        Assert.state(resolver.loads("a") == 2, "View loaded " + resolver.loads("a") + " times");
+    }
+
+
+    private static class TestViewResolver extends AbstractCachingViewResolver {
+
+        private final Map<String, AtomicInteger> loads = new ConcurrentHashMap<>();
+
+        private final Map<String, CountDownLatch> loading = new ConcurrentHashMap<>();
+
+        private final Map<String, CountDownLatch> blocked = new ConcurrentHashMap<>();
+
+        View resolve(String viewName) throws Exception {
+            return resolveViewName(viewName, Locale.ENGLISH);
+        }
+
+        int loads(String viewName) {
+            AtomicInteger count = this.loads.get(viewName);
+            return (count != null ? count.get() : 0);
+        }
+
+        /**
+         * Hold the next load of the given view until the returned latch is released.
+         */
+        CountDownLatch block(String viewName) {
+            this.loading.put(viewName, new CountDownLatch(1));
+            CountDownLatch release = new CountDownLatch(1);
+            this.blocked.put(viewName, release);
+            return release;
+        }
+
+        void awaitLoading(String viewName) throws InterruptedException {
+            Assert.state(this.loading.get(viewName).await(10, TimeUnit.SECONDS), "View not loading");
+        }
+
+        @Override
+        protected View loadView(String viewName, Locale locale) throws Exception {
+            this.loads.computeIfAbsent(viewName, key -> new AtomicInteger()).incrementAndGet();
+            CountDownLatch release = this.blocked.remove(viewName);
+            if (release != null) {
+                this.loading.get(viewName).countDown();
+                release.await(10, TimeUnit.SECONDS);
+            }
+            return new TestView();
+        }
+    }
+
+
+    private static class TestView implements View {
+
+        @Override
+        public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response) {
+        }
+    }
+
+}